@@ -0,0 +1,170 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+
+import com.divroll.backend.sdk.exception.DivrollException;
+
+/**
+ * The default transport: pooled Apache HttpClient connections for blocking
+ * calls and a lazily started Apache HttpAsyncClient for async ones, both sized
+ * and timed out by the {@link DivrollClientConfig}.
+ */
+public class ApacheDivrollTransport implements DivrollTransport {
+
+	private static final String USER_AGENT = "divroll-backend-sdk-java";
+
+	private final DivrollClientConfig config;
+	private final PoolingHttpClientConnectionManager connectionManager;
+	private final CloseableHttpClient httpClient;
+	private final RequestConfig requestConfig;
+	private final ConnectionKeepAliveStrategy keepAliveStrategy;
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private CloseableHttpAsyncClient asyncHttpClient;
+	private PoolingNHttpClientConnectionManager asyncConnectionManager;
+	private ScheduledExecutorService asyncConnectionMonitor;
+
+	public ApacheDivrollTransport(DivrollClientConfig config) {
+		this.config = config;
+		this.connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(config.getMaxTotalConnections());
+		connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+
+		this.requestConfig = RequestConfig.custom().setConnectTimeout(config.getConnectTimeout())
+				.setSocketTimeout(config.getSocketTimeout())
+				.setConnectionRequestTimeout(config.getConnectionRequestTimeout())
+				.setContentCompressionEnabled(config.isCompressionEnabled()).build();
+
+		final long keepAlive = config.getKeepAlive();
+		this.keepAliveStrategy = (response, context) -> {
+			long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+			if (serverKeepAlive > 0 && serverKeepAlive < keepAlive) {
+				return serverKeepAlive;
+			}
+			return keepAlive;
+		};
+		HttpClientBuilder builder = HttpClients.custom().setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(requestConfig).setUserAgent(USER_AGENT)
+				.setKeepAliveStrategy(keepAliveStrategy);
+		if (config.getMaxIdleTime() > 0) {
+			builder.evictExpiredConnections().evictIdleConnections(config.getMaxIdleTime(), TimeUnit.MILLISECONDS);
+		}
+		this.httpClient = builder.build();
+	}
+
+	@Override
+	public CloseableHttpResponse execute(HttpUriRequest request) throws IOException {
+		return httpClient.execute(request);
+	}
+
+	@Override
+	public Future<HttpResponse> execute(HttpUriRequest request, FutureCallback<HttpResponse> callback) {
+		return getAsyncHttpClient().execute(request, callback);
+	}
+
+	private CloseableHttpAsyncClient getAsyncHttpClient() {
+		lock.lock();
+		try {
+			if (asyncHttpClient == null) {
+				try {
+					asyncConnectionManager = new PoolingNHttpClientConnectionManager(
+							new DefaultConnectingIOReactor(IOReactorConfig.custom()
+									.setConnectTimeout(config.getConnectTimeout())
+									.setSoTimeout(config.getSocketTimeout()).build()));
+				} catch (IOReactorException e) {
+					throw new DivrollException(e.getMessage());
+				}
+				asyncConnectionManager.setMaxTotal(config.getMaxTotalConnections());
+				asyncConnectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+				asyncHttpClient = HttpAsyncClients.custom().setConnectionManager(asyncConnectionManager)
+						.setDefaultRequestConfig(requestConfig).setUserAgent(USER_AGENT)
+						.setKeepAliveStrategy(keepAliveStrategy).build();
+				asyncHttpClient.start();
+				if (config.getMaxIdleTime() > 0) {
+					final PoolingNHttpClientConnectionManager manager = asyncConnectionManager;
+					final long maxIdleTime = config.getMaxIdleTime();
+					asyncConnectionMonitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+						Thread thread = new Thread(runnable, "divroll-async-connection-evictor");
+						thread.setDaemon(true);
+						return thread;
+					});
+					asyncConnectionMonitor.scheduleWithFixedDelay(() -> {
+						manager.closeExpiredConnections();
+						manager.closeIdleConnections(maxIdleTime, TimeUnit.MILLISECONDS);
+					}, maxIdleTime, maxIdleTime, TimeUnit.MILLISECONDS);
+				}
+			}
+			return asyncHttpClient;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int getLeasedConnections() {
+		return connectionManager.getTotalStats().getLeased();
+	}
+
+	public int getAvailableConnections() {
+		return connectionManager.getTotalStats().getAvailable();
+	}
+
+	@Override
+	public void close() throws IOException {
+		httpClient.close();
+		lock.lock();
+		try {
+			if (asyncConnectionMonitor != null) {
+				asyncConnectionMonitor.shutdownNow();
+			}
+			if (asyncHttpClient != null) {
+				asyncHttpClient.close();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -21,66 +21,76 @@
  */
 package com.divroll.backend.sdk;
 
+import java.util.concurrent.locks.ReentrantLock;
+
 public class Divroll {
 
-	private static String divrollServerUrl = "http://localhost:8080/divroll";
-	private static String applicationId;
-	private static String applicationKey;
-	private static String applicationMasterKey;
-	private static String authenticationToken;
-	private static String divrollNameSpace;
+	private static DivrollClient defaultClient;
+	private static final ReentrantLock LOCK = new ReentrantLock();
 
 	private Divroll() {
 	}
 
+	public static DivrollClient getClient() {
+		LOCK.lock();
+		try {
+			if (defaultClient == null) {
+				defaultClient = new DivrollClient();
+			}
+			return defaultClient;
+		} finally {
+			LOCK.unlock();
+		}
+	}
+
 	public static void initialize(String applicationId, String apiKey) {
-		Divroll.applicationId = applicationId;
-		applicationKey = apiKey;
+		getClient().setAppId(applicationId);
+		getClient().setApiKey(apiKey);
 	}
 
 	public static void initialize(String appId, String apiKey, String masterKey) {
-		applicationId = appId;
-		applicationKey = apiKey;
-		applicationMasterKey = masterKey;
+		getClient().setAppId(appId);
+		getClient().setApiKey(apiKey);
+		getClient().setMasterKey(masterKey);
 	}
 
 	public static String getServerUrl() {
-		return divrollServerUrl;
+		return getClient().getServerUrl();
 	}
 
 	public static void initialize(String serverUrl, String appId, String apiKey, String masterKey) {
-		applicationId = appId;
-		applicationKey = apiKey;
-		applicationMasterKey = masterKey;
-		divrollServerUrl = serverUrl;
+		getClient().setAppId(appId);
+		getClient().setApiKey(apiKey);
+		getClient().setMasterKey(masterKey);
+		getClient().setServerUrl(serverUrl);
 	}
 
 	public static String getAppId() {
-		return applicationId;
+		return getClient().getAppId();
 	}
 
 	public static String getApiKey() {
-		return applicationKey;
+		return getClient().getApiKey();
 	}
 
 	public static String getMasterKey() {
-		return applicationMasterKey;
+		return getClient().getMasterKey();
 	}
 
 	public static String getAuthToken() {
-		return authenticationToken;
+		return getClient().getAuthToken();
 	}
 
 	public static void setAuthToken(String authToken) {
-		authenticationToken = authToken;
+		getClient().setAuthToken(authToken);
 	}
 
 	public static void setNamespace(String nameSpace) {
-		divrollNameSpace = nameSpace;
+		getClient().setNamespace(nameSpace);
 	}
 
 	public static String getNameSpace() {
-		return divrollNameSpace;
+		return getClient().getNameSpace();
 	}
 
 }
@@ -21,11 +21,19 @@
  */
 package com.divroll.backend.sdk;
 
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
 import org.json.JSONObject;
 
 import com.divroll.backend.sdk.exception.DivrollException;
 import com.mashape.unirest.http.HttpResponse;
 import com.mashape.unirest.http.JsonNode;
+import com.mashape.unirest.request.HttpRequest;
 
 public class DivrollBase {
 
@@ -35,10 +43,74 @@ public class DivrollBase {
 	public static final String HEADER_AUTH_TOKEN = "X-Divroll-Auth-Token";
 	public static final String HEADER_NAMESPACE = "X-Divroll-Namespace";
 
+	private DivrollClient client;
+	private String etag;
+	private String lastModified;
+	private String validatedId;
+
+	public DivrollClient getClient() {
+		if (client == null) {
+			return Divroll.getClient();
+		}
+		return client;
+	}
+
+	public void setClient(DivrollClient client) {
+		this.client = client;
+	}
+
 	public void throwException(HttpResponse<JsonNode> response) {
 		JsonNode body = response.getBody();
 		JSONObject jsonObject = body.getObject();
 		JSONObject statusInfo = jsonObject.getJSONObject("org.restlet.engine.application.StatusInfo");
 		throw new DivrollException(statusInfo.getString("description"));
 	}
+
+	public String getEtag() {
+		return etag;
+	}
+
+	public String getLastModified() {
+		return lastModified;
+	}
+
+	/**
+	 * Makes a retrieve of the object conditional on the validators stored by
+	 * the last successful retrieve of the same id. Without a Last-Modified
+	 * header, an ISO-8601 dateUpdated is used for If-Modified-Since instead.
+	 */
+	protected void addConditionalHeaders(HttpRequest request, String id, String dateUpdated) {
+		if (id == null || !id.equals(validatedId)) {
+			return;
+		}
+		if (etag != null) {
+			request.header("If-None-Match", etag);
+		}
+		if (lastModified != null) {
+			request.header("If-Modified-Since", lastModified);
+		} else if (dateUpdated != null) {
+			try {
+				request.header("If-Modified-Since", DateTimeFormatter.RFC_1123_DATE_TIME
+						.format(Instant.parse(dateUpdated).atOffset(ZoneOffset.UTC)));
+			} catch (DateTimeParseException e) {
+				// no usable validator
+			}
+		}
+	}
+
+	protected void storeValidators(HttpResponse<?> response, String id) {
+		etag = null;
+		lastModified = null;
+		for (Map.Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+			if (header.getValue().isEmpty()) {
+				continue;
+			}
+			if (header.getKey().equalsIgnoreCase("ETag")) {
+				etag = header.getValue().get(0);
+			} else if (header.getKey().equalsIgnoreCase("Last-Modified")) {
+				lastModified = header.getValue().get(0);
+			}
+		}
+		validatedId = id;
+	}
 }
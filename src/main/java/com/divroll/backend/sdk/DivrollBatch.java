@@ -0,0 +1,179 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+import com.divroll.backend.sdk.exception.DivrollException;
+
+/**
+ * Groups entity create, update and delete operations and sends them in
+ * chunks. The operations of a chunk are pipelined over the entities' clients
+ * and the next chunk starts once all of them completed, so at most
+ * {@code chunkSize} requests are in flight at a time.
+ */
+public class DivrollBatch {
+
+	public static final int DEFAULT_CHUNK_SIZE = 100;
+
+	public enum Operation {
+		CREATE, UPDATE, DELETE
+	}
+
+	private final List<Result> results = new ArrayList<Result>();
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+	public DivrollBatch() {
+	}
+
+	public DivrollBatch(int chunkSize) {
+		setChunkSize(chunkSize);
+	}
+
+	public static DivrollBatch build() {
+		DivrollBatch divrollBatch = new DivrollBatch();
+		return divrollBatch;
+	}
+
+	public void create(DivrollEntity entity) {
+		results.add(new Result(Operation.CREATE, entity));
+	}
+
+	public void update(DivrollEntity entity) {
+		results.add(new Result(Operation.UPDATE, entity));
+	}
+
+	public void delete(DivrollEntity entity) {
+		results.add(new Result(Operation.DELETE, entity));
+	}
+
+	public int size() {
+		return results.size();
+	}
+
+	public List<Result> execute() {
+		try {
+			return executeAsync().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DivrollException(e.getMessage());
+		} catch (ExecutionException e) {
+			throw new DivrollException(e.getCause().getMessage());
+		}
+	}
+
+	public CompletableFuture<List<Result>> executeAsync() {
+		CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+		for (int from = 0; from < results.size(); from += chunkSize) {
+			List<Result> chunk = results.subList(from, Math.min(from + chunkSize, results.size()));
+			chain = chain.thenCompose(ignored -> executeChunk(chunk));
+		}
+		return chain.thenApply(ignored -> Collections.unmodifiableList(results));
+	}
+
+	private CompletableFuture<Void> executeChunk(List<Result> chunk) {
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[chunk.size()];
+		for (int i = 0; i < chunk.size(); i++) {
+			Result result = chunk.get(i);
+			futures[i] = send(result).handle((success, error) -> {
+				result.complete(success, error);
+				return null;
+			});
+		}
+		return CompletableFuture.allOf(futures);
+	}
+
+	private CompletableFuture<Boolean> send(Result result) {
+		DivrollEntity entity = result.getEntity();
+		try {
+			switch (result.getOperation()) {
+			case CREATE:
+				return entity.createAsync().thenApply(created -> created.getEntityId() != null);
+			case UPDATE:
+				return entity.updateAsync();
+			default:
+				return entity.deleteAsync();
+			}
+		} catch (RuntimeException e) {
+			CompletableFuture<Boolean> failed = new CompletableFuture<Boolean>();
+			failed.completeExceptionally(e);
+			return failed;
+		}
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	public void setChunkSize(int chunkSize) {
+		if (chunkSize < 1) {
+			throw new DivrollException("Chunk size must be at least 1");
+		}
+		this.chunkSize = chunkSize;
+	}
+
+	public static class Result {
+
+		private final Operation operation;
+		private final DivrollEntity entity;
+		private boolean success;
+		private Throwable error;
+
+		private Result(Operation operation, DivrollEntity entity) {
+			this.operation = operation;
+			this.entity = entity;
+		}
+
+		private void complete(Boolean success, Throwable error) {
+			if (error instanceof CompletionException && error.getCause() != null) {
+				error = error.getCause();
+			}
+			this.success = error == null && Boolean.TRUE.equals(success);
+			this.error = error;
+		}
+
+		public Operation getOperation() {
+			return operation;
+		}
+
+		public DivrollEntity getEntity() {
+			return entity;
+		}
+
+		public String getEntityId() {
+			return entity.getEntityId();
+		}
+
+		public boolean isSuccess() {
+			return success;
+		}
+
+		public Throwable getError() {
+			return error;
+		}
+	}
+}
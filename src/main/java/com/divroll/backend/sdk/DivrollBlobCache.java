@@ -0,0 +1,271 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.google.common.hash.Hashing;
+
+/**
+ * Local directory of downloaded blobs, bounded in total bytes and evicted in
+ * least recently used order. Each blob is kept with the ETag it was served
+ * with so it can be revalidated, and is read back through a read-only memory
+ * mapping. Like the {@link DivrollEntityCache}, blobs are keyed by application
+ * and by the credentials they were read with as well as by their location.
+ */
+public class DivrollBlobCache {
+
+	private static final String BLOB_SUFFIX = ".blob";
+	private static final String ETAG_SUFFIX = ".etag";
+	private static final char KEY_SEPARATOR = '-';
+
+	private final Path directory;
+	private final long maximumSize;
+	private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+	// the cached keys of each blob, one per set of credentials
+	private final Map<String, Set<String>> keys = new HashMap<>();
+	private long size;
+	private final ReentrantLock lock = new ReentrantLock();
+
+	public DivrollBlobCache(Path directory, long maximumSize) throws IOException {
+		this.directory = Files.createDirectories(directory);
+		this.maximumSize = maximumSize;
+		List<Path> blobs = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + BLOB_SUFFIX)) {
+			for (Path blob : stream) {
+				blobs.add(blob);
+			}
+		}
+		blobs.sort((a, b) -> Long.compare(a.toFile().lastModified(), b.toFile().lastModified()));
+		for (Path blob : blobs) {
+			String name = blob.getFileName().toString();
+			String hash = name.substring(0, name.length() - BLOB_SUFFIX.length());
+			if (hash.indexOf(KEY_SEPARATOR) > 0 && Files.exists(directory.resolve(hash + ETAG_SUFFIX))) {
+				long blobSize = Files.size(blob);
+				entries.put(hash, blobSize);
+				index(hash);
+				size += blobSize;
+			} else {
+				// orphaned, or written before blobs were keyed by credentials
+				Files.deleteIfExists(blob);
+				Files.deleteIfExists(directory.resolve(hash + ETAG_SUFFIX));
+			}
+		}
+		evict();
+	}
+
+	/**
+	 * Returns the cached blob, or null if it is not cached. The caller should
+	 * revalidate the returned ETag with the server before using the content.
+	 */
+	public Entry get(DivrollClient client, String entityStore, String entityId, String blobKey) throws IOException {
+		String hash = key(client, entityStore, entityId, blobKey);
+		lock.lock();
+		try {
+			if (entries.get(hash) == null) {
+				return null;
+			}
+			// read under the lock so the ETag and content come from the same put
+			String etag = new String(Files.readAllBytes(directory.resolve(hash + ETAG_SUFFIX)), StandardCharsets.UTF_8);
+			return new Entry(etag, map(directory.resolve(hash + BLOB_SUFFIX)));
+		} catch (NoSuchFileException e) {
+			// removed from the directory behind the cache's back
+			return null;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Stores the content under the ETag it was served with and returns it
+	 * mapped from the cache file.
+	 */
+	public Entry put(DivrollClient client, String entityStore, String entityId, String blobKey, String etag,
+			InputStream content) throws IOException {
+		String hash = key(client, entityStore, entityId, blobKey);
+		Path blob = directory.resolve(hash + BLOB_SUFFIX);
+		Path temp = Files.createTempFile(directory, hash, ".tmp");
+		try {
+			long blobSize = Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+			MappedByteBuffer buffer = map(temp);
+			lock.lock();
+			try {
+				Files.write(directory.resolve(hash + ETAG_SUFFIX), etag.getBytes(StandardCharsets.UTF_8));
+				Files.move(temp, blob, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				Long previous = entries.put(hash, blobSize);
+				index(hash);
+				size += blobSize - (previous != null ? previous : 0);
+				evict();
+			} finally {
+				lock.unlock();
+			}
+			return new Entry(etag, buffer);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Drops the blob as cached for every set of credentials.
+	 */
+	public void invalidate(DivrollClient client, String entityStore, String entityId, String blobKey) {
+		lock.lock();
+		try {
+			Set<String> cached = keys.get(blob(client, entityStore, entityId, blobKey));
+			if (cached != null) {
+				for (String hash : new ArrayList<>(cached)) {
+					remove(hash);
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void invalidateAll() {
+		lock.lock();
+		try {
+			for (String hash : new ArrayList<>(entries.keySet())) {
+				remove(hash);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public long size() {
+		lock.lock();
+		try {
+			return size;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	public long getMaximumSize() {
+		return maximumSize;
+	}
+
+	private void evict() {
+		Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+		while (size > maximumSize && it.hasNext()) {
+			Map.Entry<String, Long> eldest = it.next();
+			it.remove();
+			unindex(eldest.getKey());
+			size -= eldest.getValue();
+			delete(eldest.getKey());
+		}
+	}
+
+	private void remove(String hash) {
+		Long removed = entries.remove(hash);
+		if (removed != null) {
+			unindex(hash);
+			size -= removed;
+			delete(hash);
+		}
+	}
+
+	private void index(String hash) {
+		keys.computeIfAbsent(hash.substring(0, hash.indexOf(KEY_SEPARATOR)), ignored -> new HashSet<>()).add(hash);
+	}
+
+	private void unindex(String hash) {
+		String blob = hash.substring(0, hash.indexOf(KEY_SEPARATOR));
+		Set<String> cached = keys.get(blob);
+		if (cached != null && cached.remove(hash) && cached.isEmpty()) {
+			keys.remove(blob);
+		}
+	}
+
+	private void delete(String hash) {
+		try {
+			Files.deleteIfExists(directory.resolve(hash + BLOB_SUFFIX));
+			Files.deleteIfExists(directory.resolve(hash + ETAG_SUFFIX));
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private static MappedByteBuffer map(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			// the mapping stays valid after the channel is closed
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	private static String key(DivrollClient client, String entityStore, String entityId, String blobKey) {
+		return blob(client, entityStore, entityId, blobKey) + KEY_SEPARATOR
+				+ hash(String.valueOf(DivrollEntityCache.principal(client)));
+	}
+
+	private static String blob(DivrollClient client, String entityStore, String entityId, String blobKey) {
+		return hash(Arrays.asList(client.getAppId(), client.getNameSpace(), entityStore, entityId, blobKey).toString());
+	}
+
+	private static String hash(String value) {
+		return Hashing.sha256().hashString(value, StandardCharsets.UTF_8).toString();
+	}
+
+	public static class Entry {
+
+		private final String etag;
+		private final MappedByteBuffer buffer;
+
+		private Entry(String etag, MappedByteBuffer buffer) {
+			this.etag = etag;
+			this.buffer = buffer;
+		}
+
+		public String getEtag() {
+			return etag;
+		}
+
+		public MappedByteBuffer getBuffer() {
+			return buffer;
+		}
+	}
+}
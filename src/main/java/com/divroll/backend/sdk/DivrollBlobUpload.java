@@ -0,0 +1,306 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.InputStreamEntity;
+
+import com.divroll.backend.sdk.exception.DivrollException;
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.http.exceptions.UnirestException;
+import com.mashape.unirest.request.BaseRequest;
+
+/**
+ * Uploads a blob, by default as a single streamed request. With
+ * {@link #setRangedWrites(boolean)} on, the blob is sent as parts of
+ * {@code partSize} bytes, each sent to the blob endpoint with a Content-Range
+ * header by up to {@code parallelism} concurrent requests. A part that fails
+ * with an I/O error or a server error is retried on its own, and parts that
+ * are still missing after {@code maxAttempts} can be sent by calling
+ * {@link #upload()} again. A blob that fits in a single part is sent as a
+ * plain upload.
+ */
+public class DivrollBlobUpload {
+
+	public static final long DEFAULT_PART_SIZE = 8 * 1024 * 1024;
+	public static final int DEFAULT_PARALLELISM = 4;
+	public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+	private final DivrollEntity entity;
+	private final String blobKey;
+	private final Path source;
+	private final byte[] value;
+	private final long length;
+
+	private long partSize = DEFAULT_PART_SIZE;
+	private int parallelism = DEFAULT_PARALLELISM;
+	private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+	private boolean rangedWrites;
+	private AtomicIntegerArray completed;
+
+	DivrollBlobUpload(DivrollEntity entity, String blobKey, Path source) throws IOException {
+		this.entity = entity;
+		this.blobKey = blobKey;
+		this.source = source;
+		this.value = null;
+		this.length = Files.size(source);
+	}
+
+	DivrollBlobUpload(DivrollEntity entity, String blobKey, byte[] value) {
+		this.entity = entity;
+		this.blobKey = blobKey;
+		this.source = null;
+		this.value = value;
+		this.length = value.length;
+	}
+
+	/**
+	 * Sends every part that has not been stored yet. Returns true once all parts
+	 * are stored, or false if some part still failed after its retries. Once
+	 * the last part of a ranged upload is stored, the stored length is checked
+	 * against the blob's and the blob is sent again as a single upload if the
+	 * server did not honor the ranges.
+	 */
+	public boolean upload() {
+		if (completed == null) {
+			completed = new AtomicIntegerArray(getPartCount());
+		}
+		int parts = completed.length();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, parts)));
+		List<Future<Boolean>> futures = new ArrayList<>();
+		boolean success = true;
+		try {
+			for (int i = 0; i < parts; i++) {
+				if (completed.get(i) == 0) {
+					final int part = i;
+					futures.add(executor.submit(() -> send(part)));
+				}
+			}
+			for (Future<Boolean> future : futures) {
+				success &= await(future);
+			}
+			if (success && parts > 1 && storedLength() != length) {
+				completed = new AtomicIntegerArray(1);
+				success = send(0);
+			}
+		} finally {
+			for (Future<Boolean> future : futures) {
+				future.cancel(false);
+			}
+			executor.shutdown();
+			awaitTermination(executor);
+		}
+		entity.invalidateCache();
+		entity.invalidateBlobCache(blobKey);
+		return success;
+	}
+
+	private boolean send(int part) {
+		long size = completed.length() > 1 ? partSize : length;
+		long from = part * size;
+		long to = Math.min(length, from + size) - 1;
+		for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+			try {
+				HttpRequestWithEntity request = entity.blobUploadRequest(blobKey);
+				if (completed.length() > 1) {
+					request.header("Content-Range", "bytes " + from + "-" + to + "/" + length);
+				}
+				HttpResponse<InputStream> response;
+				try (PartEntity partEntity = new PartEntity(from, to - from + 1)) {
+					response = entity.getClient().asBinary(request.entity(partEntity.body));
+				}
+				if (response.getStatus() < 500) {
+					DivrollEntity.checkBlobResponse(response.getStatus(), response.getStatusText());
+					completed.set(part, 1);
+					return true;
+				}
+			} catch (UnirestException e) {
+				if (attempt == maxAttempts) {
+					e.printStackTrace();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Reads the length of the stored blob from a one byte range request, or
+	 * returns -1 if the server reports none.
+	 */
+	private long storedLength() {
+		BaseRequest request = entity.blobRequest(blobKey);
+		request.getHttpRequest().header("Range", "bytes=0-0");
+		request.getHttpRequest().header("Accept-Encoding", "identity");
+		try (CloseableHttpResponse response = entity.getClient().open(request)) {
+			int status = response.getStatusLine().getStatusCode();
+			Header contentRange = response.getFirstHeader("Content-Range");
+			if ((status == 206 || status == 416) && contentRange != null) {
+				String value = contentRange.getValue();
+				int slash = value.lastIndexOf('/');
+				return slash < 0 || value.endsWith("*") ? -1 : Long.parseLong(value.substring(slash + 1).trim());
+			} else if (status == 200 && response.getEntity() != null) {
+				// closing the unread body discards the connection instead of
+				// downloading the blob
+				return response.getEntity().getContentLength();
+			}
+			return -1;
+		} catch (UnirestException | IOException | NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private boolean await(Future<Boolean> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DivrollException(e.getMessage());
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new DivrollException(e.getCause().getMessage());
+		}
+	}
+
+	private static void awaitTermination(ExecutorService executor) {
+		try {
+			while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+				// keep waiting for running parts
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public int getPartCount() {
+		if (!rangedWrites) {
+			return 1;
+		}
+		return (int) Math.max(1, (length + partSize - 1) / partSize);
+	}
+
+	public int getCompletedParts() {
+		int count = 0;
+		for (int i = 0; completed != null && i < completed.length(); i++) {
+			count += completed.get(i);
+		}
+		return count;
+	}
+
+	public long getPartSize() {
+		return partSize;
+	}
+
+	public void setPartSize(long partSize) {
+		if (partSize < 1) {
+			throw new DivrollException("Part size must be at least 1");
+		}
+		if (completed != null) {
+			throw new DivrollException("Part size cannot change once the upload started");
+		}
+		this.partSize = partSize;
+	}
+
+	public boolean isRangedWrites() {
+		return rangedWrites;
+	}
+
+	/**
+	 * Whether to send the blob as parts with Content-Range headers. Only turn
+	 * this on for servers that write a Content-Range request body at its
+	 * offset instead of replacing the blob. The upload checks the stored
+	 * length afterwards and falls back to a single upload if they do not. Off
+	 * by default.
+	 */
+	public void setRangedWrites(boolean rangedWrites) {
+		if (completed != null) {
+			throw new DivrollException("Ranged writes cannot change once the upload started");
+		}
+		this.rangedWrites = rangedWrites;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	public void setMaxAttempts(int maxAttempts) {
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * Body of one part, read from its own channel so parts of a file can be
+	 * sent concurrently.
+	 */
+	private class PartEntity implements AutoCloseable {
+
+		private final HttpEntity body;
+		private final FileChannel channel;
+
+		PartEntity(long offset, long count) throws IOException {
+			if (value != null) {
+				channel = null;
+				body = new ByteArrayEntity(value, (int) offset, (int) count);
+			} else {
+				channel = FileChannel.open(source, StandardOpenOption.READ).position(offset);
+				body = new InputStreamEntity(Channels.newInputStream(channel), count);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (channel != null) {
+				channel.close();
+			}
+		}
+	}
+}
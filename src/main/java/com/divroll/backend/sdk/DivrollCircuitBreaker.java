@@ -0,0 +1,174 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.google.common.base.Ticker;
+
+/**
+ * Circuit breaker state for one {@link DivrollEndpoint}, over a count based
+ * sliding window of call outcomes.
+ */
+public class DivrollCircuitBreaker {
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private static final byte FAILED = 1;
+	private static final byte SLOW = 2;
+
+	private final DivrollCircuitBreakerPolicy policy;
+	private final Ticker ticker;
+	private final byte[] window;
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private State state = State.CLOSED;
+	private int calls;
+	private int next;
+	private int failedCalls;
+	private int slowCalls;
+	private long openedAt;
+	private int halfOpenPermits;
+	private int halfOpenSuccesses;
+
+	DivrollCircuitBreaker(DivrollCircuitBreakerPolicy policy) {
+		this(policy, Ticker.systemTicker());
+	}
+
+	DivrollCircuitBreaker(DivrollCircuitBreakerPolicy policy, Ticker ticker) {
+		this.policy = policy;
+		this.ticker = ticker;
+		this.window = new byte[Math.max(1, policy.getWindowSize())];
+	}
+
+	public State getState() {
+		lock.lock();
+		try {
+			if (state == State.OPEN && openElapsed()) {
+				return State.HALF_OPEN;
+			}
+			return state;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns false if the call must be rejected. Every permitted call must be
+	 * followed by {@link #onResult(boolean, long)} or
+	 * {@link #releasePermission()}.
+	 */
+	boolean tryAcquirePermission() {
+		lock.lock();
+		try {
+			if (state == State.OPEN) {
+				if (!openElapsed()) {
+					return false;
+				}
+				state = State.HALF_OPEN;
+				halfOpenPermits = policy.getHalfOpenCalls();
+				halfOpenSuccesses = 0;
+			}
+			if (state == State.HALF_OPEN) {
+				if (halfOpenPermits <= 0) {
+					return false;
+				}
+				halfOpenPermits--;
+			}
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gives back the permission of a call that was cancelled before it had an
+	 * outcome.
+	 */
+	void releasePermission() {
+		lock.lock();
+		try {
+			if (state == State.HALF_OPEN) {
+				halfOpenPermits++;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	void onResult(boolean failed, long durationNanos) {
+		lock.lock();
+		try {
+			boolean slow = durationNanos >= TimeUnit.MILLISECONDS.toNanos(policy.getSlowCallDuration());
+			if (state == State.HALF_OPEN) {
+				if (failed || slow) {
+					open();
+				} else if (++halfOpenSuccesses >= policy.getHalfOpenCalls()) {
+					close();
+				}
+			} else if (state == State.CLOSED) {
+				record((byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0)));
+				if (calls >= policy.getMinimumCalls()
+						&& (failedCalls >= policy.getFailureRateThreshold() * calls
+								|| slowCalls >= policy.getSlowCallRateThreshold() * calls)) {
+					open();
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void record(byte outcome) {
+		if (calls == window.length) {
+			byte evicted = window[next];
+			failedCalls -= evicted & FAILED;
+			slowCalls -= (evicted & SLOW) >> 1;
+		} else {
+			calls++;
+		}
+		window[next] = outcome;
+		next = (next + 1) % window.length;
+		failedCalls += outcome & FAILED;
+		slowCalls += (outcome & SLOW) >> 1;
+	}
+
+	private boolean openElapsed() {
+		return ticker.read() - openedAt >= TimeUnit.MILLISECONDS.toNanos(policy.getOpenDuration());
+	}
+
+	private void open() {
+		state = State.OPEN;
+		openedAt = ticker.read();
+	}
+
+	private void close() {
+		state = State.CLOSED;
+		calls = 0;
+		next = 0;
+		failedCalls = 0;
+		slowCalls = 0;
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk;
+
+/**
+ * Thresholds for the circuit breakers {@link DivrollClient} keeps for each
+ * {@link DivrollEndpoint}. A breaker opens once enough of the most recent
+ * calls failed or were slow, rejects calls while open, and then lets a few
+ * trial calls through to decide whether to close again.
+ */
+public class DivrollCircuitBreakerPolicy {
+
+	public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+	public static final double DEFAULT_SLOW_CALL_RATE_THRESHOLD = 0.5;
+	public static final long DEFAULT_SLOW_CALL_DURATION = 10000;
+	public static final int DEFAULT_WINDOW_SIZE = 20;
+	public static final int DEFAULT_MINIMUM_CALLS = 10;
+	public static final long DEFAULT_OPEN_DURATION = 30000;
+	public static final int DEFAULT_HALF_OPEN_CALLS = 3;
+
+	private double failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+	private double slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+	private long slowCallDuration = DEFAULT_SLOW_CALL_DURATION;
+	private int windowSize = DEFAULT_WINDOW_SIZE;
+	private int minimumCalls = DEFAULT_MINIMUM_CALLS;
+	private long openDuration = DEFAULT_OPEN_DURATION;
+	private int halfOpenCalls = DEFAULT_HALF_OPEN_CALLS;
+
+	public DivrollCircuitBreakerPolicy() {
+	}
+
+	public static DivrollCircuitBreakerPolicy build() {
+		DivrollCircuitBreakerPolicy policy = new DivrollCircuitBreakerPolicy();
+		return policy;
+	}
+
+	public double getFailureRateThreshold() {
+		return failureRateThreshold;
+	}
+
+	/**
+	 * Fraction of the calls in the window that may fail, by connection error
+	 * or 5xx response, before the breaker opens.
+	 */
+	public void setFailureRateThreshold(double failureRateThreshold) {
+		this.failureRateThreshold = failureRateThreshold;
+	}
+
+	public double getSlowCallRateThreshold() {
+		return slowCallRateThreshold;
+	}
+
+	/**
+	 * Fraction of the calls in the window that may be slow before the breaker
+	 * opens.
+	 */
+	public void setSlowCallRateThreshold(double slowCallRateThreshold) {
+		this.slowCallRateThreshold = slowCallRateThreshold;
+	}
+
+	public long getSlowCallDuration() {
+		return slowCallDuration;
+	}
+
+	/**
+	 * Milliseconds after which a call counts as slow, measured until the
+	 * response headers arrive.
+	 */
+	public void setSlowCallDuration(long slowCallDuration) {
+		this.slowCallDuration = slowCallDuration;
+	}
+
+	public int getWindowSize() {
+		return windowSize;
+	}
+
+	/**
+	 * Number of most recent calls the rates are computed over.
+	 */
+	public void setWindowSize(int windowSize) {
+		this.windowSize = windowSize;
+	}
+
+	public int getMinimumCalls() {
+		return minimumCalls;
+	}
+
+	/**
+	 * Number of calls the window must hold before the breaker may open.
+	 */
+	public void setMinimumCalls(int minimumCalls) {
+		this.minimumCalls = minimumCalls;
+	}
+
+	public long getOpenDuration() {
+		return openDuration;
+	}
+
+	/**
+	 * Milliseconds an open breaker rejects calls before letting trial calls
+	 * through.
+	 */
+	public void setOpenDuration(long openDuration) {
+		this.openDuration = openDuration;
+	}
+
+	public int getHalfOpenCalls() {
+		return halfOpenCalls;
+	}
+
+	/**
+	 * Number of trial calls that must all succeed to close the breaker again.
+	 */
+	public void setHalfOpenCalls(int halfOpenCalls) {
+		this.halfOpenCalls = halfOpenCalls;
+	}
+}
@@ -0,0 +1,883 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.entity.DeflateDecompressingEntity;
+import org.apache.http.client.entity.GzipCompressingEntity;
+import org.apache.http.client.entity.GzipDecompressingEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpOptions;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+
+import com.divroll.backend.sdk.exception.BulkheadFullException;
+import com.divroll.backend.sdk.exception.CircuitBreakerOpenException;
+import com.divroll.backend.sdk.exception.DivrollException;
+import com.mashape.unirest.http.HttpMethod;
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.http.JsonNode;
+import com.mashape.unirest.http.exceptions.UnirestException;
+import com.mashape.unirest.request.BaseRequest;
+import com.mashape.unirest.request.GetRequest;
+import com.mashape.unirest.request.HttpRequest;
+import com.mashape.unirest.request.HttpRequestWithBody;
+
+public class DivrollClient implements Closeable {
+
+	private String serverUrl = "http://localhost:8080/divroll";
+	private String appId;
+	private String apiKey;
+	private String masterKey;
+	private String authToken;
+	private String nameSpace;
+
+	private final DivrollClientConfig config;
+	private final DivrollTransport transport;
+	private final DivrollEntityCache entityCache;
+	private final DivrollBlobCache blobCache;
+	private final Map<DivrollEndpoint, DivrollCircuitBreaker> circuitBreakers;
+	private final Map<DivrollEndpoint, Semaphore> bulkheads;
+	private final Map<DivrollEndpoint, HedgeTracker> hedgeTrackers;
+	private final SingleFlight singleFlight;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Set<CompletableFuture<?>> outstanding = ConcurrentHashMap.newKeySet();
+
+	private ScheduledExecutorService scheduler;
+
+	public DivrollClient() {
+		this(new DivrollClientConfig());
+	}
+
+	public DivrollClient(DivrollClientConfig config) {
+		this.config = config;
+		this.transport = config.getTransport() != null ? config.getTransport() : new ApacheDivrollTransport(config);
+		if (config.getEntityCacheSize() > 0) {
+			this.entityCache = new DivrollEntityCache(config.getEntityCacheSize(), config.getEntityCacheTtl());
+		} else {
+			this.entityCache = null;
+		}
+		if (config.getBlobCacheDirectory() != null) {
+			try {
+				this.blobCache = new DivrollBlobCache(config.getBlobCacheDirectory(), config.getBlobCacheSize());
+			} catch (IOException e) {
+				throw new DivrollException(e.getMessage());
+			}
+		} else {
+			this.blobCache = null;
+		}
+		if (config.getCircuitBreakerPolicy() != null) {
+			this.circuitBreakers = new EnumMap<DivrollEndpoint, DivrollCircuitBreaker>(DivrollEndpoint.class);
+			for (DivrollEndpoint endpoint : DivrollEndpoint.values()) {
+				circuitBreakers.put(endpoint, new DivrollCircuitBreaker(config.getCircuitBreakerPolicy()));
+			}
+		} else {
+			this.circuitBreakers = null;
+		}
+		if (config.getMaxConcurrentCalls() > 0) {
+			this.bulkheads = new EnumMap<DivrollEndpoint, Semaphore>(DivrollEndpoint.class);
+			for (DivrollEndpoint endpoint : DivrollEndpoint.values()) {
+				bulkheads.put(endpoint, new Semaphore(config.getMaxConcurrentCalls()));
+			}
+		} else {
+			this.bulkheads = null;
+		}
+		if (config.getHedgePolicy() != null) {
+			this.hedgeTrackers = new EnumMap<DivrollEndpoint, HedgeTracker>(DivrollEndpoint.class);
+			for (DivrollEndpoint endpoint : DivrollEndpoint.values()) {
+				hedgeTrackers.put(endpoint, new HedgeTracker(config.getHedgePolicy()));
+			}
+		} else {
+			this.hedgeTrackers = null;
+		}
+		this.singleFlight = config.isCoalescingEnabled() ? new SingleFlight() : null;
+	}
+
+	public DivrollClient(String serverUrl, String appId, String apiKey) {
+		this(serverUrl, appId, apiKey, null, new DivrollClientConfig());
+	}
+
+	public DivrollClient(String serverUrl, String appId, String apiKey, String masterKey) {
+		this(serverUrl, appId, apiKey, masterKey, new DivrollClientConfig());
+	}
+
+	public DivrollClient(String serverUrl, String appId, String apiKey, String masterKey,
+			DivrollClientConfig config) {
+		this(config);
+		setServerUrl(serverUrl);
+		setAppId(appId);
+		setApiKey(apiKey);
+		setMasterKey(masterKey);
+	}
+
+	public GetRequest get(String url) {
+		return new GetRequest(HttpMethod.GET, url);
+	}
+
+	public HttpRequestWithBody post(String url) {
+		return new HttpRequestWithBody(HttpMethod.POST, url);
+	}
+
+	public HttpRequestWithBody put(String url) {
+		return new HttpRequestWithBody(HttpMethod.PUT, url);
+	}
+
+	public HttpRequestWithBody delete(String url) {
+		return new HttpRequestWithBody(HttpMethod.DELETE, url);
+	}
+
+	public HttpResponse<JsonNode> asJson(BaseRequest request) throws UnirestException {
+		return execute(request, JsonNode.class);
+	}
+
+	public HttpResponse<InputStream> asBinary(BaseRequest request) throws UnirestException {
+		return execute(request, InputStream.class);
+	}
+
+	public <T> HttpResponse<T> execute(BaseRequest request, Class<T> responseClass) throws UnirestException {
+		if (coalesce(request)) {
+			return singleFlight.execute(request, responseClass, () -> executeOnce(request, InputStream.class));
+		}
+		return executeOnce(request, responseClass);
+	}
+
+	/**
+	 * Whether the request may share its exchange with identical concurrent
+	 * ones: plain GETs, but not logins, which each issue their own auth token.
+	 */
+	private boolean coalesce(BaseRequest request) {
+		return singleFlight != null && request.getHttpRequest().getHttpMethod() == HttpMethod.GET
+				&& !DivrollEndpoint.isAuthentication(request.getHttpRequest().getUrl());
+	}
+
+	private <T> HttpResponse<T> executeOnce(BaseRequest request, Class<T> responseClass) throws UnirestException {
+		if (config.isVirtualThreadFriendly() || hedgeTracker(request) != null) {
+			return await(executeAsyncOnce(request, responseClass));
+		}
+		try (CloseableHttpResponse response = send(request)) {
+			// HttpResponse buffers and consumes the entity, which hands the
+			// connection back to the pool before the response is closed
+			return new HttpResponse<T>(response, responseClass);
+		} catch (UnirestException | DivrollException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new UnirestException(e);
+		}
+	}
+
+	static <T> T await(CompletableFuture<T> future) throws UnirestException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			future.cancel(false);
+			Thread.currentThread().interrupt();
+			throw new UnirestException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof UnirestException) {
+				throw (UnirestException) e.getCause();
+			} else if (e.getCause() instanceof DivrollException) {
+				throw (DivrollException) e.getCause();
+			}
+			throw new UnirestException(e);
+		}
+	}
+
+	/**
+	 * Executes the request and hands the unbuffered response to the handler.
+	 * The connection is released once the handler returns, so the handler must
+	 * finish reading the body before returning. The body is streamed on the
+	 * calling thread even when the client is virtual-thread friendly.
+	 */
+	public <T> T execute(BaseRequest request, ResponseHandler<? extends T> responseHandler) throws UnirestException {
+		try (CloseableHttpResponse response = send(request)) {
+			T result = responseHandler.handleResponse(response);
+			EntityUtils.consume(response.getEntity());
+			return result;
+		} catch (IOException e) {
+			throw new UnirestException(e);
+		}
+	}
+
+	/**
+	 * Executes the request and hands the response to the handler, reading the
+	 * body into memory first whenever the client coalesces, hedges or is
+	 * virtual-thread friendly, so that the request can take those paths too.
+	 * Otherwise it behaves like {@link #execute(BaseRequest, ResponseHandler)}.
+	 * Meant for responses that are small enough to buffer, like query pages.
+	 */
+	<T> T executeBuffered(BaseRequest request, ResponseHandler<? extends T> responseHandler)
+			throws UnirestException {
+		if (!coalesce(request) && !config.isVirtualThreadFriendly() && hedgeTracker(request) == null) {
+			return execute(request, responseHandler);
+		}
+		HttpResponse<InputStream> buffered = execute(request, InputStream.class);
+		BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, buffered.getStatus(),
+				buffered.getStatusText());
+		for (Map.Entry<String, List<String>> header : buffered.getHeaders().entrySet()) {
+			for (String value : header.getValue()) {
+				response.addHeader(header.getKey(), value);
+			}
+		}
+		if (buffered.getRawBody() != null) {
+			InputStreamEntity entity = new InputStreamEntity(buffered.getRawBody());
+			entity.setContentType(response.getFirstHeader(HttpHeaders.CONTENT_TYPE));
+			response.setEntity(entity);
+		}
+		try {
+			return responseHandler.handleResponse(response);
+		} catch (IOException e) {
+			throw new UnirestException(e);
+		}
+	}
+
+	/**
+	 * Executes the request without buffering the response body. The caller
+	 * must close the returned response, which hands its connection back to the
+	 * pool, or discards it if the body was not read to the end.
+	 */
+	public CloseableHttpResponse open(BaseRequest request) throws UnirestException {
+		try {
+			return send(request);
+		} catch (IOException e) {
+			throw new UnirestException(e);
+		}
+	}
+
+	private CloseableHttpResponse send(BaseRequest request) throws IOException, UnirestException {
+		if (config.getRetryPolicy() != null) {
+			config.getRetryPolicy().deposit();
+		}
+		for (int attempt = 1;; attempt++) {
+			HttpRequestBase requestObj = prepareRequest(request.getHttpRequest());
+			DivrollEndpoint endpoint = DivrollEndpoint.of(requestObj.getURI());
+			if (config.getRateLimiter() != null) {
+				try {
+					config.getRateLimiter().acquire(appId, nameSpace,
+							DivrollRateLimiter.Operation.of(requestObj.getMethod()));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting for the rate limiter");
+				}
+			}
+			acquire(endpoint, true);
+			long start = System.nanoTime();
+			CloseableHttpResponse response;
+			try {
+				response = transport.execute(requestObj);
+			} catch (IOException e) {
+				release(endpoint, true, start);
+				long delay = retryDelay(requestObj, attempt + 1, null);
+				if (delay < 0) {
+					throw e;
+				}
+				pause(requestObj, delay);
+				continue;
+			} catch (RuntimeException e) {
+				release(endpoint, true, start);
+				throw e;
+			}
+			release(endpoint, response.getStatusLine().getStatusCode() >= 500, start);
+			long delay = retryDelay(requestObj, attempt + 1, response);
+			if (delay < 0) {
+				if (config.isCompressionEnabled()) {
+					decompress(response);
+				}
+				return response;
+			}
+			EntityUtils.consumeQuietly(response.getEntity());
+			response.close();
+			pause(requestObj, delay);
+		}
+	}
+
+	private static void pause(HttpRequestBase requestObj, long delay) throws InterruptedIOException {
+		try {
+			Thread.sleep(delay);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting to retry " + requestObj.getURI());
+		}
+	}
+
+	/**
+	 * Takes a slot in the endpoint's bulkhead and a permission from its circuit
+	 * breaker, failing fast if either is unavailable.
+	 *
+	 * @param wait
+	 *            whether to wait up to the bulkhead timeout for a free slot
+	 */
+	private void acquire(DivrollEndpoint endpoint, boolean wait) throws InterruptedIOException {
+		Semaphore bulkhead = bulkheads != null ? bulkheads.get(endpoint) : null;
+		if (bulkhead != null) {
+			boolean acquired;
+			try {
+				acquired = wait ? bulkhead.tryAcquire(config.getBulkheadTimeout(), TimeUnit.MILLISECONDS)
+						: bulkhead.tryAcquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for the " + endpoint + " bulkhead");
+			}
+			if (!acquired) {
+				throw new BulkheadFullException("Too many concurrent calls to " + endpoint);
+			}
+		}
+		DivrollCircuitBreaker circuitBreaker = circuitBreakers != null ? circuitBreakers.get(endpoint) : null;
+		if (circuitBreaker != null && !circuitBreaker.tryAcquirePermission()) {
+			if (bulkhead != null) {
+				bulkhead.release();
+			}
+			throw new CircuitBreakerOpenException("Circuit breaker for " + endpoint + " is open");
+		}
+	}
+
+	private void release(DivrollEndpoint endpoint, boolean failed, long start) {
+		if (bulkheads != null) {
+			bulkheads.get(endpoint).release();
+		}
+		if (circuitBreakers != null) {
+			circuitBreakers.get(endpoint).onResult(failed, System.nanoTime() - start);
+		}
+	}
+
+	private void cancel(DivrollEndpoint endpoint) {
+		if (bulkheads != null) {
+			bulkheads.get(endpoint).release();
+		}
+		if (circuitBreakers != null) {
+			circuitBreakers.get(endpoint).releasePermission();
+		}
+	}
+
+	/**
+	 * Milliseconds to wait before sending the request again, or -1 if the
+	 * failure or response is final.
+	 *
+	 * @param response
+	 *            the response to the previous attempt, or null if it failed
+	 *            with an IOException
+	 */
+	private long retryDelay(HttpRequestBase requestObj, int attempt, org.apache.http.HttpResponse response) {
+		DivrollRetryPolicy retryPolicy = config.getRetryPolicy();
+		if (retryPolicy == null || !DivrollRetryPolicy.isIdempotent(requestObj.getMethod())) {
+			return -1;
+		}
+		if (requestObj instanceof HttpEntityEnclosingRequestBase) {
+			HttpEntity entity = ((HttpEntityEnclosingRequestBase) requestObj).getEntity();
+			if (entity != null && !entity.isRepeatable()) {
+				return -1;
+			}
+		}
+		String retryAfter = null;
+		if (response != null) {
+			if (!DivrollRetryPolicy.isRetryable(response.getStatusLine().getStatusCode())) {
+				return -1;
+			}
+			Header header = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+			retryAfter = header != null ? header.getValue() : null;
+		}
+		long delay = retryPolicy.delay(attempt, retryAfter);
+		return delay >= 0 && retryPolicy.withdraw() ? delay : -1;
+	}
+
+	public CompletableFuture<HttpResponse<JsonNode>> asJsonAsync(BaseRequest request) {
+		return executeAsync(request, JsonNode.class);
+	}
+
+	public CompletableFuture<HttpResponse<InputStream>> asBinaryAsync(BaseRequest request) {
+		return executeAsync(request, InputStream.class);
+	}
+
+	public <T> CompletableFuture<HttpResponse<T>> executeAsync(BaseRequest request, final Class<T> responseClass) {
+		if (coalesce(request)) {
+			return singleFlight.executeAsync(request, responseClass,
+					() -> executeAsyncOnce(request, InputStream.class));
+		}
+		return executeAsyncOnce(request, responseClass);
+	}
+
+	private <T> CompletableFuture<HttpResponse<T>> executeAsyncOnce(BaseRequest request, Class<T> responseClass) {
+		final CompletableFuture<HttpResponse<T>> result = new CompletableFuture<HttpResponse<T>>();
+		outstanding.add(result);
+		result.whenComplete((response, throwable) -> outstanding.remove(result));
+		if (config.getRetryPolicy() != null) {
+			config.getRetryPolicy().deposit();
+		}
+		HedgeTracker hedgeTracker = hedgeTracker(request);
+		if (hedgeTracker != null) {
+			sendHedged(request, responseClass, result, hedgeTracker);
+		} else {
+			sendAsync(request, responseClass, result, 1);
+		}
+		return result;
+	}
+
+	private HedgeTracker hedgeTracker(BaseRequest request) {
+		if (hedgeTrackers == null || request.getHttpRequest().getHttpMethod() != HttpMethod.GET
+				|| DivrollEndpoint.isAuthentication(request.getHttpRequest().getUrl())) {
+			return null;
+		}
+		return hedgeTrackers.get(DivrollEndpoint.of(request.getHttpRequest().getUrl()));
+	}
+
+	/**
+	 * Sends the request and, if it is still outstanding after the endpoint's
+	 * hedge delay, sends it once more. The first response completes the result
+	 * and the other request is cancelled; a failed request only fails the
+	 * result once no other request is outstanding.
+	 */
+	private <T> void sendHedged(final BaseRequest request, final Class<T> responseClass,
+			final CompletableFuture<HttpResponse<T>> result, final HedgeTracker hedgeTracker) {
+		hedgeTracker.deposit();
+		final List<CompletableFuture<HttpResponse<T>>> legs;
+		legs = new CopyOnWriteArrayList<CompletableFuture<HttpResponse<T>>>();
+		final AtomicInteger pending = new AtomicInteger();
+		final Supplier<CompletableFuture<HttpResponse<T>>> sendLeg = () -> {
+			final CompletableFuture<HttpResponse<T>> leg = new CompletableFuture<HttpResponse<T>>();
+			legs.add(leg);
+			pending.incrementAndGet();
+			leg.whenComplete((response, throwable) -> {
+				if (throwable == null) {
+					result.complete(response);
+				} else if (pending.decrementAndGet() == 0) {
+					result.completeExceptionally(throwable);
+				}
+			});
+			sendAsync(request, responseClass, leg, 1);
+			return leg;
+		};
+		final long start = System.nanoTime();
+		final CompletableFuture<HttpResponse<T>> primary = sendLeg.get();
+		primary.whenComplete((response, throwable) -> {
+			// only the primary is sampled, whether or not it wins; one that lost
+			// to the hedge counts as at least as slow as it was when cancelled
+			if (throwable == null || (primary.isCancelled() && !result.isCompletedExceptionally())) {
+				hedgeTracker.record(System.nanoTime() - start);
+			}
+		});
+		final ScheduledFuture<?> hedge;
+		try {
+			hedge = getScheduler().schedule(() -> {
+				if (!result.isDone() && hedgeTracker.tryHedge()) {
+					sendLeg.get();
+				}
+			}, hedgeTracker.delay(), TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			return;
+		}
+		result.whenComplete((response, throwable) -> {
+			hedge.cancel(false);
+			for (CompletableFuture<HttpResponse<T>> leg : legs) {
+				leg.cancel(false);
+			}
+		});
+	}
+
+	private <T> void sendAsync(final BaseRequest request, final Class<T> responseClass,
+			final CompletableFuture<HttpResponse<T>> result, final int attempt) {
+		DivrollRateLimiter rateLimiter = config.getRateLimiter();
+		if (rateLimiter == null) {
+			dispatchAsync(request, responseClass, result, attempt);
+			return;
+		}
+		rateLimiter.acquireAsync(appId, nameSpace,
+				DivrollRateLimiter.Operation.of(request.getHttpRequest().getHttpMethod().name()))
+				.whenComplete((ignored, throwable) -> {
+					if (throwable != null) {
+						result.completeExceptionally(throwable);
+					} else if (!result.isDone()) {
+						dispatchAsync(request, responseClass, result, attempt);
+					}
+				});
+	}
+
+	private <T> void dispatchAsync(final BaseRequest request, final Class<T> responseClass,
+			final CompletableFuture<HttpResponse<T>> result, final int attempt) {
+		final HttpRequestBase requestObj;
+		final DivrollEndpoint endpoint;
+		try {
+			requestObj = prepareRequest(request.getHttpRequest());
+			endpoint = DivrollEndpoint.of(requestObj.getURI());
+			acquire(endpoint, false);
+		} catch (UnirestException e) {
+			result.completeExceptionally(e);
+			return;
+		} catch (DivrollException e) {
+			result.completeExceptionally(e);
+			return;
+		} catch (IOException e) {
+			result.completeExceptionally(new UnirestException(e));
+			return;
+		}
+		final long start = System.nanoTime();
+		final Future<org.apache.http.HttpResponse> future;
+		try {
+			future = transport.execute(requestObj, new FutureCallback<org.apache.http.HttpResponse>() {
+				@Override
+				public void completed(org.apache.http.HttpResponse response) {
+					release(endpoint, response.getStatusLine().getStatusCode() >= 500, start);
+					long delay = retryDelay(requestObj, attempt + 1, response);
+					if (delay >= 0) {
+						EntityUtils.consumeQuietly(response.getEntity());
+						retryAsync(request, responseClass, result, attempt + 1, delay);
+						return;
+					}
+					try {
+						if (config.isCompressionEnabled()) {
+							decompress(response);
+						}
+						result.complete(new HttpResponse<T>(response, responseClass));
+					} catch (Exception e) {
+						result.completeExceptionally(new UnirestException(e));
+					}
+				}
+
+				@Override
+				public void failed(Exception e) {
+					release(endpoint, true, start);
+					long delay = e instanceof IOException ? retryDelay(requestObj, attempt + 1, null) : -1;
+					if (delay >= 0) {
+						retryAsync(request, responseClass, result, attempt + 1, delay);
+					} else {
+						result.completeExceptionally(new UnirestException(e));
+					}
+				}
+
+				@Override
+				public void cancelled() {
+					cancel(endpoint);
+					result.cancel(false);
+				}
+			});
+		} catch (RuntimeException e) {
+			release(endpoint, true, start);
+			result.completeExceptionally(new UnirestException(e));
+			return;
+		}
+		result.whenComplete((response, throwable) -> {
+			if (result.isCancelled()) {
+				future.cancel(true);
+			}
+		});
+	}
+
+	private <T> void retryAsync(final BaseRequest request, final Class<T> responseClass,
+			final CompletableFuture<HttpResponse<T>> result, final int attempt, long delay) {
+		if (result.isDone()) {
+			return;
+		}
+		try {
+			getScheduler().schedule(() -> sendAsync(request, responseClass, result, attempt), delay,
+					TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			result.completeExceptionally(new UnirestException(e));
+		}
+	}
+
+	private ScheduledExecutorService getScheduler() {
+		lock.lock();
+		try {
+			if (scheduler == null) {
+				scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+					Thread thread = new Thread(runnable, "divroll-scheduler");
+					thread.setDaemon(true);
+					return thread;
+				});
+			}
+			return scheduler;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private HttpRequestBase prepareRequest(HttpRequest request) throws UnirestException {
+		String urlToRequest;
+		try {
+			URL url = new URL(request.getUrl());
+			URI uri = new URI(url.getProtocol(), url.getUserInfo(), url.getHost(), url.getPort(),
+					URLDecoder.decode(url.getPath(), "UTF-8"), null, url.getRef());
+			urlToRequest = uri.toURL().toString();
+			if (url.getQuery() != null && !url.getQuery().trim().isEmpty()) {
+				urlToRequest = urlToRequest + "?" + url.getQuery();
+			}
+		} catch (Exception e) {
+			throw new UnirestException(e);
+		}
+
+		HttpRequestBase requestObj;
+		HttpMethod method = request.getHttpMethod();
+		switch (method) {
+		case GET:
+			requestObj = new HttpGet(urlToRequest);
+			break;
+		case POST:
+			requestObj = new HttpPost(urlToRequest);
+			break;
+		case PUT:
+			requestObj = new HttpPut(urlToRequest);
+			break;
+		case HEAD:
+			requestObj = new HttpHead(urlToRequest);
+			break;
+		case OPTIONS:
+			requestObj = new HttpOptions(urlToRequest);
+			break;
+		default:
+			requestObj = new EntityEnclosingRequest(method.name(), urlToRequest);
+			break;
+		}
+
+		for (Map.Entry<String, List<String>> entry : request.getHeaders().entrySet()) {
+			for (String value : entry.getValue()) {
+				requestObj.addHeader(entry.getKey(), value);
+			}
+		}
+
+		if (config.isCompressionEnabled() && !requestObj.containsHeader(HttpHeaders.ACCEPT_ENCODING)) {
+			requestObj.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip,deflate");
+		}
+
+		if (request.getBody() != null && requestObj instanceof HttpEntityEnclosingRequestBase) {
+			HttpEntity entity = request.getBody().getEntity();
+			if (config.isCompressionEnabled() && isCompressible(requestObj, entity)) {
+				entity = new GzipCompressingEntity(entity);
+			}
+			((HttpEntityEnclosingRequestBase) requestObj).setEntity(entity);
+		}
+		return requestObj;
+	}
+
+	private boolean isCompressible(HttpRequestBase requestObj, HttpEntity entity) {
+		if (entity == null || requestObj.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+			return false;
+		}
+		long length = entity.getContentLength();
+		if (length >= 0 && length < config.getCompressionThreshold()) {
+			return false;
+		}
+		Header contentType = requestObj.getFirstHeader(HttpHeaders.CONTENT_TYPE);
+		if (contentType == null) {
+			contentType = entity.getContentType();
+		}
+		// blobs are usually compressed already and are uploaded in byte ranges
+		return contentType != null && (contentType.getValue().startsWith("application/json")
+				|| contentType.getValue().startsWith("text/"));
+	}
+
+	/**
+	 * Not every transport decodes content, so responses are unwrapped here the
+	 * same way Apache's blocking client does it. Responses it already decoded
+	 * no longer carry a content encoding and are left alone.
+	 */
+	private static void decompress(org.apache.http.HttpResponse response) {
+		HttpEntity entity = response.getEntity();
+		if (entity == null || entity.getContentEncoding() == null) {
+			return;
+		}
+		String encoding = entity.getContentEncoding().getValue().trim().toLowerCase(Locale.ROOT);
+		if (encoding.equals("gzip") || encoding.equals("x-gzip")) {
+			response.setEntity(new GzipDecompressingEntity(entity));
+		} else if (encoding.equals("deflate")) {
+			response.setEntity(new DeflateDecompressingEntity(entity));
+		} else {
+			return;
+		}
+		response.removeHeaders(HttpHeaders.CONTENT_LENGTH);
+		response.removeHeaders(HttpHeaders.CONTENT_ENCODING);
+		response.removeHeaders("Content-MD5");
+	}
+
+	public DivrollClientConfig getConfig() {
+		return config;
+	}
+
+	/**
+	 * The cache used by {@link DivrollEntity#retrieve()}, or null when it is
+	 * disabled in the {@link DivrollClientConfig}.
+	 */
+	public DivrollEntityCache getEntityCache() {
+		return entityCache;
+	}
+
+	/**
+	 * The cache used by {@link DivrollEntity#getBlobBuffer(String)}, or null
+	 * when no blob cache directory is configured.
+	 */
+	public DivrollBlobCache getBlobCache() {
+		return blobCache;
+	}
+
+	/**
+	 * The circuit breaker guarding the endpoint, or null when circuit breakers
+	 * are disabled in the {@link DivrollClientConfig}.
+	 */
+	public DivrollCircuitBreaker getCircuitBreaker(DivrollEndpoint endpoint) {
+		return circuitBreakers != null ? circuitBreakers.get(endpoint) : null;
+	}
+
+	HedgeTracker getHedgeTracker(DivrollEndpoint endpoint) {
+		return hedgeTrackers != null ? hedgeTrackers.get(endpoint) : null;
+	}
+
+	public DivrollTransport getTransport() {
+		return transport;
+	}
+
+	/**
+	 * Connections leased from the pool of the default
+	 * {@link ApacheDivrollTransport}, or zero for other transports.
+	 */
+	public int getLeasedConnections() {
+		return transport instanceof ApacheDivrollTransport
+				? ((ApacheDivrollTransport) transport).getLeasedConnections()
+				: 0;
+	}
+
+	/**
+	 * Idle connections in the pool of the default {@link ApacheDivrollTransport},
+	 * or zero for other transports.
+	 */
+	public int getAvailableConnections() {
+		return transport instanceof ApacheDivrollTransport
+				? ((ApacheDivrollTransport) transport).getAvailableConnections()
+				: 0;
+	}
+
+	@Override
+	public void close() throws IOException {
+		transport.close();
+		lock.lock();
+		try {
+			if (scheduler != null) {
+				scheduler.shutdownNow();
+			}
+		} finally {
+			lock.unlock();
+		}
+		// calls waiting on a retry backoff, a hedge, the rate limiter or the
+		// closed transport would otherwise never complete
+		UnirestException closed = new UnirestException("Client closed before the request completed");
+		for (CompletableFuture<?> pending : outstanding) {
+			pending.completeExceptionally(closed);
+		}
+	}
+
+	public String getServerUrl() {
+		return serverUrl;
+	}
+
+	public void setServerUrl(String serverUrl) {
+		this.serverUrl = serverUrl;
+	}
+
+	public String getAppId() {
+		return appId;
+	}
+
+	public void setAppId(String appId) {
+		this.appId = appId;
+	}
+
+	public String getApiKey() {
+		return apiKey;
+	}
+
+	public void setApiKey(String apiKey) {
+		this.apiKey = apiKey;
+	}
+
+	public String getMasterKey() {
+		return masterKey;
+	}
+
+	public void setMasterKey(String masterKey) {
+		this.masterKey = masterKey;
+	}
+
+	public String getAuthToken() {
+		return authToken;
+	}
+
+	public void setAuthToken(String authToken) {
+		this.authToken = authToken;
+	}
+
+	public String getNameSpace() {
+		return nameSpace;
+	}
+
+	public void setNamespace(String nameSpace) {
+		this.nameSpace = nameSpace;
+	}
+
+	private static class EntityEnclosingRequest extends HttpEntityEnclosingRequestBase {
+		private final String method;
+
+		EntityEnclosingRequest(String method, String uri) {
+			this.method = method;
+			setURI(URI.create(uri));
+		}
+
+		@Override
+		public String getMethod() {
+			return method;
+		}
+	}
+}
@@ -0,0 +1,334 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk;
+
+import java.nio.file.Path;
+
+public class DivrollClientConfig {
+
+	public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 200;
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+	public static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+	public static final int DEFAULT_SOCKET_TIMEOUT = 60000;
+	public static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT = 10000;
+	public static final long DEFAULT_KEEP_ALIVE = 30000;
+	public static final long DEFAULT_MAX_IDLE_TIME = 30000;
+	public static final long DEFAULT_ENTITY_CACHE_SIZE = 0;
+	public static final long DEFAULT_ENTITY_CACHE_TTL = 60000;
+	public static final long DEFAULT_BLOB_CACHE_SIZE = 256L * 1024 * 1024;
+	public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+
+	private int maxTotalConnections = DEFAULT_MAX_TOTAL_CONNECTIONS;
+	private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+	private int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+	private int socketTimeout = DEFAULT_SOCKET_TIMEOUT;
+	private int connectionRequestTimeout = DEFAULT_CONNECTION_REQUEST_TIMEOUT;
+	private long keepAlive = DEFAULT_KEEP_ALIVE;
+	private long maxIdleTime = DEFAULT_MAX_IDLE_TIME;
+	private long entityCacheSize = DEFAULT_ENTITY_CACHE_SIZE;
+	private long entityCacheTtl = DEFAULT_ENTITY_CACHE_TTL;
+	private Path blobCacheDirectory;
+	private long blobCacheSize = DEFAULT_BLOB_CACHE_SIZE;
+	private boolean compressionEnabled;
+	private int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+	private DivrollRetryPolicy retryPolicy;
+	private DivrollCircuitBreakerPolicy circuitBreakerPolicy;
+	private int maxConcurrentCalls;
+	private long bulkheadTimeout;
+	private DivrollHedgePolicy hedgePolicy;
+	private boolean coalescingEnabled;
+	private DivrollRateLimiter rateLimiter;
+	private DivrollTransport transport;
+	private boolean virtualThreadFriendly;
+
+	public DivrollClientConfig() {
+	}
+
+	public static DivrollClientConfig build() {
+		DivrollClientConfig config = new DivrollClientConfig();
+		return config;
+	}
+
+	public int getMaxTotalConnections() {
+		return maxTotalConnections;
+	}
+
+	public void setMaxTotalConnections(int maxTotalConnections) {
+		this.maxTotalConnections = maxTotalConnections;
+	}
+
+	public int getMaxConnectionsPerRoute() {
+		return maxConnectionsPerRoute;
+	}
+
+	public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+	}
+
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	public void setConnectTimeout(int connectTimeout) {
+		this.connectTimeout = connectTimeout;
+	}
+
+	public int getSocketTimeout() {
+		return socketTimeout;
+	}
+
+	public void setSocketTimeout(int socketTimeout) {
+		this.socketTimeout = socketTimeout;
+	}
+
+	public int getConnectionRequestTimeout() {
+		return connectionRequestTimeout;
+	}
+
+	public void setConnectionRequestTimeout(int connectionRequestTimeout) {
+		this.connectionRequestTimeout = connectionRequestTimeout;
+	}
+
+	public long getKeepAlive() {
+		return keepAlive;
+	}
+
+	/**
+	 * Upper bound, in milliseconds, for keeping a pooled connection alive. A
+	 * shorter Keep-Alive timeout sent by the server still takes precedence.
+	 */
+	public void setKeepAlive(long keepAlive) {
+		this.keepAlive = keepAlive;
+	}
+
+	public long getMaxIdleTime() {
+		return maxIdleTime;
+	}
+
+	/**
+	 * Pooled connections idle for longer than this, in milliseconds, are evicted
+	 * by a background thread. A value of zero or less disables idle eviction.
+	 */
+	public void setMaxIdleTime(long maxIdleTime) {
+		this.maxIdleTime = maxIdleTime;
+	}
+
+	public long getEntityCacheSize() {
+		return entityCacheSize;
+	}
+
+	/**
+	 * Maximum number of retrieved entities kept by the client's entity cache,
+	 * least recently used first out. Zero, the default, disables the cache.
+	 */
+	public void setEntityCacheSize(long entityCacheSize) {
+		this.entityCacheSize = entityCacheSize;
+	}
+
+	public long getEntityCacheTtl() {
+		return entityCacheTtl;
+	}
+
+	/**
+	 * Time, in milliseconds, a cached entity stays valid after it was retrieved.
+	 * A value of zero or less keeps entries until they are evicted or
+	 * invalidated.
+	 */
+	public void setEntityCacheTtl(long entityCacheTtl) {
+		this.entityCacheTtl = entityCacheTtl;
+	}
+
+	public Path getBlobCacheDirectory() {
+		return blobCacheDirectory;
+	}
+
+	/**
+	 * Directory in which downloaded blobs are cached and revalidated by ETag.
+	 * Null, the default, disables the blob cache.
+	 */
+	public void setBlobCacheDirectory(Path blobCacheDirectory) {
+		this.blobCacheDirectory = blobCacheDirectory;
+	}
+
+	public long getBlobCacheSize() {
+		return blobCacheSize;
+	}
+
+	/**
+	 * Upper bound, in bytes, for the blobs kept in the blob cache directory.
+	 */
+	public void setBlobCacheSize(long blobCacheSize) {
+		this.blobCacheSize = blobCacheSize;
+	}
+
+	public boolean isCompressionEnabled() {
+		return compressionEnabled;
+	}
+
+	/**
+	 * Whether responses are requested with {@code Accept-Encoding: gzip,deflate}
+	 * and decompressed as they are read, and whether JSON request bodies larger
+	 * than the compression threshold are sent gzip encoded. Off by default.
+	 */
+	public void setCompressionEnabled(boolean compressionEnabled) {
+		this.compressionEnabled = compressionEnabled;
+	}
+
+	public int getCompressionThreshold() {
+		return compressionThreshold;
+	}
+
+	/**
+	 * Smallest request body, in bytes, that is gzip encoded when compression is
+	 * enabled. Bodies of unknown length are always compressed.
+	 */
+	public void setCompressionThreshold(int compressionThreshold) {
+		this.compressionThreshold = compressionThreshold;
+	}
+
+	public DivrollRetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+
+	/**
+	 * Policy for sending GET, HEAD, OPTIONS and DELETE requests again after a
+	 * connection failure or a 429, 500, 502, 503 or 504 response. Null, the
+	 * default, sends every request once.
+	 */
+	public void setRetryPolicy(DivrollRetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+	}
+
+	public DivrollCircuitBreakerPolicy getCircuitBreakerPolicy() {
+		return circuitBreakerPolicy;
+	}
+
+	/**
+	 * Thresholds for the circuit breaker kept for each endpoint. Null, the
+	 * default, disables the circuit breakers.
+	 */
+	public void setCircuitBreakerPolicy(DivrollCircuitBreakerPolicy circuitBreakerPolicy) {
+		this.circuitBreakerPolicy = circuitBreakerPolicy;
+	}
+
+	public int getMaxConcurrentCalls() {
+		return maxConcurrentCalls;
+	}
+
+	/**
+	 * Maximum number of requests in flight to each endpoint. Zero, the
+	 * default, leaves them unbounded.
+	 */
+	public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+		this.maxConcurrentCalls = maxConcurrentCalls;
+	}
+
+	public long getBulkheadTimeout() {
+		return bulkheadTimeout;
+	}
+
+	/**
+	 * Milliseconds a blocking call waits for a free slot when its endpoint is
+	 * at maxConcurrentCalls. Async calls never wait.
+	 */
+	public void setBulkheadTimeout(long bulkheadTimeout) {
+		this.bulkheadTimeout = bulkheadTimeout;
+	}
+
+	public DivrollHedgePolicy getHedgePolicy() {
+		return hedgePolicy;
+	}
+
+	/**
+	 * Policy for hedging GET requests that are slower than usual for their
+	 * endpoint. Null, the default, sends every GET once. While hedging is on,
+	 * blocking GETs that buffer their response are sent through the async
+	 * client.
+	 */
+	public void setHedgePolicy(DivrollHedgePolicy hedgePolicy) {
+		this.hedgePolicy = hedgePolicy;
+	}
+
+	public boolean isCoalescingEnabled() {
+		return coalescingEnabled;
+	}
+
+	/**
+	 * Whether concurrent identical GET requests, same URL and headers, share a
+	 * single HTTP exchange. Each caller still decodes its own copy of the
+	 * response. Off by default.
+	 */
+	public void setCoalescingEnabled(boolean coalescingEnabled) {
+		this.coalescingEnabled = coalescingEnabled;
+	}
+
+	public DivrollRateLimiter getRateLimiter() {
+		return rateLimiter;
+	}
+
+	/**
+	 * Paces the client's requests by the client's appId and namespace and the
+	 * request's operation type. Blocking calls wait for a token, async calls
+	 * are sent once their token is due. Null, the default, sends requests
+	 * unpaced. A limiter may be shared by several clients.
+	 */
+	public void setRateLimiter(DivrollRateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+
+	public DivrollTransport getTransport() {
+		return transport;
+	}
+
+	/**
+	 * Transport the client sends its requests through, closed along with the
+	 * client. Null, the default, has each client build an
+	 * {@link ApacheDivrollTransport} from this configuration. On Java 11 and
+	 * later a {@code JdkDivrollTransport} can be used instead.
+	 */
+	public void setTransport(DivrollTransport transport) {
+		this.transport = transport;
+	}
+
+	public boolean isVirtualThreadFriendly() {
+		return virtualThreadFriendly;
+	}
+
+	/**
+	 * Whether blocking calls that buffer their response, such as
+	 * {@link DivrollEntity#retrieve()}, {@link DivrollEntity#create()} and
+	 * {@link DivrollEntities#query()}, park the calling thread on the async
+	 * client instead of doing the socket I/O themselves. The async client's
+	 * connection pool is guarded by {@code ReentrantLock}s, so virtual threads
+	 * waiting on it unmount from their carrier. Calls that stream their
+	 * response, such as the consumer variant of
+	 * {@link DivrollEntities#query(com.divroll.backend.sdk.filter.QueryFilter, java.util.function.Consumer)
+	 * query}, blob downloads and {@link DivrollEntity#openBlobStream(String)},
+	 * still read the body on the calling thread through the blocking
+	 * transport. Meant for the default {@link ApacheDivrollTransport}; blocking
+	 * calls on the {@code JdkDivrollTransport} already park on the JDK client's
+	 * futures. Off by default.
+	 */
+	public void setVirtualThreadFriendly(boolean virtualThreadFriendly) {
+		this.virtualThreadFriendly = virtualThreadFriendly;
+	}
+}
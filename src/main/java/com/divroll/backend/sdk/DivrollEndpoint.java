@@ -0,0 +1,99 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk;
+
+import java.net.URI;
+
+/**
+ * The groups of backend resources that each get their own circuit breaker,
+ * bulkhead and hedging statistics, so a slow blob store does not take entity
+ * reads down with it.
+ */
+public enum DivrollEndpoint {
+
+	ENTITIES, USERS, ROLES, BLOBS, OTHER;
+
+	public static DivrollEndpoint of(URI uri) {
+		return of(uri.getPath());
+	}
+
+	/**
+	 * Classifies a request path, or a full request URL, by its path segments:
+	 * {@code /entities/users/...} and {@code /entities/roles/...} are users and
+	 * roles, a {@code blobs} segment below an entity is a blob and anything
+	 * else below {@code /entities/} is an entity.
+	 */
+	public static DivrollEndpoint of(String path) {
+		if (path == null) {
+			return OTHER;
+		}
+		String[] segments = segments(path);
+		for (int i = 0; i < segments.length - 1; i++) {
+			if (!segments[i].equals("entities")) {
+				continue;
+			}
+			for (int j = i + 3; j < segments.length; j++) {
+				if (segments[j].equals("blobs")) {
+					return BLOBS;
+				}
+			}
+			if (segments[i + 1].equals("users")) {
+				return USERS;
+			} else if (segments[i + 1].equals("roles")) {
+				return ROLES;
+			}
+			return ENTITIES;
+		}
+		return OTHER;
+	}
+
+	/**
+	 * Whether the path, or full request URL, is a login, whose response
+	 * carries a fresh auth token and must be neither hedged nor shared.
+	 */
+	public static boolean isAuthentication(String path) {
+		if (path == null) {
+			return false;
+		}
+		String[] segments = segments(path);
+		for (int i = 0; i < segments.length - 2; i++) {
+			if (segments[i].equals("entities") && segments[i + 1].equals("users")
+					&& segments[i + 2].equals("login")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String[] segments(String path) {
+		int scheme = path.indexOf("://");
+		if (scheme >= 0) {
+			int slash = path.indexOf('/', scheme + 3);
+			path = slash >= 0 ? path.substring(slash) : "";
+		}
+		int query = path.indexOf('?');
+		if (query >= 0) {
+			path = path.substring(0, query);
+		}
+		return path.split("/");
+	}
+}
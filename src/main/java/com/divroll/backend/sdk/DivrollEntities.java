@@ -21,26 +21,58 @@
  */
 package com.divroll.backend.sdk;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
-
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 
 import com.divroll.backend.sdk.exception.BadRequestException;
+import com.divroll.backend.sdk.exception.DivrollException;
 import com.divroll.backend.sdk.exception.UnauthorizedException;
 import com.divroll.backend.sdk.filter.QueryFilter;
-import com.divroll.backend.sdk.helper.JSON;
+import com.divroll.backend.sdk.helper.DivrollEntityDecoder;
+import com.divroll.backend.sdk.helper.JSONStream;
 import com.mashape.unirest.http.HttpResponse;
 import com.mashape.unirest.http.JsonNode;
-import com.mashape.unirest.http.Unirest;
 import com.mashape.unirest.http.exceptions.UnirestException;
+import com.mashape.unirest.request.BaseRequest;
 import com.mashape.unirest.request.GetRequest;
 
 public class DivrollEntities extends LinkableDivrollBase {
 
+	public static final int DEFAULT_PAGE_SIZE = 100;
+	public static final int DEFAULT_PREFETCH_PAGES = 1;
+
 	private String entityStoreUrl = "/entities/";
 
 	private List<DivrollEntity> entities;
@@ -51,6 +83,7 @@ public class DivrollEntities extends LinkableDivrollBase {
 	private String sort;
 	private String entityStore;
 	private List<String> include;
+	private Set<String> fields;
 	private String authToken;
 
 	private DivrollEntities() {
@@ -61,6 +94,11 @@ public class DivrollEntities extends LinkableDivrollBase {
 		entityStoreUrl = entityStoreUrl + entityStore;
 	}
 
+	public DivrollEntities(DivrollClient client, String entityStore) {
+		this(entityStore);
+		setClient(client);
+	}
+
 	public List<DivrollEntity> getEntities() {
 		if (entities == null) {
 			entities = new LinkedList<DivrollEntity>();
@@ -89,180 +127,304 @@ public class DivrollEntities extends LinkableDivrollBase {
 	}
 
 	public void query(QueryFilter filter) {
+		List<DivrollEntity> results = new LinkedList<DivrollEntity>();
 		try {
-			GetRequest getRequest = Unirest.get(Divroll.getServerUrl() + entityStoreUrl);
-
-			if (Divroll.getMasterKey() != null) {
-				getRequest.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
-			}
-			if (Divroll.getAppId() != null) {
-				getRequest.header(HEADER_APP_ID, Divroll.getAppId());
-			}
-			if (Divroll.getApiKey() != null) {
-				getRequest.header(HEADER_API_KEY, Divroll.getApiKey());
-			}
-			if (Divroll.getAuthToken() != null) {
-				getRequest.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
-			}
-			if (Divroll.getNameSpace() != null) {
-				getRequest.header(HEADER_NAMESPACE, Divroll.getNameSpace());
-			}
-			if (filter != null) {
-				getRequest.queryString("queries", filter.toString());
-			}
-
-			if (count != null) {
-				getRequest.queryString("count", Boolean.valueOf(count));
-			}
-
-			if (sort != null) {
-				getRequest.queryString("sort", sort);
+			if (getClient().executeBuffered(queryRequest(filter),
+					response -> processQueryStream(response, results::add))) {
+				getEntities().clear();
+				getEntities().addAll(results);
 			}
+		} catch (UnirestException e) {
+			e.printStackTrace();
+		}
+	}
 
-			if (skip != null) {
-				getRequest.queryString("skip", String.valueOf(getSkip()));
-			}
-			if (limit != null) {
-				getRequest.queryString("limit", String.valueOf(getLimit()));
-			}
+	/**
+	 * Decodes the result page straight from the response stream and passes each
+	 * entity to the consumer as soon as it is read, without collecting the page
+	 * in {@link #getEntities()}.
+	 */
+	public void query(QueryFilter filter, Consumer<DivrollEntity> consumer) {
+		try {
+			getClient().execute(queryRequest(filter), response -> processQueryStream(response, consumer));
+		} catch (UnirestException e) {
+			e.printStackTrace();
+		}
+	}
 
-			if (include != null && !include.isEmpty()) {
-				JSONArray linkNameArray = new JSONArray();
-				for (String linkName : include) {
-					linkNameArray.put(linkName);
-				}
-				getRequest.queryString("include", linkNameArray.toString());
-			}
+	public CompletableFuture<DivrollEntities> queryAsync(QueryFilter filter) {
+		return getClient().asJsonAsync(queryRequest(filter)).thenApply(response -> {
+			processQueryResponse(response);
+			return this;
+		});
+	}
 
-			if (authToken != null && !authToken.isEmpty()) {
-				getRequest.queryString("authToken", authToken);
-			}
+	private BaseRequest queryRequest(QueryFilter filter) {
+		GetRequest getRequest = getClient().get(getClient().getServerUrl() + entityStoreUrl);
 
-			HttpResponse<JsonNode> response = getRequest.asJson();
+		if (getClient().getMasterKey() != null) {
+			getRequest.header(HEADER_MASTER_KEY, getClient().getMasterKey());
+		}
+		if (getClient().getAppId() != null) {
+			getRequest.header(HEADER_APP_ID, getClient().getAppId());
+		}
+		if (getClient().getApiKey() != null) {
+			getRequest.header(HEADER_API_KEY, getClient().getApiKey());
+		}
+		if (getClient().getAuthToken() != null) {
+			getRequest.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
+		}
+		if (getClient().getNameSpace() != null) {
+			getRequest.header(HEADER_NAMESPACE, getClient().getNameSpace());
+		}
+		if (filter != null) {
+			getRequest.queryString("queries", filter.toString());
+		}
 
-			if (response.getStatus() >= 500) {
-				throwException(response);
-			} else if (response.getStatus() == 401) {
-				throw new UnauthorizedException(response.getStatusText());
-			} else if (response.getStatus() == 400) {
-				throw new BadRequestException(response.getStatusText());
-			} else if (response.getStatus() >= 400) {
-				throwException(response);
-			} else if (response.getStatus() == 200) {
+		if (count != null) {
+			getRequest.queryString("count", Boolean.valueOf(count));
+		}
 
-				getEntities().clear();
+		if (sort != null) {
+			getRequest.queryString("sort", sort);
+		}
 
-				JsonNode body = response.getBody();
-				JSONObject bodyObj = body.getObject();
-				JSONObject entitiesJSONObject = bodyObj.getJSONObject("entities");
-				JSONArray results = entitiesJSONObject.getJSONArray("results");
-				try {
-					result = entitiesJSONObject.getLong("count");
-				} catch (Exception e) {
+		if (skip != null) {
+			getRequest.queryString("skip", String.valueOf(getSkip()));
+		}
+		if (limit != null) {
+			getRequest.queryString("limit", String.valueOf(getLimit()));
+		}
 
-				}
-				for (int i = 0; i < results.length(); i++) {
-					DivrollEntity divrollEntity = new DivrollEntity(this.entityStore);
-					JSONObject entityJSONObject = results.getJSONObject(i);
-					Iterator<String> it = entityJSONObject.keySet().iterator();
-					while (it.hasNext()) {
-						String propertyKey = it.next();
-						if (propertyKey.equals("entityId")) {
-							divrollEntity.setEntityId(entityJSONObject.getString(propertyKey));
-						} else if (propertyKey.equals("publicRead")) {
-							try {
-								Boolean value = entityJSONObject.getBoolean("publicRead");
-								divrollEntity.getAcl().setPublicRead(value);
-							} catch (Exception e) {
+		if (include != null && !include.isEmpty()) {
+			JSONArray linkNameArray = new JSONArray();
+			for (String linkName : include) {
+				linkNameArray.put(linkName);
+			}
+			getRequest.queryString("include", linkNameArray.toString());
+		}
 
-							}
-						} else if (propertyKey.equals("publicWrite")) {
-							try {
-								Boolean value = entityJSONObject.getBoolean("publicWrite");
-								divrollEntity.getAcl().setPublicWrite(value);
-							} catch (Exception e) {
+		if (fields != null) {
+			getRequest.queryString("fields", new JSONArray(fields).toString());
+		}
 
-							}
-						} else if (propertyKey.equals("aclRead")) {
-							try {
-								List<String> value = JSON.aclJSONArrayToList(entityJSONObject.getJSONArray("aclRead"));
-								divrollEntity.getAcl().setAclRead(value);
-							} catch (Exception e) {
+		if (authToken != null && !authToken.isEmpty()) {
+			getRequest.queryString("authToken", authToken);
+		}
 
-							}
-							try {
-								List<String> value = Arrays.asList(entityJSONObject.getString("aclRead"));
-								divrollEntity.getAcl().setAclRead(value);
-							} catch (Exception e) {
+		return getRequest;
+	}
 
-							}
-						} else if (propertyKey.equals("aclWrite")) {
-							try {
-								List<String> value = JSON.aclJSONArrayToList(entityJSONObject.getJSONArray("aclWrite"));
-								divrollEntity.getAcl().setAclWrite(value);
-							} catch (Exception e) {
+	private void processQueryResponse(HttpResponse<JsonNode> response) {
+		if (response.getStatus() >= 500) {
+			throwException(response);
+		} else if (response.getStatus() == 401) {
+			throw new UnauthorizedException(response.getStatusText());
+		} else if (response.getStatus() == 400) {
+			throw new BadRequestException(response.getStatusText());
+		} else if (response.getStatus() >= 400) {
+			throwException(response);
+		} else if (response.getStatus() == 200) {
+
+			getEntities().clear();
+
+			JsonNode body = response.getBody();
+			JSONObject bodyObj = body.getObject();
+			JSONObject entitiesJSONObject = bodyObj.getJSONObject("entities");
+			JSONArray results = entitiesJSONObject.getJSONArray("results");
+			try {
+				result = entitiesJSONObject.getLong("count");
+			} catch (Exception e) {
 
-							}
-							try {
-								List<String> value = Arrays.asList(entityJSONObject.getString("aclWrite"));
-								divrollEntity.getAcl().setAclWrite(value);
-							} catch (Exception e) {
+			}
+			for (int i = 0; i < results.length(); i++) {
+				getEntities().add(toEntity(results.getJSONObject(i)));
+			}
+		}
+	}
 
+	private boolean processQueryStream(org.apache.http.HttpResponse response, Consumer<DivrollEntity> consumer)
+			throws IOException {
+		if (response.getStatusLine().getStatusCode() != 200) {
+			processQueryResponse(new HttpResponse<JsonNode>(response, JsonNode.class));
+			return false;
+		}
+		HttpEntity entity = response.getEntity();
+		if (entity == null) {
+			return false;
+		}
+		Charset charset = StandardCharsets.UTF_8;
+		ContentType contentType = ContentType.get(entity);
+		if (contentType != null && contentType.getCharset() != null) {
+			charset = contentType.getCharset();
+		}
+		try (Reader reader = new InputStreamReader(entity.getContent(), charset)) {
+			JSONTokener tokener = new JSONTokener(reader);
+			JSONStream.readObject(tokener, (key, value) -> {
+				if (key.equals("entities")) {
+					JSONStream.readObject(value, (entitiesKey, entitiesValue) -> {
+						if (entitiesKey.equals("results") && JSONStream.peek(entitiesValue) == '[') {
+							JSONStream.readArray(entitiesValue, element -> consumer.accept(readEntity(element)));
+						} else if (entitiesKey.equals("results") && JSONStream.peek(entitiesValue) == '{') {
+							consumer.accept(readEntity(entitiesValue));
+						} else if (entitiesKey.equals("count")) {
+							Object count = entitiesValue.nextValue();
+							if (count instanceof Number) {
+								result = ((Number) count).longValue();
 							}
 						} else {
-							divrollEntity.setProperty(propertyKey, entityJSONObject.get(propertyKey));
+							entitiesValue.nextValue();
 						}
-					}
+					});
+				} else {
+					value.nextValue();
+				}
+			});
+		} catch (JSONException e) {
+			throw new IOException(e);
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the next entity from the stream, skipping the values of fields
+	 * outside the projection without parsing them.
+	 */
+	private DivrollEntity readEntity(JSONTokener tokener) throws JSONException {
+		if (fields == null || JSONStream.peek(tokener) != '{') {
+			return toEntity((JSONObject) tokener.nextValue());
+		}
+		JSONObject entityJSONObject = new JSONObject();
+		JSONStream.readObject(tokener, (key, value) -> {
+			if (DivrollEntityDecoder.isSelected(key, fields)) {
+				entityJSONObject.put(key, value.nextValue());
+			} else {
+				JSONStream.skipValue(value);
+			}
+		});
+		return toEntity(entityJSONObject);
+	}
 
-					try {
-						String dateCreated = entityJSONObject.getString("dateCreated");
-						divrollEntity.setDateCreated(dateCreated);
-					} catch (Exception e) {
+	private DivrollEntity toEntity(JSONObject entityJSONObject) {
+		return DivrollEntityDecoder.decode(entityJSONObject, new DivrollEntity(getClient(), this.entityStore),
+				fields);
+	}
 
-					}
+	public List<DivrollBatch.Result> createAll(List<DivrollEntity> entities) {
+		return createAll(entities, DivrollBatch.DEFAULT_CHUNK_SIZE);
+	}
 
-					try {
-						String dateUpdated = entityJSONObject.getString("dateUpdated");
-						divrollEntity.setDateUpdated(dateUpdated);
-					} catch (Exception e) {
+	public List<DivrollBatch.Result> createAll(List<DivrollEntity> entities, int chunkSize) {
+		DivrollBatch divrollBatch = new DivrollBatch(chunkSize);
+		for (DivrollEntity entity : entities) {
+			divrollBatch.create(entity);
+		}
+		return divrollBatch.execute();
+	}
 
-					}
+	public Iterator<DivrollEntity> iterator(QueryFilter filter) {
+		return iterator(filter, DEFAULT_PREFETCH_PAGES);
+	}
 
-					JSONArray links = null;
-					try {
-						links = entityJSONObject.getJSONArray("links");
-					} catch (Exception e) {
+	/**
+	 * Pages lazily through every entity matching the filter, starting at the
+	 * configured skip and using the configured limit, or
+	 * {@link #DEFAULT_PAGE_SIZE}, as page size. While a page is consumed up to
+	 * {@code prefetchPages} following pages are fetched in the background.
+	 */
+	public Iterator<DivrollEntity> iterator(QueryFilter filter, int prefetchPages) {
+		return new PageIterator(filter, prefetchPages);
+	}
 
-					}
-					if (links != null) {
-						for (int j = 0; j < links.length(); j++) {
-							JSONObject linksObj = links.getJSONObject(j);
-							DivrollLink divrollLink = processLink(linksObj);
-							divrollEntity.getLinks().add(divrollLink);
-						}
-					} else {
-						JSONObject linksObj = null;
-						try {
-							linksObj = entityJSONObject.getJSONObject("links");
-						} catch (Exception e) {
+	public Stream<DivrollEntity> stream(QueryFilter filter) {
+		return stream(filter, DEFAULT_PREFETCH_PAGES);
+	}
 
-						}
-						DivrollLink divrollLink = processLink(linksObj);
-						divrollEntity.getLinks().add(divrollLink);
-					}
+	public Stream<DivrollEntity> stream(QueryFilter filter, int prefetchPages) {
+		PageIterator iterator = new PageIterator(filter, prefetchPages);
+		return StreamSupport
+				.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(iterator::close);
+	}
 
-					getEntities().add(divrollEntity);
-				}
+	/**
+	 * Publishes every entity matching the filter, paging like
+	 * {@link #iterator(QueryFilter)}. A page is only fetched once the
+	 * subscriber has demand the buffered entities cannot meet, and cancelling
+	 * the subscription aborts the page in flight. Each subscriber pages
+	 * through the results independently.
+	 */
+	public Publisher<DivrollEntity> publisher(QueryFilter filter) {
+		return subscriber -> {
+			if (subscriber == null) {
+				throw new NullPointerException("subscriber");
 			}
-		} catch (UnirestException e) {
-			e.printStackTrace();
+			new PageSubscription(filter, subscriber).start();
+		};
+	}
+
+	/**
+	 * Scans every entity matching the filter as a parallel stream, see
+	 * {@link #spliterator(QueryFilter, int)}.
+	 */
+	public Stream<DivrollEntity> parallelScan(QueryFilter filter, int parallelism) {
+		return StreamSupport.stream(spliterator(filter, parallelism), true);
+	}
+
+	/**
+	 * Counts the entities matching the filter, from the configured skip on,
+	 * and returns a spliterator over them that splits into up to
+	 * {@code parallelism} page-aligned partitions. Each partition pages
+	 * through its own skip range like {@link #iterator(QueryFilter)}, so
+	 * partitions traversed on different threads are fetched concurrently.
+	 * Entities created or deleted during the scan may be missed or seen twice.
+	 */
+	public Spliterator<DivrollEntity> spliterator(QueryFilter filter, int parallelism) {
+		int from = skip != null ? skip : 0;
+		DivrollEntities counter = page(from, 1);
+		counter.setCount(true);
+		Long total = await(counter.queryAsync(filter)).getResult();
+		if (total == null) {
+			throw new DivrollException("Entity store " + entityStore + " did not return a count");
+		}
+		int to = (int) Math.min(Integer.MAX_VALUE, Math.max(from, total));
+		return new ScanSpliterator(filter, from, to, Math.max(1, parallelism));
+	}
+
+	private static DivrollEntities await(CompletableFuture<DivrollEntities> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new DivrollException(e.getMessage());
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new DivrollException(e.getCause().getMessage());
 		}
 	}
 
+	private DivrollEntities page(int pageSkip, int pageSize) {
+		DivrollEntities page = new DivrollEntities(getClient(), entityStore);
+		page.setSkip(pageSkip);
+		page.setLimit(pageSize);
+		page.setSort(sort);
+		page.setInclude(include);
+		page.fields = fields;
+		page.setAuthToken(authToken);
+		return page;
+	}
+
 	public void query() {
 		query(null);
 	}
 
+	public CompletableFuture<DivrollEntities> queryAsync() {
+		return queryAsync(null);
+	}
+
 	public void setCount(Boolean count) {
 		this.count = count;
 	}
@@ -279,8 +441,274 @@ public class DivrollEntities extends LinkableDivrollBase {
 		this.include = include;
 	}
 
+	/**
+	 * Restricts the returned entities to their id and the given properties.
+	 * The projection is sent to the server and also applied while decoding,
+	 * so other properties are never materialized. Null, the default, returns
+	 * every property along with ACLs and links.
+	 */
+	public void setFields(List<String> fields) {
+		this.fields = fields != null ? new LinkedHashSet<String>(fields) : null;
+	}
+
 	public void setAuthToken(String authToken) {
 		this.authToken = authToken;
 	}
 
+	private class PageIterator implements Iterator<DivrollEntity> {
+
+		private final QueryFilter filter;
+		private final int pageSize;
+		private final int prefetchPages;
+		private final Deque<CompletableFuture<DivrollEntities>> pages = new ArrayDeque<>();
+		private Iterator<DivrollEntity> current = Collections.emptyIterator();
+		private final int end;
+		private int nextSkip;
+		private boolean exhausted;
+
+		PageIterator(QueryFilter filter, int prefetchPages) {
+			this(filter, prefetchPages, skip != null ? skip : 0, Integer.MAX_VALUE);
+		}
+
+		PageIterator(QueryFilter filter, int prefetchPages, int from, int to) {
+			this.filter = filter;
+			this.pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+			this.prefetchPages = Math.max(0, prefetchPages);
+			this.nextSkip = from;
+			this.end = to;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (!current.hasNext()) {
+				request(1);
+				if (pages.isEmpty()) {
+					return false;
+				}
+				List<DivrollEntity> entities = await(pages.poll()).getEntities();
+				if (entities.size() < pageSize) {
+					close();
+				} else {
+					request(prefetchPages);
+				}
+				current = entities.iterator();
+			}
+			return true;
+		}
+
+		@Override
+		public DivrollEntity next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return current.next();
+		}
+
+		private void request(int count) {
+			while (!exhausted && pages.size() < count && nextSkip < end) {
+				int size = Math.min(pageSize, end - nextSkip);
+				pages.add(page(nextSkip, size).queryAsync(filter));
+				nextSkip += size;
+			}
+		}
+
+		private DivrollEntities await(CompletableFuture<DivrollEntities> future) {
+			try {
+				return DivrollEntities.await(future);
+			} catch (RuntimeException e) {
+				close();
+				throw e;
+			}
+		}
+
+		void close() {
+			exhausted = true;
+			for (CompletableFuture<DivrollEntities> pending : pages) {
+				pending.cancel(true);
+			}
+			pages.clear();
+		}
+	}
+
+	private class PageSubscription implements Subscription {
+
+		private final QueryFilter filter;
+		private final Subscriber<? super DivrollEntity> subscriber;
+		private final int pageSize;
+		private final AtomicLong requested = new AtomicLong();
+		private final AtomicInteger wip = new AtomicInteger();
+		private final Deque<DivrollEntity> buffer = new ArrayDeque<>();
+		private volatile boolean cancelled;
+		private volatile CompletableFuture<?> inFlight;
+		private volatile List<DivrollEntity> arrived;
+		private volatile Throwable error;
+		private int nextSkip;
+		private boolean fetching;
+		private boolean lastPage;
+		private boolean done;
+
+		PageSubscription(QueryFilter filter, Subscriber<? super DivrollEntity> subscriber) {
+			this.filter = filter;
+			this.subscriber = subscriber;
+			this.pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+			this.nextSkip = skip != null ? skip : 0;
+		}
+
+		void start() {
+			// signals are serialized by the drain loop, held here until
+			// onSubscribe returns
+			wip.incrementAndGet();
+			subscriber.onSubscribe(this);
+			if (wip.decrementAndGet() != 0) {
+				wip.set(0);
+				drain();
+			}
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				error = new IllegalArgumentException("Demand must be positive, got " + n);
+				abort();
+			} else {
+				requested.accumulateAndGet(n, (current, added) -> {
+					long total = current + added;
+					return total < 0 ? Long.MAX_VALUE : total;
+				});
+			}
+			drain();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			abort();
+			drain();
+		}
+
+		private void abort() {
+			CompletableFuture<?> pending = inFlight;
+			if (pending != null) {
+				pending.cancel(true);
+			}
+		}
+
+		private void drain() {
+			if (wip.getAndIncrement() != 0) {
+				return;
+			}
+			int missed = 1;
+			do {
+				if (cancelled || done) {
+					buffer.clear();
+				} else if (error != null) {
+					done = true;
+					buffer.clear();
+					subscriber.onError(error);
+				} else {
+					emit();
+				}
+				missed = wip.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		private void emit() {
+			List<DivrollEntity> page = arrived;
+			if (page != null) {
+				arrived = null;
+				inFlight = null;
+				fetching = false;
+				lastPage = page.size() < pageSize;
+				buffer.addAll(page);
+			}
+			while (!buffer.isEmpty() && requested.get() > 0 && !cancelled) {
+				if (requested.get() != Long.MAX_VALUE) {
+					requested.decrementAndGet();
+				}
+				subscriber.onNext(buffer.poll());
+			}
+			if (cancelled) {
+				return;
+			}
+			if (buffer.isEmpty() && lastPage) {
+				done = true;
+				subscriber.onComplete();
+			} else if (buffer.isEmpty() && requested.get() > 0 && !fetching) {
+				fetch();
+			}
+		}
+
+		private void fetch() {
+			fetching = true;
+			DivrollEntities page = page(nextSkip, pageSize);
+			nextSkip += pageSize;
+			CompletableFuture<HttpResponse<JsonNode>> response = getClient().asJsonAsync(page.queryRequest(filter));
+			inFlight = response;
+			response.thenApply(json -> {
+				page.processQueryResponse(json);
+				return page.getEntities();
+			}).whenComplete((entities, throwable) -> {
+				if (throwable != null) {
+					error = throwable instanceof CompletionException && throwable.getCause() != null
+							? throwable.getCause() : throwable;
+				} else {
+					arrived = entities;
+				}
+				drain();
+			});
+		}
+	}
+
+	private class ScanSpliterator implements Spliterator<DivrollEntity> {
+
+		private final QueryFilter filter;
+		private final int pageSize;
+		private int from;
+		private final int to;
+		private int partitions;
+		private PageIterator iterator;
+
+		ScanSpliterator(QueryFilter filter, int from, int to, int partitions) {
+			this.filter = filter;
+			this.pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+			this.from = from;
+			this.to = to;
+			this.partitions = partitions;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super DivrollEntity> action) {
+			if (iterator == null) {
+				iterator = new PageIterator(filter, DEFAULT_PREFETCH_PAGES, from, to);
+			}
+			if (!iterator.hasNext()) {
+				return false;
+			}
+			action.accept(iterator.next());
+			return true;
+		}
+
+		@Override
+		public Spliterator<DivrollEntity> trySplit() {
+			int pages = to > from ? (to - from - 1) / pageSize + 1 : 0;
+			if (iterator != null || partitions < 2 || pages < 2) {
+				return null;
+			}
+			int mid = from + pages / 2 * pageSize;
+			ScanSpliterator prefix = new ScanSpliterator(filter, from, mid, partitions / 2);
+			from = mid;
+			partitions -= partitions / 2;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return to - from;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED | Spliterator.NONNULL;
+		}
+	}
 }
@@ -21,10 +21,24 @@
  */
 package com.divroll.backend.sdk;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
-
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.nio.entity.NFileEntity;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -32,12 +46,14 @@ import com.divroll.backend.sdk.exception.BadRequestException;
 import com.divroll.backend.sdk.exception.DivrollException;
 import com.divroll.backend.sdk.exception.NotFoundRequestException;
 import com.divroll.backend.sdk.exception.UnauthorizedException;
+import com.divroll.backend.sdk.helper.DivrollEntityDecoder;
 import com.divroll.backend.sdk.helper.JSON;
 import com.google.common.io.ByteStreams;
+import com.mashape.unirest.http.HttpMethod;
 import com.mashape.unirest.http.HttpResponse;
 import com.mashape.unirest.http.JsonNode;
-import com.mashape.unirest.http.Unirest;
 import com.mashape.unirest.http.exceptions.UnirestException;
+import com.mashape.unirest.request.BaseRequest;
 import com.mashape.unirest.request.GetRequest;
 import com.mashape.unirest.request.HttpRequestWithBody;
 
@@ -56,6 +72,7 @@ public class DivrollEntity extends DivrollBase {
 	private List<DivrollLink> links;
 	private String linkName;
 	private String linkFrom;
+	private Set<String> fields;
 
 	private List<String> uniqueProperties = new LinkedList<>();
 
@@ -67,26 +84,40 @@ public class DivrollEntity extends DivrollBase {
 		entityStoreBase = entityStoreBase + entityStore;
 	}
 
+	public DivrollEntity(DivrollClient client, String entityStore) {
+		this(entityStore);
+		setClient(client);
+	}
+
 	public byte[] getBlobProperty(String blobKey) {
+		if (getClient().getBlobCache() != null) {
+			ByteBuffer buffer = getBlobBuffer(blobKey);
+			if (buffer == null) {
+				return null;
+			}
+			byte[] bytes = new byte[buffer.remaining()];
+			buffer.get(bytes);
+			return bytes;
+		}
 		try {
-			GetRequest getRequest = Unirest.get(
-					Divroll.getServerUrl() + entityStoreBase + "/" + getEntityId() + "/blobs/" + blobKey);
-			if (Divroll.getMasterKey() != null) {
-				getRequest.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
+			GetRequest getRequest = getClient().get(
+					getClient().getServerUrl() + entityStoreBase + "/" + getEntityId() + "/blobs/" + blobKey);
+			if (getClient().getMasterKey() != null) {
+				getRequest.header(HEADER_MASTER_KEY, getClient().getMasterKey());
 			}
-			if (Divroll.getAppId() != null) {
-				getRequest.header(HEADER_APP_ID, Divroll.getAppId());
+			if (getClient().getAppId() != null) {
+				getRequest.header(HEADER_APP_ID, getClient().getAppId());
 			}
-			if (Divroll.getApiKey() != null) {
-				getRequest.header(HEADER_API_KEY, Divroll.getApiKey());
+			if (getClient().getApiKey() != null) {
+				getRequest.header(HEADER_API_KEY, getClient().getApiKey());
 			}
-			if (Divroll.getAuthToken() != null) {
-				getRequest.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
+			if (getClient().getAuthToken() != null) {
+				getRequest.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
 			}
-			if (Divroll.getNameSpace() != null) {
-				getRequest.header(HEADER_NAMESPACE, Divroll.getNameSpace());
+			if (getClient().getNameSpace() != null) {
+				getRequest.header(HEADER_NAMESPACE, getClient().getNameSpace());
 			}
-			HttpResponse<InputStream> response = getRequest.asBinary();
+			HttpResponse<InputStream> response = getClient().asBinary(getRequest);
 
 			if (response.getStatus() >= 500) {
 				throw new DivrollException("Internal Server error"); // TODO
@@ -111,86 +142,296 @@ public class DivrollEntity extends DivrollBase {
 		return null;
 	}
 
-	public void setBlobProperty(String blobKey, byte[] value) {
-		if (entityId == null) {
-			throw new DivrollException("Save the entity first before setting a Blob property");
+	/**
+	 * Returns the blob as a read-only buffer. With a blob cache configured, a
+	 * cached copy is revalidated by its ETag and, if still current, served as a
+	 * memory mapping of the cache file without downloading it again.
+	 */
+	public ByteBuffer getBlobBuffer(String blobKey) {
+		final DivrollBlobCache blobCache = getClient().getBlobCache();
+		if (blobCache == null) {
+			byte[] bytes = getBlobProperty(blobKey);
+			return bytes != null ? ByteBuffer.wrap(bytes).asReadOnlyBuffer() : null;
 		}
 		try {
-			HttpRequestWithBody httpRequestWithBody = Unirest.post(
-					Divroll.getServerUrl() + entityStoreBase + "/" + getEntityId() + "/blobs/" + blobKey);
-			if (Divroll.getMasterKey() != null) {
-				httpRequestWithBody.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
-			}
-			if (Divroll.getAppId() != null) {
-				httpRequestWithBody.header(HEADER_APP_ID, Divroll.getAppId());
-			}
-			if (Divroll.getApiKey() != null) {
-				httpRequestWithBody.header(HEADER_API_KEY, Divroll.getApiKey());
-			}
-			if (Divroll.getAuthToken() != null) {
-				httpRequestWithBody.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
-			}
-			if (Divroll.getNameSpace() != null) {
-				httpRequestWithBody.header(HEADER_NAMESPACE, Divroll.getNameSpace());
-			}
-			JSONArray aclRead = new JSONArray();
-			JSONArray aclWrite = new JSONArray();
-			if (acl != null) {
-				for (String uuid : this.acl.getAclRead()) {
-					JSONObject entityStub = new JSONObject();
-					entityStub.put("entityId", uuid);
-					aclRead.put(entityStub);
+			final DivrollBlobCache.Entry cached = blobCache.get(getClient(), entityType, entityId, blobKey);
+			BaseRequest request = blobRequest(blobKey);
+			if (cached != null) {
+				request.getHttpRequest().header("If-None-Match", cached.getEtag());
+			}
+			return getClient().execute(request, response -> {
+				int status = response.getStatusLine().getStatusCode();
+				HttpEntity entity = response.getEntity();
+				if (status == 304 && cached != null) {
+					return cached.getBuffer();
+				} else if (status == 200 && entity != null) {
+					Header etag = response.getFirstHeader("ETag");
+					try (InputStream is = entity.getContent()) {
+						if (etag == null) {
+							blobCache.invalidate(getClient(), entityType, entityId, blobKey);
+							return ByteBuffer.wrap(ByteStreams.toByteArray(is)).asReadOnlyBuffer();
+						}
+						return blobCache.put(getClient(), entityType, entityId, blobKey, etag.getValue(), is)
+								.getBuffer();
+					}
 				}
-				for (String uuid : this.acl.getAclWrite()) {
-					JSONObject entityStub = new JSONObject();
-					entityStub.put("entityId", uuid);
-					aclWrite.put(entityStub);
+				if (status == 404) {
+					blobCache.invalidate(getClient(), entityType, entityId, blobKey);
 				}
+				checkBlobResponse(status, response.getStatusLine().getReasonPhrase());
+				return null;
+			});
+		} catch (UnirestException e) {
+			e.printStackTrace();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	public InputStream openBlobStream(String blobKey) {
+		try {
+			final CloseableHttpResponse response = getClient().open(blobRequest(blobKey));
+			int status = response.getStatusLine().getStatusCode();
+			if (status == 200 && response.getEntity() != null) {
+				return new FilterInputStream(response.getEntity().getContent()) {
+					@Override
+					public void close() throws IOException {
+						// closing the response instead of the content stream does not drain
+						// the rest of an abandoned blob
+						response.close();
+					}
+				};
 			}
+			response.close();
+			checkBlobResponse(status, response.getStatusLine().getReasonPhrase());
+		} catch (UnirestException e) {
+			e.printStackTrace();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
 
-			httpRequestWithBody.header("X-Divroll-ACL-Read", aclRead.toString());
-			httpRequestWithBody.header("X-Divroll-ACL-Write", aclWrite.toString());
-			httpRequestWithBody.header("Content-Type", "application/octet-stream");
+	public long downloadBlobTo(String blobKey, Path target) {
+		try {
+			return getClient().execute(blobRequest(blobKey), response -> {
+				int status = response.getStatusLine().getStatusCode();
+				HttpEntity entity = response.getEntity();
+				if (status != 200 || entity == null) {
+					checkBlobResponse(status, response.getStatusLine().getReasonPhrase());
+					return -1L;
+				}
+				try (InputStream is = entity.getContent()) {
+					return Files.copy(is, target, StandardCopyOption.REPLACE_EXISTING);
+				} catch (IOException e) {
+					Files.deleteIfExists(target);
+					throw e;
+				}
+			});
+		} catch (UnirestException e) {
+			e.printStackTrace();
+		}
+		return -1;
+	}
 
-			HttpResponse<InputStream> response = httpRequestWithBody.body(value).asBinary();
-			if (response.getStatus() >= 500) {
-				throw new DivrollException("Internal Server error"); // TODO
-			} else if (response.getStatus() == 404) {
-				throw new NotFoundRequestException(response.getStatusText());
-			} else if (response.getStatus() == 401) {
-				throw new UnauthorizedException(response.getStatusText());
-			} else if (response.getStatus() == 400) {
-				throw new BadRequestException(response.getStatusText());
-			} else if (response.getStatus() >= 400) {
-				throw new DivrollException("Client error"); // TODO
-			} else if (response.getStatus() == 201) {
-				InputStream responseBody = response.getBody();
+	public long downloadBlobTo(String blobKey, Path target, int parallelism) {
+		return downloadBlobTo(blobKey, target, parallelism, RangedBlobDownload.DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Downloads the blob in chunks of {@code chunkSize} bytes with up to
+	 * {@code parallelism} concurrent Range requests. Progress is journaled next
+	 * to the target, so calling this again after a failure only fetches the
+	 * missing chunks.
+	 */
+	public long downloadBlobTo(String blobKey, Path target, int parallelism, long chunkSize) {
+		try {
+			return new RangedBlobDownload(this, blobKey, target, parallelism, chunkSize).run();
+		} catch (UnirestException e) {
+			e.printStackTrace();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return -1;
+	}
+
+	BaseRequest blobRequest(String blobKey) {
+		GetRequest getRequest = getClient()
+				.get(getClient().getServerUrl() + entityStoreBase + "/" + getEntityId() + "/blobs/" + blobKey);
+		if (getClient().getMasterKey() != null) {
+			getRequest.header(HEADER_MASTER_KEY, getClient().getMasterKey());
+		}
+		if (getClient().getAppId() != null) {
+			getRequest.header(HEADER_APP_ID, getClient().getAppId());
+		}
+		if (getClient().getApiKey() != null) {
+			getRequest.header(HEADER_API_KEY, getClient().getApiKey());
+		}
+		if (getClient().getAuthToken() != null) {
+			getRequest.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
+		}
+		if (getClient().getNameSpace() != null) {
+			getRequest.header(HEADER_NAMESPACE, getClient().getNameSpace());
+		}
+		return getRequest;
+	}
+
+	public void setBlobProperty(String blobKey, byte[] value) {
+		uploadBlob(blobKey, new ByteArrayEntity(value));
+	}
+
+	/**
+	 * Streams {@code length} bytes of the input as the blob, using chunked
+	 * transfer encoding. A negative length reads the input to its end. The
+	 * input is not closed.
+	 */
+	public void setBlobProperty(String blobKey, InputStream value, long length) {
+		InputStreamEntity entity = new InputStreamEntity(value, length);
+		entity.setChunked(true);
+		uploadBlob(blobKey, entity);
+	}
+
+	/**
+	 * Uploads the file with a Content-Length body over the client's
+	 * non-blocking connection, which hands the file to the socket with
+	 * {@code FileChannel.transferTo} instead of copying it through the heap.
+	 * Over TLS the bytes still pass through the encrypting buffers.
+	 */
+	public void setBlobProperty(String blobKey, Path path) {
+		if (!path.getFileSystem().equals(FileSystems.getDefault())) {
+			try (InputStream is = Files.newInputStream(path)) {
+				setBlobProperty(blobKey, is, Files.size(path));
+			} catch (IOException e) {
+				throw new DivrollException(e.getMessage());
 			}
+			return;
+		}
+		NFileEntity entity = new NFileEntity(path.toFile(), ContentType.APPLICATION_OCTET_STREAM);
+		try {
+			HttpResponse<InputStream> response;
+			try {
+				response = DivrollClient.await(getClient().asBinaryAsync(blobUploadRequest(blobKey).entity(entity)));
+			} finally {
+				// a failed upload may still have replaced part of the blob
+				invalidateCache();
+				invalidateBlobCache(blobKey);
+			}
+			checkBlobResponse(response.getStatus(), response.getStatusText());
+		} catch (UnirestException e) {
+			throw new DivrollException(e.getMessage());
+		} finally {
+			try {
+				entity.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private void uploadBlob(String blobKey, HttpEntity entity) {
+		try {
+			HttpResponse<InputStream> response = getClient().asBinary(blobUploadRequest(blobKey).entity(entity));
+			invalidateCache();
+			invalidateBlobCache(blobKey);
+			checkBlobResponse(response.getStatus(), response.getStatusText());
 		} catch (UnirestException e) {
 			e.printStackTrace();
 		}
 	}
 
+	/**
+	 * Prepares an upload of the file as the blob, which can be sent as
+	 * Content-Range parts that are retried individually on servers that
+	 * support ranged writes. Call {@link DivrollBlobUpload#upload()} to start
+	 * it.
+	 */
+	public DivrollBlobUpload newBlobUpload(String blobKey, Path source) throws IOException {
+		return new DivrollBlobUpload(this, blobKey, source);
+	}
+
+	public DivrollBlobUpload newBlobUpload(String blobKey, byte[] value) {
+		return new DivrollBlobUpload(this, blobKey, value);
+	}
+
+	HttpRequestWithEntity blobUploadRequest(String blobKey) {
+		if (entityId == null) {
+			throw new DivrollException("Save the entity first before setting a Blob property");
+		}
+		HttpRequestWithEntity httpRequestWithBody = new HttpRequestWithEntity(HttpMethod.POST,
+				getClient().getServerUrl() + entityStoreBase + "/" + getEntityId() + "/blobs/" + blobKey);
+		if (getClient().getMasterKey() != null) {
+			httpRequestWithBody.header(HEADER_MASTER_KEY, getClient().getMasterKey());
+		}
+		if (getClient().getAppId() != null) {
+			httpRequestWithBody.header(HEADER_APP_ID, getClient().getAppId());
+		}
+		if (getClient().getApiKey() != null) {
+			httpRequestWithBody.header(HEADER_API_KEY, getClient().getApiKey());
+		}
+		if (getClient().getAuthToken() != null) {
+			httpRequestWithBody.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
+		}
+		if (getClient().getNameSpace() != null) {
+			httpRequestWithBody.header(HEADER_NAMESPACE, getClient().getNameSpace());
+		}
+		JSONArray aclRead = new JSONArray();
+		JSONArray aclWrite = new JSONArray();
+		if (acl != null) {
+			for (String uuid : this.acl.getAclRead()) {
+				JSONObject entityStub = new JSONObject();
+				entityStub.put("entityId", uuid);
+				aclRead.put(entityStub);
+			}
+			for (String uuid : this.acl.getAclWrite()) {
+				JSONObject entityStub = new JSONObject();
+				entityStub.put("entityId", uuid);
+				aclWrite.put(entityStub);
+			}
+		}
+
+		httpRequestWithBody.header("X-Divroll-ACL-Read", aclRead.toString());
+		httpRequestWithBody.header("X-Divroll-ACL-Write", aclWrite.toString());
+		httpRequestWithBody.header("Content-Type", "application/octet-stream");
+		return httpRequestWithBody;
+	}
+
+	static void checkBlobResponse(int status, String statusText) {
+		if (status >= 500) {
+			throw new DivrollException("Internal Server error"); // TODO
+		} else if (status == 404) {
+			throw new NotFoundRequestException(statusText);
+		} else if (status == 401) {
+			throw new UnauthorizedException(statusText);
+		} else if (status == 400) {
+			throw new BadRequestException(statusText);
+		} else if (status >= 400) {
+			throw new DivrollException("Client error"); // TODO
+		}
+	}
+
 	public void deleteBlobProperty(String blobKey) {
 		try {
-			HttpRequestWithBody getRequest = Unirest.delete(
-					Divroll.getServerUrl() + entityStoreBase + "/" + getEntityId() + "/blobs/" + blobKey);
-			if (Divroll.getMasterKey() != null) {
-				getRequest.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
+			HttpRequestWithBody getRequest = getClient().delete(
+					getClient().getServerUrl() + entityStoreBase + "/" + getEntityId() + "/blobs/" + blobKey);
+			if (getClient().getMasterKey() != null) {
+				getRequest.header(HEADER_MASTER_KEY, getClient().getMasterKey());
 			}
-			if (Divroll.getAppId() != null) {
-				getRequest.header(HEADER_APP_ID, Divroll.getAppId());
+			if (getClient().getAppId() != null) {
+				getRequest.header(HEADER_APP_ID, getClient().getAppId());
 			}
-			if (Divroll.getApiKey() != null) {
-				getRequest.header(HEADER_API_KEY, Divroll.getApiKey());
+			if (getClient().getApiKey() != null) {
+				getRequest.header(HEADER_API_KEY, getClient().getApiKey());
 			}
-			if (Divroll.getAuthToken() != null) {
-				getRequest.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
+			if (getClient().getAuthToken() != null) {
+				getRequest.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
 			}
-			if (Divroll.getNameSpace() != null) {
-				getRequest.header(HEADER_NAMESPACE, Divroll.getNameSpace());
+			if (getClient().getNameSpace() != null) {
+				getRequest.header(HEADER_NAMESPACE, getClient().getNameSpace());
 			}
-			HttpResponse<InputStream> response = getRequest.asBinary();
+			HttpResponse<InputStream> response = getClient().asBinary(getRequest);
+			invalidateCache();
+			invalidateBlobCache(blobKey);
 
 			if (response.getStatus() >= 500) {
 				throw new DivrollException("Internal Server error"); // TODO
@@ -248,26 +489,27 @@ public class DivrollEntity extends DivrollBase {
 			throw new DivrollException("Save the entity first before getting links");
 		}
 		try {
-			String completeUrl = Divroll.getServerUrl() + entityStoreBase + "/" + getEntityId() + "/links/" + linkName;
+			String completeUrl = getClient().getServerUrl() + entityStoreBase + "/" + getEntityId() + "/links/"
+					+ linkName;
 
-			GetRequest getRequest = Unirest.get(completeUrl);
+			GetRequest getRequest = getClient().get(completeUrl);
 
-			if (Divroll.getMasterKey() != null) {
-				getRequest.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
+			if (getClient().getMasterKey() != null) {
+				getRequest.header(HEADER_MASTER_KEY, getClient().getMasterKey());
 			}
-			if (Divroll.getAppId() != null) {
-				getRequest.header(HEADER_APP_ID, Divroll.getAppId());
+			if (getClient().getAppId() != null) {
+				getRequest.header(HEADER_APP_ID, getClient().getAppId());
 			}
-			if (Divroll.getApiKey() != null) {
-				getRequest.header(HEADER_API_KEY, Divroll.getApiKey());
+			if (getClient().getApiKey() != null) {
+				getRequest.header(HEADER_API_KEY, getClient().getApiKey());
 			}
-			if (Divroll.getAuthToken() != null) {
-				getRequest.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
+			if (getClient().getAuthToken() != null) {
+				getRequest.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
 			}
-			if (Divroll.getNameSpace() != null) {
-				getRequest.header(HEADER_NAMESPACE, Divroll.getNameSpace());
+			if (getClient().getNameSpace() != null) {
+				getRequest.header(HEADER_NAMESPACE, getClient().getNameSpace());
 			}
-			HttpResponse<JsonNode> response = getRequest.asJson();
+			HttpResponse<JsonNode> response = getClient().asJson(getRequest);
 
 			if (response.getStatus() >= 500) {
 				throwException(response);
@@ -281,78 +523,14 @@ public class DivrollEntity extends DivrollBase {
 
 				JsonNode body = response.getBody();
 				JSONObject bodyObj = body.getObject();
-				JSONObject entitiesJSONObject = null;
-				JSONArray results = null;
-
-				try {
-					entitiesJSONObject = bodyObj.getJSONObject("entities");
-				} catch (Exception e) {
-
-				}
-
-				try {
-					results = entitiesJSONObject.getJSONArray("results");
-				} catch (Exception e) {
-				}
-
+				JSONObject entitiesJSONObject = bodyObj.optJSONObject("entities");
+				JSONArray results = entitiesJSONObject != null ? entitiesJSONObject.optJSONArray("results") : null;
 				if (results != null) {
 					for (int i = 0; i < results.length(); i++) {
 						DivrollEntity divrollEntity = new DivrollEntity();
-						JSONObject entityJSONObject = results.getJSONObject(i);
-						Iterator<String> it = entityJSONObject.keySet().iterator();
-						while (it.hasNext()) {
-							String propertyKey = it.next();
-							if (propertyKey.equals("entityId")) {
-								divrollEntity.setEntityId(entityJSONObject.getString(propertyKey));
-							} else if (propertyKey.equals("publicRead")) {
-								try {
-									Boolean value = entityJSONObject.getBoolean("publicRead");
-									divrollEntity.getAcl().setPublicRead(value);
-								} catch (Exception e) {
-
-								}
-							} else if (propertyKey.equals("publicWrite")) {
-								try {
-									Boolean value = entityJSONObject.getBoolean("publicWrite");
-									divrollEntity.getAcl().setPublicWrite(value);
-								} catch (Exception e) {
-
-								}
-							} else if (propertyKey.equals("aclRead")) {
-								try {
-									List<String> value = JSON.aclJSONArrayToList(
-											entityJSONObject.getJSONArray("aclRead"));
-									divrollEntity.getAcl().setAclRead(value);
-								} catch (Exception e) {
-
-								}
-								try {
-									List<String> value = Arrays.asList(entityJSONObject.getString("aclRead"));
-									divrollEntity.getAcl().setAclRead(value);
-								} catch (Exception e) {
-
-								}
-							} else if (propertyKey.equals("aclWrite")) {
-								try {
-									List<String> value = JSON.aclJSONArrayToList(
-											entityJSONObject.getJSONArray("aclWrite"));
-									divrollEntity.getAcl().setAclWrite(value);
-								} catch (Exception e) {
-
-								}
-								try {
-									List<String> value = Arrays.asList(entityJSONObject.getString("aclWrite"));
-									divrollEntity.getAcl().setAclWrite(value);
-								} catch (Exception e) {
-
-								}
-							} else {
-								divrollEntity.setProperty(propertyKey, entityJSONObject.get(propertyKey));
-							}
-						}
-						entities.add(divrollEntity);
+						divrollEntity.setClient(getClient());
+						entities.add(DivrollEntityDecoder.decode(results.getJSONObject(i), divrollEntity));
 					}
-
 				}
 			}
 		} catch (UnirestException e) {
@@ -367,26 +545,26 @@ public class DivrollEntity extends DivrollBase {
 			throw new DivrollException("Save the entity first before getting links");
 		}
 		try {
-			DivrollEntity divrollEntity = new DivrollEntity();
-			String completeUrl = Divroll.getServerUrl() + entityStoreBase + "/" + getEntityId() + "/links/" + linkName;
-			GetRequest getRequest = Unirest.get(completeUrl);
+			String completeUrl = getClient().getServerUrl() + entityStoreBase + "/" + getEntityId() + "/links/"
+					+ linkName;
+			GetRequest getRequest = getClient().get(completeUrl);
 
-			if (Divroll.getMasterKey() != null) {
-				getRequest.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
+			if (getClient().getMasterKey() != null) {
+				getRequest.header(HEADER_MASTER_KEY, getClient().getMasterKey());
 			}
-			if (Divroll.getAppId() != null) {
-				getRequest.header(HEADER_APP_ID, Divroll.getAppId());
+			if (getClient().getAppId() != null) {
+				getRequest.header(HEADER_APP_ID, getClient().getAppId());
 			}
-			if (Divroll.getApiKey() != null) {
-				getRequest.header(HEADER_API_KEY, Divroll.getApiKey());
+			if (getClient().getApiKey() != null) {
+				getRequest.header(HEADER_API_KEY, getClient().getApiKey());
 			}
-			if (Divroll.getAuthToken() != null) {
-				getRequest.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
+			if (getClient().getAuthToken() != null) {
+				getRequest.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
 			}
-			if (Divroll.getNameSpace() != null) {
-				getRequest.header(HEADER_NAMESPACE, Divroll.getNameSpace());
+			if (getClient().getNameSpace() != null) {
+				getRequest.header(HEADER_NAMESPACE, getClient().getNameSpace());
 			}
-			HttpResponse<JsonNode> response = getRequest.asJson();
+			HttpResponse<JsonNode> response = getClient().asJson(getRequest);
 
 			if (response.getStatus() >= 500) {
 				throwException(response);
@@ -401,71 +579,16 @@ public class DivrollEntity extends DivrollBase {
 			} else if (response.getStatus() == 200) {
 				JsonNode body = response.getBody();
 				JSONObject bodyObj = body.getObject();
-				JSONObject entityJsonObject = bodyObj.getJSONObject("entities");
-				JSONObject resultJsonObject = entityJsonObject.getJSONObject("results");
-				String entityId = entityJsonObject.getString("entityId");
-
-				Boolean publicRead = null;
-				Boolean publicWrite = null;
-
-				try {
-					publicWrite = entityJsonObject.getBoolean("publicWrite");
-				} catch (Exception e) {
-
-				}
-
-				try {
-					publicRead = entityJsonObject.getBoolean("publicRead");
-				} catch (Exception e) {
-
-				}
-
-				List<String> aclWriteList = null;
-				List<String> aclReadList = null;
-
-				try {
-					aclWriteList = JSON.aclJSONArrayToList(entityJsonObject.getJSONArray("aclWrite"));
-				} catch (Exception e) {
-
-				}
-
-				try {
-					aclReadList = JSON.aclJSONArrayToList(entityJsonObject.getJSONArray("aclRead"));
-				} catch (Exception e) {
-
-				}
-
-				try {
-					aclWriteList = Arrays.asList(entityJsonObject.getString("aclWrite"));
-				} catch (Exception e) {
-
-				}
-
-				try {
-					aclReadList = Arrays.asList(entityJsonObject.getString("aclRead"));
-				} catch (Exception e) {
-
-				}
-
-				Iterator<String> it = entityJsonObject.keySet().iterator();
-				while (it.hasNext()) {
-					String propertyKey = it.next();
-					if (propertyKey.equals("entityId")) {
-						setEntityId(entityJsonObject.getString(propertyKey));
-					} else if (propertyKey.equals("publicRead") || propertyKey.equals("publicWrite")
-							|| propertyKey.equals("aclRead") || propertyKey.equals("aclWrite")) {
-						// skip
-					} else {
-						Object obj = entityJsonObject.get(propertyKey);
-						divrollEntity.setProperty(propertyKey, obj);
+				JSONObject entitiesJSONObject = bodyObj.optJSONObject("entities");
+				Object results = entitiesJSONObject != null ? entitiesJSONObject.opt("results") : null;
+				if (results instanceof JSONArray) {
+					JSONArray resultsArray = (JSONArray) results;
+					for (int i = 0; i < resultsArray.length(); i++) {
+						entities.add(toLinkedEntity(resultsArray.getJSONObject(i)));
 					}
+				} else if (results instanceof JSONObject) {
+					entities.add(toLinkedEntity((JSONObject) results));
 				}
-
-				DivrollACL acl = new DivrollACL(aclReadList, aclWriteList);
-				acl.setPublicWrite(publicWrite);
-				acl.setPublicRead(publicRead);
-				divrollEntity.setEntityId(entityId);
-				divrollEntity.setAcl(acl);
 			}
 		} catch (UnirestException e) {
 			e.printStackTrace();
@@ -473,30 +596,36 @@ public class DivrollEntity extends DivrollBase {
 		return entities;
 	}
 
+	private DivrollEntity toLinkedEntity(JSONObject entityJSONObject) {
+		DivrollEntity divrollEntity = new DivrollEntity();
+		divrollEntity.setClient(getClient());
+		return DivrollEntityDecoder.decode(entityJSONObject, divrollEntity);
+	}
+
 	public void setLink(String linkName, String entityId) {
 		if (entityId == null) {
 			throw new DivrollException("Save the entity first before creating a link");
 		}
 		try {
-			HttpRequestWithBody httpRequestWithBody = Unirest.post(Divroll.getServerUrl() + entityStoreBase + "/"
-					+ getEntityId() + "/links/" + linkName + "/" + entityId);
+			HttpRequestWithBody httpRequestWithBody = getClient().post(getClient().getServerUrl() + entityStoreBase
+					+ "/" + getEntityId() + "/links/" + linkName + "/" + entityId);
 
 			httpRequestWithBody.queryString("linkType", "set");
 
-			if (Divroll.getMasterKey() != null) {
-				httpRequestWithBody.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
+			if (getClient().getMasterKey() != null) {
+				httpRequestWithBody.header(HEADER_MASTER_KEY, getClient().getMasterKey());
 			}
-			if (Divroll.getAppId() != null) {
-				httpRequestWithBody.header(HEADER_APP_ID, Divroll.getAppId());
+			if (getClient().getAppId() != null) {
+				httpRequestWithBody.header(HEADER_APP_ID, getClient().getAppId());
 			}
-			if (Divroll.getApiKey() != null) {
-				httpRequestWithBody.header(HEADER_API_KEY, Divroll.getApiKey());
+			if (getClient().getApiKey() != null) {
+				httpRequestWithBody.header(HEADER_API_KEY, getClient().getApiKey());
 			}
-			if (Divroll.getAuthToken() != null) {
-				httpRequestWithBody.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
+			if (getClient().getAuthToken() != null) {
+				httpRequestWithBody.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
 			}
-			if (Divroll.getNameSpace() != null) {
-				httpRequestWithBody.header(HEADER_NAMESPACE, Divroll.getNameSpace());
+			if (getClient().getNameSpace() != null) {
+				httpRequestWithBody.header(HEADER_NAMESPACE, getClient().getNameSpace());
 			}
 			JSONArray aclRead = new JSONArray();
 			JSONArray aclWrite = new JSONArray();
@@ -517,7 +646,8 @@ public class DivrollEntity extends DivrollBase {
 			httpRequestWithBody.header("X-Divroll-ACL-Write", aclWrite.toString());
 			httpRequestWithBody.header("Content-Type", "application/json");
 
-			HttpResponse<JsonNode> response = httpRequestWithBody.asJson();
+			HttpResponse<JsonNode> response = getClient().asJson(httpRequestWithBody);
+			invalidateCache();
 			if (response.getStatus() >= 500) {
 				throw new DivrollException(response.getStatusText()); // TODO
 			} else if (response.getStatus() == 404) {
@@ -540,22 +670,22 @@ public class DivrollEntity extends DivrollBase {
 			throw new DivrollException("Save the entity first before creating a link");
 		}
 		try {
-			HttpRequestWithBody httpRequestWithBody = Unirest.post(Divroll.getServerUrl() + entityStoreBase + "/"
-					+ getEntityId() + "/links/" + linkName + "/" + entityId);
-			if (Divroll.getMasterKey() != null) {
-				httpRequestWithBody.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
+			HttpRequestWithBody httpRequestWithBody = getClient().post(getClient().getServerUrl() + entityStoreBase
+					+ "/" + getEntityId() + "/links/" + linkName + "/" + entityId);
+			if (getClient().getMasterKey() != null) {
+				httpRequestWithBody.header(HEADER_MASTER_KEY, getClient().getMasterKey());
 			}
-			if (Divroll.getAppId() != null) {
-				httpRequestWithBody.header(HEADER_APP_ID, Divroll.getAppId());
+			if (getClient().getAppId() != null) {
+				httpRequestWithBody.header(HEADER_APP_ID, getClient().getAppId());
 			}
-			if (Divroll.getApiKey() != null) {
-				httpRequestWithBody.header(HEADER_API_KEY, Divroll.getApiKey());
+			if (getClient().getApiKey() != null) {
+				httpRequestWithBody.header(HEADER_API_KEY, getClient().getApiKey());
 			}
-			if (Divroll.getAuthToken() != null) {
-				httpRequestWithBody.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
+			if (getClient().getAuthToken() != null) {
+				httpRequestWithBody.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
 			}
-			if (Divroll.getNameSpace() != null) {
-				httpRequestWithBody.header(HEADER_NAMESPACE, Divroll.getNameSpace());
+			if (getClient().getNameSpace() != null) {
+				httpRequestWithBody.header(HEADER_NAMESPACE, getClient().getNameSpace());
 			}
 			JSONArray aclRead = new JSONArray();
 			JSONArray aclWrite = new JSONArray();
@@ -576,7 +706,8 @@ public class DivrollEntity extends DivrollBase {
 			httpRequestWithBody.header("X-Divroll-ACL-Write", aclWrite.toString());
 			httpRequestWithBody.header("Content-Type", "application/json");
 
-			HttpResponse<JsonNode> response = httpRequestWithBody.asJson();
+			HttpResponse<JsonNode> response = getClient().asJson(httpRequestWithBody);
+			invalidateCache();
 			if (response.getStatus() >= 500) {
 				throw new DivrollException(response.getStatusText()); // TODO
 			} else if (response.getStatus() == 404) {
@@ -599,22 +730,22 @@ public class DivrollEntity extends DivrollBase {
 			throw new DivrollException("Save the entity first before removing a link");
 		}
 		try {
-			HttpRequestWithBody httpRequestWithBody = Unirest.delete(Divroll.getServerUrl() + entityStoreBase + "/"
-					+ getEntityId() + "/links/" + linkName + "/" + entityId);
-			if (Divroll.getMasterKey() != null) {
-				httpRequestWithBody.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
+			HttpRequestWithBody httpRequestWithBody = getClient().delete(getClient().getServerUrl() + entityStoreBase
+					+ "/" + getEntityId() + "/links/" + linkName + "/" + entityId);
+			if (getClient().getMasterKey() != null) {
+				httpRequestWithBody.header(HEADER_MASTER_KEY, getClient().getMasterKey());
 			}
-			if (Divroll.getAppId() != null) {
-				httpRequestWithBody.header(HEADER_APP_ID, Divroll.getAppId());
+			if (getClient().getAppId() != null) {
+				httpRequestWithBody.header(HEADER_APP_ID, getClient().getAppId());
 			}
-			if (Divroll.getApiKey() != null) {
-				httpRequestWithBody.header(HEADER_API_KEY, Divroll.getApiKey());
+			if (getClient().getApiKey() != null) {
+				httpRequestWithBody.header(HEADER_API_KEY, getClient().getApiKey());
 			}
-			if (Divroll.getAuthToken() != null) {
-				httpRequestWithBody.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
+			if (getClient().getAuthToken() != null) {
+				httpRequestWithBody.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
 			}
-			if (Divroll.getNameSpace() != null) {
-				httpRequestWithBody.header(HEADER_NAMESPACE, Divroll.getNameSpace());
+			if (getClient().getNameSpace() != null) {
+				httpRequestWithBody.header(HEADER_NAMESPACE, getClient().getNameSpace());
 			}
 			JSONArray aclRead = new JSONArray();
 			JSONArray aclWrite = new JSONArray();
@@ -635,7 +766,8 @@ public class DivrollEntity extends DivrollBase {
 			httpRequestWithBody.header("X-Divroll-ACL-Write", aclWrite.toString());
 			httpRequestWithBody.header("Content-Type", "application/json");
 
-			HttpResponse<JsonNode> response = httpRequestWithBody.asJson();
+			HttpResponse<JsonNode> response = getClient().asJson(httpRequestWithBody);
+			invalidateCache();
 			if (response.getStatus() >= 500) {
 				throw new DivrollException(response.getStatusText()); // TODO
 			} else if (response.getStatus() == 404) {
@@ -658,22 +790,22 @@ public class DivrollEntity extends DivrollBase {
 			throw new DivrollException("Save the entity first before removing links");
 		}
 		try {
-			HttpRequestWithBody httpRequestWithBody = Unirest.delete(
-					Divroll.getServerUrl() + entityStoreBase + "/" + getEntityId() + "/links/" + linkName);
-			if (Divroll.getMasterKey() != null) {
-				httpRequestWithBody.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
+			HttpRequestWithBody httpRequestWithBody = getClient().delete(
+					getClient().getServerUrl() + entityStoreBase + "/" + getEntityId() + "/links/" + linkName);
+			if (getClient().getMasterKey() != null) {
+				httpRequestWithBody.header(HEADER_MASTER_KEY, getClient().getMasterKey());
 			}
-			if (Divroll.getAppId() != null) {
-				httpRequestWithBody.header(HEADER_APP_ID, Divroll.getAppId());
+			if (getClient().getAppId() != null) {
+				httpRequestWithBody.header(HEADER_APP_ID, getClient().getAppId());
 			}
-			if (Divroll.getApiKey() != null) {
-				httpRequestWithBody.header(HEADER_API_KEY, Divroll.getApiKey());
+			if (getClient().getApiKey() != null) {
+				httpRequestWithBody.header(HEADER_API_KEY, getClient().getApiKey());
 			}
-			if (Divroll.getAuthToken() != null) {
-				httpRequestWithBody.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
+			if (getClient().getAuthToken() != null) {
+				httpRequestWithBody.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
 			}
-			if (Divroll.getNameSpace() != null) {
-				httpRequestWithBody.header(HEADER_NAMESPACE, Divroll.getNameSpace());
+			if (getClient().getNameSpace() != null) {
+				httpRequestWithBody.header(HEADER_NAMESPACE, getClient().getNameSpace());
 			}
 			JSONArray aclRead = new JSONArray();
 			JSONArray aclWrite = new JSONArray();
@@ -694,7 +826,8 @@ public class DivrollEntity extends DivrollBase {
 			httpRequestWithBody.header("X-Divroll-ACL-Write", aclWrite.toString());
 			httpRequestWithBody.header("Content-Type", "application/json");
 
-			HttpResponse<JsonNode> response = httpRequestWithBody.asJson();
+			HttpResponse<JsonNode> response = getClient().asJson(httpRequestWithBody);
+			invalidateCache();
 			if (response.getStatus() >= 500) {
 				throw new DivrollException(response.getStatusText()); // TODO
 			} else if (response.getStatus() == 404) {
@@ -730,296 +863,335 @@ public class DivrollEntity extends DivrollBase {
 
 	public void create() {
 		try {
-			HttpRequestWithBody httpRequestWithBody = Unirest.post(Divroll.getServerUrl() + entityStoreBase);
-			if (Divroll.getMasterKey() != null) {
-				httpRequestWithBody.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
-			}
-			if (Divroll.getAppId() != null) {
-				httpRequestWithBody.header(HEADER_APP_ID, Divroll.getAppId());
-			}
-			if (Divroll.getApiKey() != null) {
-				httpRequestWithBody.header(HEADER_API_KEY, Divroll.getApiKey());
-			}
-			if (Divroll.getAuthToken() != null) {
-				httpRequestWithBody.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
-			}
-			if (Divroll.getNameSpace() != null) {
-				httpRequestWithBody.header(HEADER_NAMESPACE, Divroll.getNameSpace());
-			}
-			JSONArray aclRead = new JSONArray();
-			JSONArray aclWrite = new JSONArray();
-			if (acl != null) {
-				for (String uuid : this.acl.getAclRead()) {
-					JSONObject entityStub = new JSONObject();
-					entityStub.put("entityId", uuid);
-					aclRead.put(entityStub);
-				}
-				for (String uuid : this.acl.getAclWrite()) {
-					JSONObject entityStub = new JSONObject();
-					entityStub.put("entityId", uuid);
-					aclWrite.put(entityStub);
-				}
-			}
-
-			entityObj.put("aclRead", aclRead);
-			entityObj.put("aclWrite", aclWrite);
-			entityObj.put("publicRead",
-					(this.acl != null && this.acl.getPublicRead() != null) ? this.acl.getPublicRead()
-							: JSONObject.NULL);
-			entityObj.put("publicWrite",
-					(this.acl != null && this.acl.getPublicWrite() != null) ? this.acl.getPublicWrite()
-							: JSONObject.NULL);
-			JSONObject body = new JSONObject();
-			body.put("entity", entityObj);
-
-			httpRequestWithBody.header("X-Divroll-ACL-Read", aclRead.toString());
-			httpRequestWithBody.header("X-Divroll-ACL-Write", aclWrite.toString());
-			httpRequestWithBody.header("Content-Type", "application/json");
-
-			JSONArray uniquePropertiesArray = new JSONArray();
-			uniqueProperties.forEach(uniqueProperty -> {
-				uniquePropertiesArray.put(uniqueProperty);
-			});
-
-			if (uniquePropertiesArray.length() > 0) {
-				httpRequestWithBody.queryString("uniqueProperties", uniquePropertiesArray.toString());
-			}
-
-			HttpResponse<JsonNode> response = httpRequestWithBody.body(body).asJson();
-
-			if (response.getStatus() >= 500) {
-				throw new DivrollException(response.getStatusText());
-			} else if (response.getStatus() == 401) {
-				throw new UnauthorizedException(response.getStatusText());
-			} else if (response.getStatus() >= 401) {
-				throw new DivrollException(response.getStatusText());
-			} else if (response.getStatus() == 201) {
-				JsonNode responseBody = response.getBody();
-				JSONObject bodyObj = responseBody.getObject();
-				JSONObject entity = bodyObj.getJSONObject("entity");
-				String entityId = entity.getString("entityId");
-				setEntityId(entityId);
-			}
+			HttpResponse<JsonNode> response = getClient().asJson(createRequest());
+			processCreateResponse(response);
 		} catch (UnirestException e) {
 			e.printStackTrace();
 		}
 	}
 
-	public boolean update() {
-		try {
-			String completeUrl = Divroll.getServerUrl() + entityStoreBase + "/" + getEntityId();
-			HttpRequestWithBody httpRequestWithBody = Unirest.put(completeUrl);
-			if (Divroll.getMasterKey() != null) {
-				httpRequestWithBody.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
-			}
-			if (Divroll.getAppId() != null) {
-				httpRequestWithBody.header(HEADER_APP_ID, Divroll.getAppId());
-			}
-			if (Divroll.getApiKey() != null) {
-				httpRequestWithBody.header(HEADER_API_KEY, Divroll.getApiKey());
-			}
-			if (Divroll.getAuthToken() != null) {
-				httpRequestWithBody.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
-			}
-			if (Divroll.getNameSpace() != null) {
-				httpRequestWithBody.header(HEADER_NAMESPACE, Divroll.getNameSpace());
-			}
-			JSONArray aclRead = new JSONArray();
-			JSONArray aclWrite = new JSONArray();
-			if (acl != null) {
-				for (String uuid : this.acl.getAclRead()) {
-					JSONObject entityStub = new JSONObject();
-					entityStub.put("entityId", uuid);
-					aclRead.put(entityStub);
-				}
-				for (String uuid : this.acl.getAclWrite()) {
-					JSONObject entityStub = new JSONObject();
-					entityStub.put("entityId", uuid);
-					aclWrite.put(entityStub);
-				}
-			}
+	public CompletableFuture<DivrollEntity> createAsync() {
+		return getClient().asJsonAsync(createRequest()).thenApply(response -> {
+			processCreateResponse(response);
+			return this;
+		});
+	}
 
-			entityObj.put("aclRead", aclRead);
-			entityObj.put("aclWrite", aclWrite);
-			entityObj.put("publicRead",
-					(this.acl != null && this.acl.getPublicRead() != null) ? this.acl.getPublicRead()
-							: JSONObject.NULL);
-			entityObj.put("publicWrite",
-					(this.acl != null && this.acl.getPublicWrite() != null) ? this.acl.getPublicWrite()
-							: JSONObject.NULL);
+	private BaseRequest createRequest() {
+		HttpRequestWithBody httpRequestWithBody = getClient().post(getClient().getServerUrl() + entityStoreBase);
+		if (getClient().getMasterKey() != null) {
+			httpRequestWithBody.header(HEADER_MASTER_KEY, getClient().getMasterKey());
+		}
+		if (getClient().getAppId() != null) {
+			httpRequestWithBody.header(HEADER_APP_ID, getClient().getAppId());
+		}
+		if (getClient().getApiKey() != null) {
+			httpRequestWithBody.header(HEADER_API_KEY, getClient().getApiKey());
+		}
+		if (getClient().getAuthToken() != null) {
+			httpRequestWithBody.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
+		}
+		if (getClient().getNameSpace() != null) {
+			httpRequestWithBody.header(HEADER_NAMESPACE, getClient().getNameSpace());
+		}
+		JSONArray aclRead = new JSONArray();
+		JSONArray aclWrite = new JSONArray();
+		if (acl != null) {
+			for (String uuid : this.acl.getAclRead()) {
+				JSONObject entityStub = new JSONObject();
+				entityStub.put("entityId", uuid);
+				aclRead.put(entityStub);
+			}
+			for (String uuid : this.acl.getAclWrite()) {
+				JSONObject entityStub = new JSONObject();
+				entityStub.put("entityId", uuid);
+				aclWrite.put(entityStub);
+			}
+		}
 
-			JSONObject body = new JSONObject();
-			body.put("entity", entityObj);
+		entityObj.put("aclRead", aclRead);
+		entityObj.put("aclWrite", aclWrite);
+		entityObj.put("publicRead",
+				(this.acl != null && this.acl.getPublicRead() != null) ? this.acl.getPublicRead()
+						: JSONObject.NULL);
+		entityObj.put("publicWrite",
+				(this.acl != null && this.acl.getPublicWrite() != null) ? this.acl.getPublicWrite()
+						: JSONObject.NULL);
+		JSONObject body = new JSONObject();
+		body.put("entity", entityObj);
+
+		httpRequestWithBody.header("X-Divroll-ACL-Read", aclRead.toString());
+		httpRequestWithBody.header("X-Divroll-ACL-Write", aclWrite.toString());
+		httpRequestWithBody.header("Content-Type", "application/json");
+
+		JSONArray uniquePropertiesArray = new JSONArray();
+		uniqueProperties.forEach(uniqueProperty -> {
+			uniquePropertiesArray.put(uniqueProperty);
+		});
+
+		if (uniquePropertiesArray.length() > 0) {
+			httpRequestWithBody.queryString("uniqueProperties", uniquePropertiesArray.toString());
+		}
 
-			httpRequestWithBody.header("X-Divroll-ACL-Read", aclRead.toString());
-			httpRequestWithBody.header("X-Divroll-ACL-Write", aclWrite.toString());
-			httpRequestWithBody.header("Content-Type", "application/json");
+		return httpRequestWithBody.body(body);
+	}
 
-			HttpResponse<JsonNode> response = httpRequestWithBody.body(body).asJson();
+	private void processCreateResponse(HttpResponse<JsonNode> response) {
+		if (response.getStatus() >= 500) {
+			throw new DivrollException(response.getStatusText());
+		} else if (response.getStatus() == 401) {
+			throw new UnauthorizedException(response.getStatusText());
+		} else if (response.getStatus() >= 401) {
+			throw new DivrollException(response.getStatusText());
+		} else if (response.getStatus() == 201) {
+			JsonNode responseBody = response.getBody();
+			JSONObject bodyObj = responseBody.getObject();
+			JSONObject entity = bodyObj.getJSONObject("entity");
+			String entityId = entity.getString("entityId");
+			setEntityId(entityId);
+		}
+	}
 
-			if (response.getStatus() >= 500) {
-				throw new DivrollException(response.getStatusText());
-			} else if (response.getStatus() == 401) {
-				throw new UnauthorizedException(response.getStatusText());
-			} else if (response.getStatus() >= 401) {
-				throw new DivrollException(response.getStatusText());
-			} else if (response.getStatus() == 201) {
-				JsonNode responseBody = response.getBody();
-				JSONObject bodyObj = responseBody.getObject();
-				JSONObject entity = bodyObj.getJSONObject("entity");
-				String entityId = entity.getString("entityId");
-				setEntityId(entityId);
-				return true;
-			}
+	public boolean update() {
+		try {
+			HttpResponse<JsonNode> response = getClient().asJson(updateRequest());
+			return processUpdateResponse(response);
 		} catch (UnirestException e) {
 			e.printStackTrace();
 		}
 		return false;
 	}
 
-	public void retrieve() {
-		try {
-			String completeUrl = Divroll.getServerUrl() + entityStoreBase + "/" + getEntityId();
-			GetRequest getRequest = Unirest.get(completeUrl);
+	public CompletableFuture<Boolean> updateAsync() {
+		return getClient().asJsonAsync(updateRequest()).thenApply(response -> processUpdateResponse(response));
+	}
 
-			if (Divroll.getMasterKey() != null) {
-				getRequest.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
-			}
-			if (Divroll.getAppId() != null) {
-				getRequest.header(HEADER_APP_ID, Divroll.getAppId());
-			}
-			if (Divroll.getApiKey() != null) {
-				getRequest.header(HEADER_API_KEY, Divroll.getApiKey());
-			}
-			if (Divroll.getAuthToken() != null) {
-				getRequest.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
-			}
-			if (Divroll.getNameSpace() != null) {
-				getRequest.header(HEADER_NAMESPACE, Divroll.getNameSpace());
+	private BaseRequest updateRequest() {
+		String completeUrl = getClient().getServerUrl() + entityStoreBase + "/" + getEntityId();
+		HttpRequestWithBody httpRequestWithBody = getClient().put(completeUrl);
+		if (getClient().getMasterKey() != null) {
+			httpRequestWithBody.header(HEADER_MASTER_KEY, getClient().getMasterKey());
+		}
+		if (getClient().getAppId() != null) {
+			httpRequestWithBody.header(HEADER_APP_ID, getClient().getAppId());
+		}
+		if (getClient().getApiKey() != null) {
+			httpRequestWithBody.header(HEADER_API_KEY, getClient().getApiKey());
+		}
+		if (getClient().getAuthToken() != null) {
+			httpRequestWithBody.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
+		}
+		if (getClient().getNameSpace() != null) {
+			httpRequestWithBody.header(HEADER_NAMESPACE, getClient().getNameSpace());
+		}
+		JSONArray aclRead = new JSONArray();
+		JSONArray aclWrite = new JSONArray();
+		if (acl != null) {
+			for (String uuid : this.acl.getAclRead()) {
+				JSONObject entityStub = new JSONObject();
+				entityStub.put("entityId", uuid);
+				aclRead.put(entityStub);
+			}
+			for (String uuid : this.acl.getAclWrite()) {
+				JSONObject entityStub = new JSONObject();
+				entityStub.put("entityId", uuid);
+				aclWrite.put(entityStub);
 			}
-			HttpResponse<JsonNode> response = getRequest.asJson();
-
-			if (response.getStatus() >= 500) {
-				throwException(response);
-			} else if (response.getStatus() == 404) {
-				throw new NotFoundRequestException(response.getStatusText());
-			} else if (response.getStatus() == 401) {
-				throw new UnauthorizedException(response.getStatusText());
-			} else if (response.getStatus() == 400) {
-				throw new BadRequestException(response.getStatusText());
-			} else if (response.getStatus() >= 400) {
-				throwException(response);
-			} else if (response.getStatus() == 200) {
-				JsonNode body = response.getBody();
-				JSONObject bodyObj = body.getObject();
-				JSONObject entityJsonObject = bodyObj.getJSONObject("entity");
-				String entityId = entityJsonObject.getString("entityId");
-
-				Boolean publicRead = null;
-				Boolean publicWrite = null;
-
-				try {
-					publicWrite = entityJsonObject.getBoolean("publicWrite");
-				} catch (Exception e) {
+		}
 
-				}
+		entityObj.put("aclRead", aclRead);
+		entityObj.put("aclWrite", aclWrite);
+		entityObj.put("publicRead",
+				(this.acl != null && this.acl.getPublicRead() != null) ? this.acl.getPublicRead()
+						: JSONObject.NULL);
+		entityObj.put("publicWrite",
+				(this.acl != null && this.acl.getPublicWrite() != null) ? this.acl.getPublicWrite()
+						: JSONObject.NULL);
 
-				try {
-					publicRead = entityJsonObject.getBoolean("publicRead");
-				} catch (Exception e) {
+		JSONObject body = new JSONObject();
+		body.put("entity", entityObj);
 
-				}
+		httpRequestWithBody.header("X-Divroll-ACL-Read", aclRead.toString());
+		httpRequestWithBody.header("X-Divroll-ACL-Write", aclWrite.toString());
+		httpRequestWithBody.header("Content-Type", "application/json");
 
-				List<String> aclWriteList = null;
-				List<String> aclReadList = null;
+		return httpRequestWithBody.body(body);
+	}
 
-				try {
-					aclWriteList = JSON.aclJSONArrayToList(entityJsonObject.getJSONArray("aclWrite"));
-				} catch (Exception e) {
+	private boolean processUpdateResponse(HttpResponse<JsonNode> response) {
+		invalidateCache();
+		if (response.getStatus() >= 500) {
+			throw new DivrollException(response.getStatusText());
+		} else if (response.getStatus() == 401) {
+			throw new UnauthorizedException(response.getStatusText());
+		} else if (response.getStatus() >= 401) {
+			throw new DivrollException(response.getStatusText());
+		} else if (response.getStatus() == 201) {
+			JsonNode responseBody = response.getBody();
+			JSONObject bodyObj = responseBody.getObject();
+			JSONObject entity = bodyObj.getJSONObject("entity");
+			String entityId = entity.getString("entityId");
+			setEntityId(entityId);
+			return true;
+		}
+		return false;
+	}
 
-				}
+	public void retrieve() {
+		if (retrieveCached()) {
+			return;
+		}
+		try {
+			HttpResponse<JsonNode> response = getClient().asJson(retrieveRequest());
+			processRetrieveResponse(response);
+		} catch (UnirestException e) {
+			e.printStackTrace();
+		}
+	}
 
-				try {
-					aclReadList = JSON.aclJSONArrayToList(entityJsonObject.getJSONArray("aclRead"));
-				} catch (Exception e) {
+	public CompletableFuture<DivrollEntity> retrieveAsync() {
+		if (retrieveCached()) {
+			return CompletableFuture.completedFuture(this);
+		}
+		return getClient().asJsonAsync(retrieveRequest()).thenApply(response -> {
+			processRetrieveResponse(response);
+			return this;
+		});
+	}
 
-				}
+	private BaseRequest retrieveRequest() {
+		String completeUrl = getClient().getServerUrl() + entityStoreBase + "/" + getEntityId();
+		GetRequest getRequest = getClient().get(completeUrl);
 
-				try {
-					JSONObject jsonObject = entityJsonObject.getJSONObject("aclWrite");
-					aclWriteList = Arrays.asList(jsonObject.getString("entityId"));
-				} catch (Exception e) {
+		if (getClient().getMasterKey() != null) {
+			getRequest.header(HEADER_MASTER_KEY, getClient().getMasterKey());
+		}
+		if (getClient().getAppId() != null) {
+			getRequest.header(HEADER_APP_ID, getClient().getAppId());
+		}
+		if (getClient().getApiKey() != null) {
+			getRequest.header(HEADER_API_KEY, getClient().getApiKey());
+		}
+		if (getClient().getAuthToken() != null) {
+			getRequest.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
+		}
+		if (getClient().getNameSpace() != null) {
+			getRequest.header(HEADER_NAMESPACE, getClient().getNameSpace());
+		}
+		if (fields != null) {
+			getRequest.queryString("fields", new JSONArray(fields).toString());
+		} else {
+			addConditionalHeaders(getRequest, getEntityId(), getDateUpdated());
+		}
+		return getRequest;
+	}
 
-				}
-				try {
-					JSONObject jsonObject = entityJsonObject.getJSONObject("aclRead");
-					aclReadList = Arrays.asList(jsonObject.getString("entityId"));
-				} catch (Exception e) {
+	private void processRetrieveResponse(HttpResponse<JsonNode> response) {
+		if (response.getStatus() >= 500) {
+			throwException(response);
+		} else if (response.getStatus() == 404) {
+			throw new NotFoundRequestException(response.getStatusText());
+		} else if (response.getStatus() == 401) {
+			throw new UnauthorizedException(response.getStatusText());
+		} else if (response.getStatus() == 400) {
+			throw new BadRequestException(response.getStatusText());
+		} else if (response.getStatus() >= 400) {
+			throwException(response);
+		} else if (response.getStatus() == 200) {
+			JsonNode body = response.getBody();
+			JSONObject bodyObj = body.getObject();
+			JSONObject entityJSONObject = bodyObj.getJSONObject("entity");
+			DivrollEntityDecoder.decode(entityJSONObject, this, fields);
+			if (fields != null) {
+				// a partial entity must not answer later full retrieves
+				return;
+			}
+			DivrollEntityCache entityCache = getClient().getEntityCache();
+			if (entityCache != null && entityId != null) {
+				entityCache.put(getClient(), entityType, entityId, entityJSONObject);
+			}
+			storeValidators(response, getEntityId());
+		}
+	}
 
-				}
+	private boolean retrieveCached() {
+		DivrollEntityCache entityCache = getClient().getEntityCache();
+		if (entityCache == null || entityId == null) {
+			return false;
+		}
+		JSONObject entityJSONObject = entityCache.get(getClient(), entityType, entityId);
+		if (entityJSONObject == null) {
+			return false;
+		}
+		DivrollEntityDecoder.decode(entityJSONObject, this, fields);
+		return true;
+	}
 
-				Iterator<String> it = entityJsonObject.keySet().iterator();
-				while (it.hasNext()) {
-					String propertyKey = it.next();
-					if (propertyKey.equals("entityId")) {
-						setEntityId(entityJsonObject.getString(propertyKey));
-					} else if (propertyKey.equals("publicRead") || propertyKey.equals("publicWrite")
-							|| propertyKey.equals("aclRead") || propertyKey.equals("aclWrite")) {
-						// skip
-					} else {
-						Object obj = entityJsonObject.get(propertyKey);
-						entityObj.put(propertyKey, obj);
-					}
-				}
+	void invalidateBlobCache(String blobKey) {
+		DivrollBlobCache blobCache = getClient().getBlobCache();
+		if (blobCache != null && entityId != null) {
+			blobCache.invalidate(getClient(), entityType, entityId, blobKey);
+		}
+	}
 
-				DivrollACL acl = new DivrollACL(aclReadList, aclWriteList);
-				acl.setPublicWrite(publicWrite);
-				acl.setPublicRead(publicRead);
-				setEntityId(entityId);
-				setAcl(acl);
-			}
-		} catch (UnirestException e) {
-			e.printStackTrace();
+	void invalidateCache() {
+		DivrollEntityCache entityCache = getClient().getEntityCache();
+		if (entityCache != null && entityId != null) {
+			entityCache.invalidate(getClient(), entityType, entityId);
 		}
 	}
 
 	public boolean delete() {
 		try {
-			String completeUrl = Divroll.getServerUrl() + entityStoreBase + "/" + getEntityId();
-			HttpRequestWithBody httpRequestWithBody = Unirest.delete(completeUrl);
-			if (Divroll.getMasterKey() != null) {
-				httpRequestWithBody.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
-			}
-			if (Divroll.getAppId() != null) {
-				httpRequestWithBody.header(HEADER_APP_ID, Divroll.getAppId());
-			}
-			if (Divroll.getApiKey() != null) {
-				httpRequestWithBody.header(HEADER_API_KEY, Divroll.getApiKey());
-			}
-			if (Divroll.getAuthToken() != null) {
-				httpRequestWithBody.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
-			}
-			if (Divroll.getNameSpace() != null) {
-				httpRequestWithBody.header(HEADER_NAMESPACE, Divroll.getNameSpace());
-			}
-			HttpResponse<JsonNode> response = httpRequestWithBody.asJson();
-			if (response.getStatus() >= 500) {
-				throwException(response);
-			} else if (response.getStatus() == 401) {
-				throw new UnauthorizedException(response.getStatusText());
-			} else if (response.getStatus() == 400) {
-				throw new BadRequestException(response.getStatusText());
-			} else if (response.getStatus() >= 400) {
-				throwException(response);
-			} else if (response.getStatus() == 204) {
-				return true;
-			}
+			HttpResponse<JsonNode> response = getClient().asJson(deleteRequest());
+			return processDeleteResponse(response);
 		} catch (UnirestException e) {
 			e.printStackTrace();
 		}
 		return false;
 	}
 
+	public CompletableFuture<Boolean> deleteAsync() {
+		return getClient().asJsonAsync(deleteRequest()).thenApply(response -> processDeleteResponse(response));
+	}
+
+	private BaseRequest deleteRequest() {
+		String completeUrl = getClient().getServerUrl() + entityStoreBase + "/" + getEntityId();
+		HttpRequestWithBody httpRequestWithBody = getClient().delete(completeUrl);
+		if (getClient().getMasterKey() != null) {
+			httpRequestWithBody.header(HEADER_MASTER_KEY, getClient().getMasterKey());
+		}
+		if (getClient().getAppId() != null) {
+			httpRequestWithBody.header(HEADER_APP_ID, getClient().getAppId());
+		}
+		if (getClient().getApiKey() != null) {
+			httpRequestWithBody.header(HEADER_API_KEY, getClient().getApiKey());
+		}
+		if (getClient().getAuthToken() != null) {
+			httpRequestWithBody.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
+		}
+		if (getClient().getNameSpace() != null) {
+			httpRequestWithBody.header(HEADER_NAMESPACE, getClient().getNameSpace());
+		}
+		return httpRequestWithBody;
+	}
+
+	private boolean processDeleteResponse(HttpResponse<JsonNode> response) {
+		invalidateCache();
+		if (response.getStatus() >= 500) {
+			throwException(response);
+		} else if (response.getStatus() == 401) {
+			throw new UnauthorizedException(response.getStatusText());
+		} else if (response.getStatus() == 400) {
+			throw new BadRequestException(response.getStatusText());
+		} else if (response.getStatus() >= 400) {
+			throwException(response);
+		} else if (response.getStatus() == 204) {
+			return true;
+		}
+		return false;
+	}
+
 	public void put(String propertyKey, Object propertyValue) {
 		// TODO - add check for propertyValue
 		entityObj.put(propertyKey, propertyValue);
@@ -1092,6 +1264,15 @@ public class DivrollEntity extends DivrollBase {
 		this.linkFrom = linkFrom;
 	}
 
+	/**
+	 * Restricts {@link #retrieve()} to the entity id and the given properties,
+	 * on the server and while decoding. Null, the default, retrieves every
+	 * property along with the ACL and links.
+	 */
+	public void setFields(List<String> fields) {
+		this.fields = fields != null ? new LinkedHashSet<String>(fields) : null;
+	}
+
 	public void setUniqueProperties(List<String> uniqueProperties) {
 		if (uniqueProperties == null) {
 			return;
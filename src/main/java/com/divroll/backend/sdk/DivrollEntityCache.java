@@ -0,0 +1,160 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.json.JSONObject;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.hash.Hashing;
+
+/**
+ * Read-through cache of retrieved entities, keyed by application, namespace,
+ * entity store and entity id, and by the credentials the entity was read with,
+ * so an entity is only served to callers holding the same master key or auth
+ * token. Entries are held as JSON text so every hit decodes into its own copy.
+ * The keys cached for each entity are indexed, so invalidating an entity costs
+ * the same however large the cache grows.
+ */
+public class DivrollEntityCache {
+
+	private final Cache<List<String>, String> cache;
+	// the cached keys of each entity, one per set of credentials
+	private final Map<List<String>, Set<List<String>>> keys = new HashMap<List<String>, Set<List<String>>>();
+	private final ReentrantLock lock = new ReentrantLock();
+
+	public DivrollEntityCache(long maximumSize, long ttl) {
+		this(maximumSize, ttl, Ticker.systemTicker());
+	}
+
+	DivrollEntityCache(long maximumSize, long ttl, Ticker ticker) {
+		CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats()
+				.ticker(ticker);
+		if (ttl > 0) {
+			builder.expireAfterWrite(ttl, TimeUnit.MILLISECONDS);
+		}
+		this.cache = builder.removalListener(this::onRemoval).build();
+	}
+
+	public JSONObject get(DivrollClient client, String entityStore, String entityId) {
+		String entity = cache.getIfPresent(key(client, entityStore, entityId));
+		return entity != null ? new JSONObject(entity) : null;
+	}
+
+	public void put(DivrollClient client, String entityStore, String entityId, JSONObject entity) {
+		List<String> key = key(client, entityStore, entityId);
+		lock.lock();
+		try {
+			keys.computeIfAbsent(key.subList(0, 4), ignored -> new HashSet<List<String>>()).add(key);
+			cache.put(key, entity.toString());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Drops the entity as cached for every set of credentials.
+	 */
+	public void invalidate(DivrollClient client, String entityStore, String entityId) {
+		lock.lock();
+		try {
+			Set<List<String>> cached = keys.remove(key(client, entityStore, entityId).subList(0, 4));
+			if (cached != null) {
+				cache.invalidateAll(cached);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void invalidateAll() {
+		lock.lock();
+		try {
+			keys.clear();
+			cache.invalidateAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public long size() {
+		return cache.size();
+	}
+
+	public CacheStats stats() {
+		return cache.stats();
+	}
+
+	private void onRemoval(RemovalNotification<List<String>, String> notification) {
+		if (!notification.wasEvicted()) {
+			return;
+		}
+		lock.lock();
+		try {
+			// puts hold the lock, so a key that is cached again is still present
+			List<String> key = notification.getKey();
+			Set<List<String>> cached = keys.get(key.subList(0, 4));
+			if (cached != null && !cache.asMap().containsKey(key)) {
+				cached.remove(key);
+				if (cached.isEmpty()) {
+					keys.remove(key.subList(0, 4));
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private static List<String> key(DivrollClient client, String entityStore, String entityId) {
+		return Arrays.asList(client.getAppId(), client.getNameSpace(), entityStore, entityId, principal(client));
+	}
+
+	/**
+	 * Identifies the credentials the client reads with, without holding on to
+	 * them, or null if it sends none.
+	 */
+	static String principal(DivrollClient client) {
+		if (client.getMasterKey() != null) {
+			return "master:" + hash(client.getMasterKey());
+		} else if (client.getAuthToken() != null) {
+			return "token:" + hash(client.getAuthToken());
+		}
+		return null;
+	}
+
+	private static String hash(String credential) {
+		return Hashing.sha256().hashString(credential, StandardCharsets.UTF_8).toString();
+	}
+}
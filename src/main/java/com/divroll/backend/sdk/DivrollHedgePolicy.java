@@ -0,0 +1,120 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk;
+
+/**
+ * Settings for hedged GET requests. When a GET has not been answered within
+ * the configured percentile of its endpoint's recent response times, a second
+ * identical request is sent; whichever response arrives first is used and the
+ * other request is cancelled. Hedges are drawn from a per-endpoint budget that
+ * every GET tops up by the maximum hedge rate, which bounds the extra load.
+ */
+public class DivrollHedgePolicy {
+
+	public static final double DEFAULT_PERCENTILE = 0.95;
+	public static final long DEFAULT_INITIAL_DELAY = 100;
+	public static final int DEFAULT_MIN_SAMPLES = 20;
+	public static final int DEFAULT_WINDOW_SIZE = 1000;
+	public static final double DEFAULT_MAX_HEDGE_RATE = 0.05;
+	public static final int DEFAULT_BUDGET_CAPACITY = 10;
+
+	private double percentile = DEFAULT_PERCENTILE;
+	private long initialDelay = DEFAULT_INITIAL_DELAY;
+	private int minSamples = DEFAULT_MIN_SAMPLES;
+	private int windowSize = DEFAULT_WINDOW_SIZE;
+	private double maxHedgeRate = DEFAULT_MAX_HEDGE_RATE;
+	private int budgetCapacity = DEFAULT_BUDGET_CAPACITY;
+
+	public DivrollHedgePolicy() {
+	}
+
+	public static DivrollHedgePolicy build() {
+		DivrollHedgePolicy policy = new DivrollHedgePolicy();
+		return policy;
+	}
+
+	public double getPercentile() {
+		return percentile;
+	}
+
+	/**
+	 * Percentile of recent response times, between 0 and 1, after which a GET
+	 * is hedged.
+	 */
+	public void setPercentile(double percentile) {
+		this.percentile = percentile;
+	}
+
+	public long getInitialDelay() {
+		return initialDelay;
+	}
+
+	/**
+	 * Hedge delay, in milliseconds, used until an endpoint has recorded
+	 * minSamples response times.
+	 */
+	public void setInitialDelay(long initialDelay) {
+		this.initialDelay = initialDelay;
+	}
+
+	public int getMinSamples() {
+		return minSamples;
+	}
+
+	public void setMinSamples(int minSamples) {
+		this.minSamples = minSamples;
+	}
+
+	public int getWindowSize() {
+		return windowSize;
+	}
+
+	/**
+	 * Number of most recent response times the percentile is computed over.
+	 */
+	public void setWindowSize(int windowSize) {
+		this.windowSize = windowSize;
+	}
+
+	public double getMaxHedgeRate() {
+		return maxHedgeRate;
+	}
+
+	/**
+	 * Long-run fraction of an endpoint's GETs that may be hedged.
+	 */
+	public void setMaxHedgeRate(double maxHedgeRate) {
+		this.maxHedgeRate = maxHedgeRate;
+	}
+
+	public int getBudgetCapacity() {
+		return budgetCapacity;
+	}
+
+	/**
+	 * Most hedges an endpoint can send in a burst, which is also how many it
+	 * starts with.
+	 */
+	public void setBudgetCapacity(int budgetCapacity) {
+		this.budgetCapacity = budgetCapacity;
+	}
+}
@@ -0,0 +1,250 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.divroll.backend.sdk.exception.RateLimitExceededException;
+
+/**
+ * Token buckets that pace requests per application, namespace and operation
+ * type. Limits set for an operation apply to every application and namespace
+ * unless a limit was set for that application and namespace specifically;
+ * operations without a limit are not paced.
+ *
+ * Callers that find a bucket empty reserve the next token and wait for it, so
+ * waiting callers are released at the configured rate in arrival order. A
+ * caller whose wait would exceed the maximum wait is rejected at once.
+ */
+public class DivrollRateLimiter {
+
+	public enum Operation {
+		READ, WRITE, DELETE;
+
+		public static Operation of(String method) {
+			switch (method) {
+			case "GET":
+			case "HEAD":
+			case "OPTIONS":
+				return READ;
+			case "DELETE":
+				return DELETE;
+			default:
+				return WRITE;
+			}
+		}
+	}
+
+	public static final long DEFAULT_MAX_WAIT = 30000;
+
+	private final ConcurrentMap<List<String>, Limit> limits = new ConcurrentHashMap<List<String>, Limit>();
+	private final ConcurrentMap<List<String>, Bucket> buckets = new ConcurrentHashMap<List<String>, Bucket>();
+	private long maxWait = DEFAULT_MAX_WAIT;
+	private ScheduledExecutorService scheduler;
+	private final ReentrantLock schedulerLock = new ReentrantLock();
+
+	public DivrollRateLimiter() {
+	}
+
+	public static DivrollRateLimiter build() {
+		DivrollRateLimiter rateLimiter = new DivrollRateLimiter();
+		return rateLimiter;
+	}
+
+	/**
+	 * Limits the operation for every application and namespace without a limit
+	 * of its own.
+	 *
+	 * @param burst
+	 *            tokens a bucket holds, which is also how many it starts with
+	 */
+	public void setLimit(Operation operation, double permitsPerSecond, int burst) {
+		setLimit(null, null, operation, permitsPerSecond, burst);
+	}
+
+	public void setLimit(String appId, String nameSpace, Operation operation, double permitsPerSecond, int burst) {
+		limits.put(key(appId, nameSpace, operation), new Limit(permitsPerSecond, burst));
+		buckets.clear();
+	}
+
+	/**
+	 * Waits for a token, failing with a {@link RateLimitExceededException} if
+	 * that would take longer than the maximum wait.
+	 */
+	public void acquire(String appId, String nameSpace, Operation operation) throws InterruptedException {
+		long wait = reserve(appId, nameSpace, operation, maxWait);
+		if (wait > 0) {
+			TimeUnit.NANOSECONDS.sleep(wait);
+		}
+	}
+
+	/**
+	 * Takes a token if one is available right now.
+	 */
+	public boolean tryAcquire(String appId, String nameSpace, Operation operation) {
+		Bucket bucket = bucket(appId, nameSpace, operation);
+		return bucket == null || bucket.reserve(0) >= 0;
+	}
+
+	/**
+	 * Reserves a token and returns a future that completes once it is due,
+	 * without holding a thread while waiting. The future fails with a
+	 * {@link RateLimitExceededException} if the wait would exceed the maximum
+	 * wait.
+	 */
+	public CompletableFuture<Void> acquireAsync(String appId, String nameSpace, Operation operation) {
+		CompletableFuture<Void> result = new CompletableFuture<Void>();
+		long wait;
+		try {
+			wait = reserve(appId, nameSpace, operation, maxWait);
+		} catch (RateLimitExceededException e) {
+			result.completeExceptionally(e);
+			return result;
+		}
+		if (wait > 0) {
+			getScheduler().schedule(() -> result.complete(null), wait, TimeUnit.NANOSECONDS);
+		} else {
+			result.complete(null);
+		}
+		return result;
+	}
+
+	private long reserve(String appId, String nameSpace, Operation operation, long maxWait) {
+		Bucket bucket = bucket(appId, nameSpace, operation);
+		if (bucket == null) {
+			return 0;
+		}
+		long wait = bucket.reserve(TimeUnit.MILLISECONDS.toNanos(maxWait));
+		if (wait < 0) {
+			throw new RateLimitExceededException(
+					"Rate limit for " + operation + " on " + appId + "/" + nameSpace + " exceeded");
+		}
+		return wait;
+	}
+
+	private Bucket bucket(String appId, String nameSpace, Operation operation) {
+		List<String> key = key(appId, nameSpace, operation);
+		Bucket bucket = buckets.get(key);
+		if (bucket != null) {
+			return bucket;
+		}
+		Limit limit = limits.get(key);
+		if (limit == null) {
+			limit = limits.get(key(null, null, operation));
+		}
+		if (limit == null) {
+			return null;
+		}
+		Bucket created = new Bucket(limit);
+		bucket = buckets.putIfAbsent(key, created);
+		return bucket != null ? bucket : created;
+	}
+
+	private static List<String> key(String appId, String nameSpace, Operation operation) {
+		return Arrays.asList(String.valueOf(appId), String.valueOf(nameSpace), operation.name());
+	}
+
+	private ScheduledExecutorService getScheduler() {
+		schedulerLock.lock();
+		try {
+			if (scheduler == null) {
+				scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+					Thread thread = new Thread(runnable, "divroll-rate-limiter");
+					thread.setDaemon(true);
+					return thread;
+				});
+			}
+			return scheduler;
+		} finally {
+			schedulerLock.unlock();
+		}
+	}
+
+	public long getMaxWait() {
+		return maxWait;
+	}
+
+	/**
+	 * Longest time, in milliseconds, a caller may wait for a token. Zero sheds
+	 * every request that finds its bucket empty.
+	 */
+	public void setMaxWait(long maxWait) {
+		this.maxWait = maxWait;
+	}
+
+	private static final class Limit {
+
+		private final double permitsPerSecond;
+		private final int burst;
+
+		Limit(double permitsPerSecond, int burst) {
+			this.permitsPerSecond = permitsPerSecond;
+			this.burst = burst;
+		}
+	}
+
+	private static final class Bucket {
+
+		private final double nanosPerToken;
+		private final int burst;
+		private double tokens;
+		private long refilledAt;
+		private final ReentrantLock lock = new ReentrantLock();
+
+		Bucket(Limit limit) {
+			this.nanosPerToken = TimeUnit.SECONDS.toNanos(1) / limit.permitsPerSecond;
+			this.burst = Math.max(1, limit.burst);
+			this.tokens = burst;
+			this.refilledAt = System.nanoTime();
+		}
+
+		/**
+		 * Takes the next token, possibly one not yet earned, and returns the
+		 * nanoseconds until it is due, or -1 without taking it if that is
+		 * longer than the maximum wait.
+		 */
+		long reserve(long maxWaitNanos) {
+			lock.lock();
+			try {
+				long now = System.nanoTime();
+				tokens = Math.min(burst, tokens + (now - refilledAt) / nanosPerToken);
+				refilledAt = now;
+				long wait = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) * nanosPerToken);
+				if (wait > maxWaitNanos) {
+					return -1;
+				}
+				tokens--;
+				return wait;
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk;
+
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.http.client.utils.DateUtils;
+
+/**
+ * Decides whether a failed idempotent request is sent again and how long to
+ * wait before doing so. Delays grow exponentially from the base delay with
+ * full jitter, and a {@code Retry-After} header sent with a 429 or 503 takes
+ * precedence. Retries are drawn from a budget that every request tops up by
+ * the budget ratio, so a struggling server sees at most that fraction of
+ * extra load instead of a retry storm.
+ */
+public class DivrollRetryPolicy {
+
+	public static final int DEFAULT_MAX_ATTEMPTS = 3;
+	public static final long DEFAULT_BASE_DELAY = 100;
+	public static final long DEFAULT_MAX_DELAY = 5000;
+	public static final double DEFAULT_BUDGET_RATIO = 0.2;
+	public static final int DEFAULT_BUDGET_CAPACITY = 10;
+
+	private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+	private long baseDelay = DEFAULT_BASE_DELAY;
+	private long maxDelay = DEFAULT_MAX_DELAY;
+	private double budgetRatio = DEFAULT_BUDGET_RATIO;
+	private int budgetCapacity = DEFAULT_BUDGET_CAPACITY;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private double budget = DEFAULT_BUDGET_CAPACITY;
+
+	public DivrollRetryPolicy() {
+	}
+
+	public static DivrollRetryPolicy build() {
+		DivrollRetryPolicy policy = new DivrollRetryPolicy();
+		return policy;
+	}
+
+	public static boolean isIdempotent(String method) {
+		return method.equals("GET") || method.equals("HEAD") || method.equals("OPTIONS") || method.equals("DELETE");
+	}
+
+	public static boolean isRetryable(int status) {
+		return status == 429 || status == 500 || status == 502 || status == 503 || status == 504;
+	}
+
+	/**
+	 * Milliseconds to wait before the given attempt, counting the first request
+	 * as attempt one, or -1 if the request should not be sent again.
+	 *
+	 * @param retryAfter
+	 *            the Retry-After header of the failed response, or null
+	 */
+	public long delay(int attempt, String retryAfter) {
+		if (attempt > maxAttempts) {
+			return -1;
+		}
+		if (retryAfter != null) {
+			long delay = parseRetryAfter(retryAfter);
+			if (delay >= 0) {
+				return delay <= maxDelay ? delay : -1;
+			}
+		}
+		long ceiling = Math.min(maxDelay, baseDelay << Math.min(attempt - 2, 30));
+		return ceiling > 0 ? ThreadLocalRandom.current().nextLong(ceiling + 1) : 0;
+	}
+
+	private static long parseRetryAfter(String retryAfter) {
+		try {
+			return Math.max(0, Long.parseLong(retryAfter.trim()) * 1000);
+		} catch (NumberFormatException e) {
+			Date date = DateUtils.parseDate(retryAfter);
+			return date != null ? Math.max(0, date.getTime() - System.currentTimeMillis()) : -1;
+		}
+	}
+
+	/**
+	 * Credits the retry budget for a request about to be sent for the first
+	 * time.
+	 */
+	public void deposit() {
+		lock.lock();
+		try {
+			budget = Math.min(budgetCapacity, budget + budgetRatio);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Takes one retry from the budget, returning false when it is exhausted.
+	 */
+	public boolean withdraw() {
+		lock.lock();
+		try {
+			if (budget < 1) {
+				return false;
+			}
+			budget--;
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	/**
+	 * Total number of times a request is sent, including the first one.
+	 */
+	public void setMaxAttempts(int maxAttempts) {
+		this.maxAttempts = maxAttempts;
+	}
+
+	public long getBaseDelay() {
+		return baseDelay;
+	}
+
+	/**
+	 * Upper bound, in milliseconds, of the jittered delay before the first
+	 * retry. It doubles with every further retry.
+	 */
+	public void setBaseDelay(long baseDelay) {
+		this.baseDelay = baseDelay;
+	}
+
+	public long getMaxDelay() {
+		return maxDelay;
+	}
+
+	/**
+	 * Longest delay, in milliseconds, between two attempts. A Retry-After
+	 * asking for more than this ends the retries.
+	 */
+	public void setMaxDelay(long maxDelay) {
+		this.maxDelay = maxDelay;
+	}
+
+	public double getBudgetRatio() {
+		return budgetRatio;
+	}
+
+	/**
+	 * Fraction of a retry earned by every request sent.
+	 */
+	public void setBudgetRatio(double budgetRatio) {
+		this.budgetRatio = budgetRatio;
+	}
+
+	public int getBudgetCapacity() {
+		return budgetCapacity;
+	}
+
+	/**
+	 * Most retries the budget can hold, which is also how many it starts with.
+	 */
+	public void setBudgetCapacity(int budgetCapacity) {
+		lock.lock();
+		try {
+			this.budgetCapacity = budgetCapacity;
+			this.budget = budgetCapacity;
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -23,6 +23,7 @@ package com.divroll.backend.sdk;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -33,8 +34,8 @@ import com.divroll.backend.sdk.exception.UnauthorizedException;
 import com.divroll.backend.sdk.helper.JSON;
 import com.mashape.unirest.http.HttpResponse;
 import com.mashape.unirest.http.JsonNode;
-import com.mashape.unirest.http.Unirest;
 import com.mashape.unirest.http.exceptions.UnirestException;
+import com.mashape.unirest.request.BaseRequest;
 import com.mashape.unirest.request.GetRequest;
 import com.mashape.unirest.request.HttpRequestWithBody;
 
@@ -53,346 +54,414 @@ public class DivrollRole extends DivrollBase {
 		setName(name);
 	}
 
+	public DivrollRole(DivrollClient client) {
+		setClient(client);
+	}
+
+	public DivrollRole(DivrollClient client, String name) {
+		setClient(client);
+		setName(name);
+	}
+
 	public void create() {
 		try {
-			HttpRequestWithBody httpRequestWithBody = Unirest.post(Divroll.getServerUrl() + rolesUrl);
-			if (Divroll.getMasterKey() != null) {
-				httpRequestWithBody.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
-			}
-			if (Divroll.getAppId() != null) {
-				httpRequestWithBody.header(HEADER_APP_ID, Divroll.getAppId());
-			}
-			if (Divroll.getApiKey() != null) {
-				httpRequestWithBody.header(HEADER_API_KEY, Divroll.getApiKey());
-			}
-			if (Divroll.getNameSpace() != null) {
-				httpRequestWithBody.header(HEADER_NAMESPACE, Divroll.getNameSpace());
-			}
-			JSONObject roleObj = new JSONObject();
-			roleObj.put("name", name);
-			roleObj.put("publicRead",
-					(acl != null && acl.getPublicRead() != null) ? acl.getPublicRead() : JSONObject.NULL);
-			roleObj.put("publicWrite",
-					(acl != null && acl.getPublicWrite() != null) ? acl.getPublicWrite() : JSONObject.NULL);
-			JSONObject body = new JSONObject();
-			body.put("role", roleObj);
-
-			JSONArray aclRead = new JSONArray();
-			JSONArray aclWrite = new JSONArray();
-			if (acl != null) {
-				for (String uuid : this.acl.getAclRead()) {
-					JSONObject entityStub = new JSONObject();
-					entityStub.put("entityId", uuid);
-					aclRead.put(entityStub);
-				}
-				for (String uuid : this.acl.getAclWrite()) {
-					JSONObject entityStub = new JSONObject();
-					entityStub.put("entityId", uuid);
-					aclWrite.put(entityStub);
-				}
-			}
-			roleObj.put("aclRead", getAcl() != null ? aclRead : null);
-			roleObj.put("aclWrite", getAcl() != null ? aclWrite : null);
-
-			httpRequestWithBody.header("X-Divroll-ACL-Read", aclRead.toString());
-			httpRequestWithBody.header("X-Divroll-ACL-Write", aclWrite.toString());
-			httpRequestWithBody.header("Content-Type", "application/json");
-
-			HttpResponse<JsonNode> response = httpRequestWithBody.body(body).asJson();
-			if (response.getStatus() >= 500) {
-				throw new DivrollException(response.getStatusText());
-			} else if (response.getStatus() == 400) {
-				throw new BadRequestException(response.getStatusText());
-			} else if (response.getStatus() == 404) {
-				throw new DivrollException(response.getStatusText());
-			} else if (response.getStatus() == 401) {
-				throw new UnauthorizedException(response.getStatusText());
-			} else if (response.getStatus() == 401) {
-				throw new DivrollException(response.getStatusText());
-			} else if (response.getStatus() == 201) {
-				JsonNode responseBody = response.getBody();
-				JSONObject bodyObj = responseBody.getObject();
-
-				JSONObject role = bodyObj.getJSONObject("role");
-				String entityId = role.getString("entityId");
-				String name = role.getString("name");
-
-				Boolean publicRead = null;
-				Boolean publicWrite = null;
-
-				try {
-					publicRead = role.getBoolean("publicRead");
-				} catch (Exception e) {
-
-				}
-
-				try {
-					publicWrite = role.getBoolean("publicWrite");
-				} catch (Exception e) {
-
-				}
-
-				List<String> aclWriteList = null;
-				List<String> aclReadList = null;
-
-				try {
-					aclWriteList = JSON.aclJSONArrayToList(role.getJSONArray("aclWrite"));
-				} catch (Exception e) {
-
-				}
-
-				try {
-					aclReadList = JSON.aclJSONArrayToList(role.getJSONArray("aclRead"));
-				} catch (Exception e) {
-
-				}
-
-				try {
-					JSONObject jsonObject = role.getJSONObject("aclWrite");
-					aclWriteList = Arrays.asList(jsonObject.getString("entityId"));
-				} catch (Exception e) {
-
-				}
-				try {
-					JSONObject jsonObject = role.getJSONObject("aclRead");
-					aclReadList = Arrays.asList(jsonObject.getString("entityId"));
-				} catch (Exception e) {
-
-				}
-
-				DivrollACL acl = new DivrollACL(aclReadList, aclWriteList);
-				acl.setPublicRead(publicRead);
-				acl.setPublicWrite(publicWrite);
-				setEntityId(entityId);
-				setName(name);
-				setAcl(acl);
-			}
+			HttpResponse<JsonNode> response = getClient().asJson(createRequest());
+			processCreateResponse(response);
 		} catch (UnirestException e) {
 			e.printStackTrace();
 		}
 	}
 
-	public void update() {
-		try {
-			HttpRequestWithBody httpRequestWithBody = Unirest.put(
-					Divroll.getServerUrl() + rolesUrl + "/" + getEntityId());
-			if (Divroll.getMasterKey() != null) {
-				httpRequestWithBody.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
+	public CompletableFuture<DivrollRole> createAsync() {
+		return getClient().asJsonAsync(createRequest()).thenApply(response -> {
+			processCreateResponse(response);
+			return this;
+		});
+	}
+
+	private BaseRequest createRequest() {
+		HttpRequestWithBody httpRequestWithBody = getClient().post(getClient().getServerUrl() + rolesUrl);
+		if (getClient().getMasterKey() != null) {
+			httpRequestWithBody.header(HEADER_MASTER_KEY, getClient().getMasterKey());
+		}
+		if (getClient().getAppId() != null) {
+			httpRequestWithBody.header(HEADER_APP_ID, getClient().getAppId());
+		}
+		if (getClient().getApiKey() != null) {
+			httpRequestWithBody.header(HEADER_API_KEY, getClient().getApiKey());
+		}
+		if (getClient().getNameSpace() != null) {
+			httpRequestWithBody.header(HEADER_NAMESPACE, getClient().getNameSpace());
+		}
+		JSONObject roleObj = new JSONObject();
+		roleObj.put("name", name);
+		roleObj.put("publicRead",
+				(acl != null && acl.getPublicRead() != null) ? acl.getPublicRead() : JSONObject.NULL);
+		roleObj.put("publicWrite",
+				(acl != null && acl.getPublicWrite() != null) ? acl.getPublicWrite() : JSONObject.NULL);
+		JSONObject body = new JSONObject();
+		body.put("role", roleObj);
+
+		JSONArray aclRead = new JSONArray();
+		JSONArray aclWrite = new JSONArray();
+		if (acl != null) {
+			for (String uuid : this.acl.getAclRead()) {
+				JSONObject entityStub = new JSONObject();
+				entityStub.put("entityId", uuid);
+				aclRead.put(entityStub);
+			}
+			for (String uuid : this.acl.getAclWrite()) {
+				JSONObject entityStub = new JSONObject();
+				entityStub.put("entityId", uuid);
+				aclWrite.put(entityStub);
+			}
+		}
+		roleObj.put("aclRead", getAcl() != null ? aclRead : null);
+		roleObj.put("aclWrite", getAcl() != null ? aclWrite : null);
+
+		httpRequestWithBody.header("X-Divroll-ACL-Read", aclRead.toString());
+		httpRequestWithBody.header("X-Divroll-ACL-Write", aclWrite.toString());
+		httpRequestWithBody.header("Content-Type", "application/json");
+
+		return httpRequestWithBody.body(body);
+	}
+
+	private void processCreateResponse(HttpResponse<JsonNode> response) {
+		if (response.getStatus() >= 500) {
+			throw new DivrollException(response.getStatusText());
+		} else if (response.getStatus() == 400) {
+			throw new BadRequestException(response.getStatusText());
+		} else if (response.getStatus() == 404) {
+			throw new DivrollException(response.getStatusText());
+		} else if (response.getStatus() == 401) {
+			throw new UnauthorizedException(response.getStatusText());
+		} else if (response.getStatus() == 401) {
+			throw new DivrollException(response.getStatusText());
+		} else if (response.getStatus() == 201) {
+			JsonNode responseBody = response.getBody();
+			JSONObject bodyObj = responseBody.getObject();
+
+			JSONObject role = bodyObj.getJSONObject("role");
+			String entityId = role.getString("entityId");
+			String name = role.getString("name");
+
+			Boolean publicRead = null;
+			Boolean publicWrite = null;
+
+			try {
+				publicRead = role.getBoolean("publicRead");
+			} catch (Exception e) {
+
 			}
-			if (Divroll.getAppId() != null) {
-				httpRequestWithBody.header(HEADER_APP_ID, Divroll.getAppId());
+
+			try {
+				publicWrite = role.getBoolean("publicWrite");
+			} catch (Exception e) {
+
 			}
-			if (Divroll.getApiKey() != null) {
-				httpRequestWithBody.header(HEADER_API_KEY, Divroll.getApiKey());
+
+			List<String> aclWriteList = null;
+			List<String> aclReadList = null;
+
+			try {
+				aclWriteList = JSON.aclJSONArrayToList(role.getJSONArray("aclWrite"));
+			} catch (Exception e) {
+
 			}
-			if (Divroll.getNameSpace() != null) {
-				httpRequestWithBody.header(HEADER_NAMESPACE, Divroll.getNameSpace());
+
+			try {
+				aclReadList = JSON.aclJSONArrayToList(role.getJSONArray("aclRead"));
+			} catch (Exception e) {
+
 			}
-			JSONObject roleObj = new JSONObject();
-
-			JSONArray aclRead = new JSONArray();
-			JSONArray aclWrite = new JSONArray();
-			if (acl != null) {
-				for (String uuid : this.acl.getAclRead()) {
-					JSONObject entityStub = new JSONObject();
-					entityStub.put("entityId", uuid);
-					aclRead.put(entityStub);
-				}
-				for (String uuid : this.acl.getAclWrite()) {
-					JSONObject entityStub = new JSONObject();
-					entityStub.put("entityId", uuid);
-					aclWrite.put(entityStub);
-				}
+
+			try {
+				JSONObject jsonObject = role.getJSONObject("aclWrite");
+				aclWriteList = Arrays.asList(jsonObject.getString("entityId"));
+			} catch (Exception e) {
+
 			}
-			roleObj.put("aclRead", aclRead);
-			roleObj.put("aclWrite", aclWrite);
-			roleObj.put("name", name);
-			roleObj.put("publicRead",
-					(acl != null && acl.getPublicRead() != null) ? acl.getPublicRead() : JSONObject.NULL);
-			roleObj.put("publicWrite",
-					(acl != null && acl.getPublicWrite() != null) ? acl.getPublicWrite() : JSONObject.NULL);
-			JSONObject body = new JSONObject();
-			body.put("role", roleObj);
-
-			httpRequestWithBody.header("X-Divroll-ACL-Read", aclRead.toString());
-			httpRequestWithBody.header("X-Divroll-ACL-Write", aclWrite.toString());
-			httpRequestWithBody.header("Content-Type", "application/json");
-
-			HttpResponse<JsonNode> response = httpRequestWithBody.body(body).asJson();
-			if (response.getStatus() >= 500) {
-				throw new DivrollException(response.getStatusText());
-			} else if (response.getStatus() == 400) {
-				throw new BadRequestException(response.getStatusText());
-			} else if (response.getStatus() == 401) {
-				throw new UnauthorizedException(response.getStatusText());
-			} else if (response.getStatus() == 404) {
-				throw new DivrollException(response.getStatusText());
-			} else if (response.getStatus() >= 400) {
-				throwException(response);
-			} else if (response.getStatus() == 201) {
-				JsonNode responseBody = response.getBody();
-				JSONObject bodyObj = responseBody.getObject();
-				JSONObject role = bodyObj.getJSONObject("role");
-				String entityId = role.getString("entityId");
-				String name = role.getString("name");
-				Boolean publicRead = role.getBoolean("publicRead");
-				Boolean publicWrite = role.getBoolean("publicWrite");
-
-				List<String> aclWriteList = null;
-				List<String> aclReadList = null;
-
-				try {
-					aclWriteList = JSON.aclJSONArrayToList(role.getJSONArray("aclWrite"));
-				} catch (Exception e) {
-
-				}
-
-				try {
-					aclReadList = JSON.aclJSONArrayToList(role.getJSONArray("aclRead"));
-				} catch (Exception e) {
-
-				}
-
-				try {
-					JSONObject jsonObject = role.getJSONObject("aclWrite");
-					aclWriteList = Arrays.asList(jsonObject.getString("entityId"));
-				} catch (Exception e) {
-
-				}
-				try {
-					JSONObject jsonObject = role.getJSONObject("aclRead");
-					aclReadList = Arrays.asList(jsonObject.getString("entityId"));
-				} catch (Exception e) {
-
-				}
-
-				DivrollACL acl = new DivrollACL(aclReadList, aclWriteList);
-				acl.setPublicRead(publicRead);
-				acl.setPublicWrite(publicWrite);
-				setEntityId(entityId);
-				setName(name);
-				setAcl(acl);
+			try {
+				JSONObject jsonObject = role.getJSONObject("aclRead");
+				aclReadList = Arrays.asList(jsonObject.getString("entityId"));
+			} catch (Exception e) {
+
 			}
+
+			DivrollACL acl = new DivrollACL(aclReadList, aclWriteList);
+			acl.setPublicRead(publicRead);
+			acl.setPublicWrite(publicWrite);
+			setEntityId(entityId);
+			setName(name);
+			setAcl(acl);
+		}
+	}
+
+	public void update() {
+		try {
+			HttpResponse<JsonNode> response = getClient().asJson(updateRequest());
+			processUpdateResponse(response);
 		} catch (UnirestException e) {
 			e.printStackTrace();
 		}
 	}
 
-	public boolean delete() {
-		try {
-			HttpRequestWithBody httpRequestWithBody = Unirest.delete(
-					Divroll.getServerUrl() + rolesUrl + "/" + getEntityId());
-			if (Divroll.getMasterKey() != null) {
-				httpRequestWithBody.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
+	public CompletableFuture<DivrollRole> updateAsync() {
+		return getClient().asJsonAsync(updateRequest()).thenApply(response -> {
+			processUpdateResponse(response);
+			return this;
+		});
+	}
+
+	private BaseRequest updateRequest() {
+		HttpRequestWithBody httpRequestWithBody = getClient().put(
+				getClient().getServerUrl() + rolesUrl + "/" + getEntityId());
+		if (getClient().getMasterKey() != null) {
+			httpRequestWithBody.header(HEADER_MASTER_KEY, getClient().getMasterKey());
+		}
+		if (getClient().getAppId() != null) {
+			httpRequestWithBody.header(HEADER_APP_ID, getClient().getAppId());
+		}
+		if (getClient().getApiKey() != null) {
+			httpRequestWithBody.header(HEADER_API_KEY, getClient().getApiKey());
+		}
+		if (getClient().getNameSpace() != null) {
+			httpRequestWithBody.header(HEADER_NAMESPACE, getClient().getNameSpace());
+		}
+		JSONObject roleObj = new JSONObject();
+
+		JSONArray aclRead = new JSONArray();
+		JSONArray aclWrite = new JSONArray();
+		if (acl != null) {
+			for (String uuid : this.acl.getAclRead()) {
+				JSONObject entityStub = new JSONObject();
+				entityStub.put("entityId", uuid);
+				aclRead.put(entityStub);
 			}
-			if (Divroll.getAppId() != null) {
-				httpRequestWithBody.header(HEADER_APP_ID, Divroll.getAppId());
+			for (String uuid : this.acl.getAclWrite()) {
+				JSONObject entityStub = new JSONObject();
+				entityStub.put("entityId", uuid);
+				aclWrite.put(entityStub);
 			}
-			if (Divroll.getApiKey() != null) {
-				httpRequestWithBody.header(HEADER_API_KEY, Divroll.getApiKey());
+		}
+		roleObj.put("aclRead", aclRead);
+		roleObj.put("aclWrite", aclWrite);
+		roleObj.put("name", name);
+		roleObj.put("publicRead",
+				(acl != null && acl.getPublicRead() != null) ? acl.getPublicRead() : JSONObject.NULL);
+		roleObj.put("publicWrite",
+				(acl != null && acl.getPublicWrite() != null) ? acl.getPublicWrite() : JSONObject.NULL);
+		JSONObject body = new JSONObject();
+		body.put("role", roleObj);
+
+		httpRequestWithBody.header("X-Divroll-ACL-Read", aclRead.toString());
+		httpRequestWithBody.header("X-Divroll-ACL-Write", aclWrite.toString());
+		httpRequestWithBody.header("Content-Type", "application/json");
+
+		return httpRequestWithBody.body(body);
+	}
+
+	private void processUpdateResponse(HttpResponse<JsonNode> response) {
+		if (response.getStatus() >= 500) {
+			throw new DivrollException(response.getStatusText());
+		} else if (response.getStatus() == 400) {
+			throw new BadRequestException(response.getStatusText());
+		} else if (response.getStatus() == 401) {
+			throw new UnauthorizedException(response.getStatusText());
+		} else if (response.getStatus() == 404) {
+			throw new DivrollException(response.getStatusText());
+		} else if (response.getStatus() >= 400) {
+			throwException(response);
+		} else if (response.getStatus() == 201) {
+			JsonNode responseBody = response.getBody();
+			JSONObject bodyObj = responseBody.getObject();
+			JSONObject role = bodyObj.getJSONObject("role");
+			String entityId = role.getString("entityId");
+			String name = role.getString("name");
+			Boolean publicRead = role.getBoolean("publicRead");
+			Boolean publicWrite = role.getBoolean("publicWrite");
+
+			List<String> aclWriteList = null;
+			List<String> aclReadList = null;
+
+			try {
+				aclWriteList = JSON.aclJSONArrayToList(role.getJSONArray("aclWrite"));
+			} catch (Exception e) {
+
 			}
-			if (Divroll.getAuthToken() != null) {
-				httpRequestWithBody.header(HEADER_AUTH_TOKEN, Divroll.getApiKey());
+
+			try {
+				aclReadList = JSON.aclJSONArrayToList(role.getJSONArray("aclRead"));
+			} catch (Exception e) {
+
 			}
-			if (Divroll.getNameSpace() != null) {
-				httpRequestWithBody.header(HEADER_NAMESPACE, Divroll.getNameSpace());
+
+			try {
+				JSONObject jsonObject = role.getJSONObject("aclWrite");
+				aclWriteList = Arrays.asList(jsonObject.getString("entityId"));
+			} catch (Exception e) {
+
 			}
-			HttpResponse<JsonNode> response = httpRequestWithBody.asJson();
-			if (response.getStatus() >= 500) {
-				throwException(response);
-			} else if (response.getStatus() == 401) {
-				throw new UnauthorizedException(response.getStatusText());
-			} else if (response.getStatus() >= 400) {
-				throwException(response);
-			} else if (response.getStatus() == 204) {
-				setEntityId(null);
-				setAcl(null);
-				setName(name);
-				return true;
+			try {
+				JSONObject jsonObject = role.getJSONObject("aclRead");
+				aclReadList = Arrays.asList(jsonObject.getString("entityId"));
+			} catch (Exception e) {
+
 			}
+
+			DivrollACL acl = new DivrollACL(aclReadList, aclWriteList);
+			acl.setPublicRead(publicRead);
+			acl.setPublicWrite(publicWrite);
+			setEntityId(entityId);
+			setName(name);
+			setAcl(acl);
+		}
+	}
+
+	public boolean delete() {
+		try {
+			HttpResponse<JsonNode> response = getClient().asJson(deleteRequest());
+			return processDeleteResponse(response);
 		} catch (UnirestException e) {
 			e.printStackTrace();
 		}
 		return false;
 	}
 
+	public CompletableFuture<Boolean> deleteAsync() {
+		return getClient().asJsonAsync(deleteRequest()).thenApply(response -> processDeleteResponse(response));
+	}
+
+	private BaseRequest deleteRequest() {
+		HttpRequestWithBody httpRequestWithBody = getClient().delete(
+				getClient().getServerUrl() + rolesUrl + "/" + getEntityId());
+		if (getClient().getMasterKey() != null) {
+			httpRequestWithBody.header(HEADER_MASTER_KEY, getClient().getMasterKey());
+		}
+		if (getClient().getAppId() != null) {
+			httpRequestWithBody.header(HEADER_APP_ID, getClient().getAppId());
+		}
+		if (getClient().getApiKey() != null) {
+			httpRequestWithBody.header(HEADER_API_KEY, getClient().getApiKey());
+		}
+		if (getClient().getAuthToken() != null) {
+			httpRequestWithBody.header(HEADER_AUTH_TOKEN, getClient().getApiKey());
+		}
+		if (getClient().getNameSpace() != null) {
+			httpRequestWithBody.header(HEADER_NAMESPACE, getClient().getNameSpace());
+		}
+		return httpRequestWithBody;
+	}
+
+	private boolean processDeleteResponse(HttpResponse<JsonNode> response) {
+		if (response.getStatus() >= 500) {
+			throwException(response);
+		} else if (response.getStatus() == 401) {
+			throw new UnauthorizedException(response.getStatusText());
+		} else if (response.getStatus() >= 400) {
+			throwException(response);
+		} else if (response.getStatus() == 204) {
+			setEntityId(null);
+			setAcl(null);
+			setName(name);
+			return true;
+		}
+		return false;
+	}
+
 	public void retrieve() throws DivrollException {
 		try {
-			GetRequest getRequest = Unirest.get(Divroll.getServerUrl() + rolesUrl + "/" + getEntityId());
+			HttpResponse<JsonNode> response = getClient().asJson(retrieveRequest());
+			processRetrieveResponse(response);
+		} catch (UnirestException e) {
+			e.printStackTrace();
+		}
+	}
+
+	public CompletableFuture<DivrollRole> retrieveAsync() {
+		return getClient().asJsonAsync(retrieveRequest()).thenApply(response -> {
+			processRetrieveResponse(response);
+			return this;
+		});
+	}
+
+	private BaseRequest retrieveRequest() {
+		GetRequest getRequest = getClient().get(getClient().getServerUrl() + rolesUrl + "/" + getEntityId());
+
+		if (getClient().getMasterKey() != null) {
+			getRequest.header(HEADER_MASTER_KEY, getClient().getMasterKey());
+		}
+		if (getClient().getAppId() != null) {
+			getRequest.header(HEADER_APP_ID, getClient().getAppId());
+		}
+		if (getClient().getApiKey() != null) {
+			getRequest.header(HEADER_API_KEY, getClient().getApiKey());
+		}
+		if (getClient().getAuthToken() != null) {
+			getRequest.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
+		}
+		if (getClient().getNameSpace() != null) {
+			getRequest.header(HEADER_NAMESPACE, getClient().getNameSpace());
+		}
+		addConditionalHeaders(getRequest, getEntityId(), null);
+		return getRequest;
+	}
+
+	private void processRetrieveResponse(HttpResponse<JsonNode> response) {
+		if (response.getStatus() >= 500) {
+			throwException(response);
+		} else if (response.getStatus() == 401) {
+			throw new UnauthorizedException(response.getStatusText());
+		} else if (response.getStatus() == 400) {
+			throw new BadRequestException(response.getStatusText());
+		} else if (response.getStatus() >= 400) {
+			throwException(response);
+		} else if (response.getStatus() == 200) {
+			JsonNode body = response.getBody();
+			JSONObject bodyObj = body.getObject();
+			JSONObject role = bodyObj.getJSONObject("role");
+			String entityId = role.getString("entityId");
+			String name = role.getString("name");
+			Boolean publicRead = role.getBoolean("publicRead");
+			Boolean publicWrite = role.getBoolean("publicWrite");
+			setEntityId(entityId);
+			setName(name);
+
+			List<String> aclWriteList = null;
+			List<String> aclReadList = null;
+
+			try {
+				aclWriteList = JSON.aclJSONArrayToList(role.getJSONArray("aclWrite"));
+			} catch (Exception e) {
 
-			if (Divroll.getMasterKey() != null) {
-				getRequest.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
-			}
-			if (Divroll.getAppId() != null) {
-				getRequest.header(HEADER_APP_ID, Divroll.getAppId());
-			}
-			if (Divroll.getApiKey() != null) {
-				getRequest.header(HEADER_API_KEY, Divroll.getApiKey());
 			}
-			if (Divroll.getAuthToken() != null) {
-				getRequest.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
+
+			try {
+				aclReadList = JSON.aclJSONArrayToList(role.getJSONArray("aclRead"));
+			} catch (Exception e) {
+
 			}
-			if (Divroll.getNameSpace() != null) {
-				getRequest.header(HEADER_NAMESPACE, Divroll.getNameSpace());
+
+			try {
+				JSONObject jsonObject = role.getJSONObject("aclWrite");
+				aclWriteList = Arrays.asList(jsonObject.getString("entityId"));
+			} catch (Exception e) {
+
 			}
-			HttpResponse<JsonNode> response = getRequest.asJson();
-
-			if (response.getStatus() >= 500) {
-				throwException(response);
-			} else if (response.getStatus() == 401) {
-				throw new UnauthorizedException(response.getStatusText());
-			} else if (response.getStatus() == 400) {
-				throw new BadRequestException(response.getStatusText());
-			} else if (response.getStatus() >= 400) {
-				throwException(response);
-			} else if (response.getStatus() == 200) {
-				JsonNode body = response.getBody();
-				JSONObject bodyObj = body.getObject();
-				JSONObject role = bodyObj.getJSONObject("role");
-				String entityId = role.getString("entityId");
-				String name = role.getString("name");
-				Boolean publicRead = role.getBoolean("publicRead");
-				Boolean publicWrite = role.getBoolean("publicWrite");
-				setEntityId(entityId);
-				setName(name);
-
-				List<String> aclWriteList = null;
-				List<String> aclReadList = null;
-
-				try {
-					aclWriteList = JSON.aclJSONArrayToList(role.getJSONArray("aclWrite"));
-				} catch (Exception e) {
-
-				}
-
-				try {
-					aclReadList = JSON.aclJSONArrayToList(role.getJSONArray("aclRead"));
-				} catch (Exception e) {
-
-				}
-
-				try {
-					JSONObject jsonObject = role.getJSONObject("aclWrite");
-					aclWriteList = Arrays.asList(jsonObject.getString("entityId"));
-				} catch (Exception e) {
-
-				}
-				try {
-					JSONObject jsonObject = role.getJSONObject("aclRead");
-					aclReadList = Arrays.asList(jsonObject.getString("entityId"));
-				} catch (Exception e) {
-
-				}
-
-				DivrollACL acl = new DivrollACL(aclReadList, aclWriteList);
-				acl.setPublicWrite(publicWrite);
-				acl.setPublicRead(publicRead);
-				setEntityId(entityId);
-				setName(name);
-				setAcl(acl);
+			try {
+				JSONObject jsonObject = role.getJSONObject("aclRead");
+				aclReadList = Arrays.asList(jsonObject.getString("entityId"));
+			} catch (Exception e) {
+
 			}
-		} catch (UnirestException e) {
-			e.printStackTrace();
+
+			DivrollACL acl = new DivrollACL(aclReadList, aclWriteList);
+			acl.setPublicWrite(publicWrite);
+			acl.setPublicRead(publicRead);
+			setEntityId(entityId);
+			setName(name);
+			setAcl(acl);
+			storeValidators(response, getEntityId());
 		}
 	}
 
@@ -24,6 +24,7 @@ package com.divroll.backend.sdk;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -33,8 +34,8 @@ import com.divroll.backend.sdk.exception.UnauthorizedException;
 import com.divroll.backend.sdk.helper.JSON;
 import com.mashape.unirest.http.HttpResponse;
 import com.mashape.unirest.http.JsonNode;
-import com.mashape.unirest.http.Unirest;
 import com.mashape.unirest.http.exceptions.UnirestException;
+import com.mashape.unirest.request.BaseRequest;
 import com.mashape.unirest.request.GetRequest;
 
 public class DivrollRoles extends DivrollBase {
@@ -46,6 +47,13 @@ public class DivrollRoles extends DivrollBase {
 	private Long limit;
 	private Long count;
 
+	public DivrollRoles() {
+	}
+
+	public DivrollRoles(DivrollClient client) {
+		setClient(client);
+	}
+
 	public List<DivrollRole> getRoles() {
 		if (roles == null) {
 			roles = new LinkedList<DivrollRole>();
@@ -75,103 +83,117 @@ public class DivrollRoles extends DivrollBase {
 
 	public void query() {
 		try {
-			GetRequest getRequest = Unirest.get(Divroll.getServerUrl() + rolesUrl);
-
-			if (Divroll.getMasterKey() != null) {
-				getRequest.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
-			}
-			if (Divroll.getAppId() != null) {
-				getRequest.header(HEADER_APP_ID, Divroll.getAppId());
-			}
-			if (Divroll.getApiKey() != null) {
-				getRequest.header(HEADER_API_KEY, Divroll.getApiKey());
-			}
-			if (Divroll.getAuthToken() != null) {
-				getRequest.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
-			}
-			if (Divroll.getNameSpace() != null) {
-				getRequest.header(HEADER_NAMESPACE, Divroll.getNameSpace());
-			}
-
-			if (skip != null) {
-				getRequest.queryString("skip", String.valueOf(getSkip()));
-			}
-			if (limit != null) {
-				getRequest.queryString("limit", String.valueOf(getLimit()));
-			}
-
-			if (count != null) {
-				getRequest.queryString("count", String.valueOf(count));
-			}
+			HttpResponse<JsonNode> response = getClient().asJson(queryRequest());
+			processQueryResponse(response);
+		} catch (UnirestException e) {
+			e.printStackTrace();
+		}
+	}
 
-			HttpResponse<JsonNode> response = getRequest.asJson();
+	public CompletableFuture<DivrollRoles> queryAsync() {
+		return getClient().asJsonAsync(queryRequest()).thenApply(response -> {
+			processQueryResponse(response);
+			return this;
+		});
+	}
 
-			if (response.getStatus() >= 500) {
-				throwException(response);
-			} else if (response.getStatus() == 401) {
-				throw new UnauthorizedException(response.getStatusText());
-			} else if (response.getStatus() == 400) {
-				throw new BadRequestException(response.getStatusText());
-			} else if (response.getStatus() >= 400) {
-				throwException(response);
-			} else if (response.getStatus() == 200) {
+	private BaseRequest queryRequest() {
+		GetRequest getRequest = getClient().get(getClient().getServerUrl() + rolesUrl);
 
-				getRoles().clear();
+		if (getClient().getMasterKey() != null) {
+			getRequest.header(HEADER_MASTER_KEY, getClient().getMasterKey());
+		}
+		if (getClient().getAppId() != null) {
+			getRequest.header(HEADER_APP_ID, getClient().getAppId());
+		}
+		if (getClient().getApiKey() != null) {
+			getRequest.header(HEADER_API_KEY, getClient().getApiKey());
+		}
+		if (getClient().getAuthToken() != null) {
+			getRequest.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
+		}
+		if (getClient().getNameSpace() != null) {
+			getRequest.header(HEADER_NAMESPACE, getClient().getNameSpace());
+		}
 
-				JsonNode body = response.getBody();
-				JSONObject bodyObj = body.getObject();
-				JSONObject roles = bodyObj.getJSONObject("roles");
-				JSONArray results = roles.getJSONArray("results");
-				for (int i = 0; i < results.length(); i++) {
-					JSONObject roleObj = results.getJSONObject(i);
-					String entityId = roleObj.getString("entityId");
-					String name = roleObj.getString("name");
-					Boolean publicRead = roleObj.getBoolean("publicRead");
-					Boolean publicWrite = roleObj.getBoolean("publicWrite");
+		if (skip != null) {
+			getRequest.queryString("skip", String.valueOf(getSkip()));
+		}
+		if (limit != null) {
+			getRequest.queryString("limit", String.valueOf(getLimit()));
+		}
 
-					List<String> aclWriteList = null;
-					List<String> aclReadList = null;
+		if (count != null) {
+			getRequest.queryString("count", String.valueOf(count));
+		}
 
-					try {
-						aclWriteList = JSON.aclJSONArrayToList(roleObj.getJSONArray("aclWrite"));
-					} catch (Exception e) {
+		return getRequest;
+	}
 
-					}
+	private void processQueryResponse(HttpResponse<JsonNode> response) {
+		if (response.getStatus() >= 500) {
+			throwException(response);
+		} else if (response.getStatus() == 401) {
+			throw new UnauthorizedException(response.getStatusText());
+		} else if (response.getStatus() == 400) {
+			throw new BadRequestException(response.getStatusText());
+		} else if (response.getStatus() >= 400) {
+			throwException(response);
+		} else if (response.getStatus() == 200) {
+
+			getRoles().clear();
+
+			JsonNode body = response.getBody();
+			JSONObject bodyObj = body.getObject();
+			JSONObject roles = bodyObj.getJSONObject("roles");
+			JSONArray results = roles.getJSONArray("results");
+			for (int i = 0; i < results.length(); i++) {
+				JSONObject roleObj = results.getJSONObject(i);
+				String entityId = roleObj.getString("entityId");
+				String name = roleObj.getString("name");
+				Boolean publicRead = roleObj.getBoolean("publicRead");
+				Boolean publicWrite = roleObj.getBoolean("publicWrite");
+
+				List<String> aclWriteList = null;
+				List<String> aclReadList = null;
+
+				try {
+					aclWriteList = JSON.aclJSONArrayToList(roleObj.getJSONArray("aclWrite"));
+				} catch (Exception e) {
 
-					try {
-						aclReadList = JSON.aclJSONArrayToList(roleObj.getJSONArray("aclRead"));
-					} catch (Exception e) {
+				}
 
-					}
+				try {
+					aclReadList = JSON.aclJSONArrayToList(roleObj.getJSONArray("aclRead"));
+				} catch (Exception e) {
 
-					try {
-						aclWriteList = Arrays.asList(roleObj.getString("aclWrite"));
-					} catch (Exception e) {
+				}
 
-					}
+				try {
+					aclWriteList = Arrays.asList(roleObj.getString("aclWrite"));
+				} catch (Exception e) {
 
-					try {
-						aclReadList = Arrays.asList(roleObj.getString("aclRead"));
-					} catch (Exception e) {
+				}
 
-					}
+				try {
+					aclReadList = Arrays.asList(roleObj.getString("aclRead"));
+				} catch (Exception e) {
 
-					DivrollACL acl = new DivrollACL(aclReadList, aclWriteList);
-					acl.setPublicWrite(publicWrite);
-					acl.setPublicRead(publicRead);
+				}
 
-					DivrollRole role = new DivrollRole();
-					role.setEntityId(entityId);
-					role.setName(name);
-					role.setAcl(acl);
+				DivrollACL acl = new DivrollACL(aclReadList, aclWriteList);
+				acl.setPublicWrite(publicWrite);
+				acl.setPublicRead(publicRead);
 
-					getRoles().add(role);
-				}
-				//
+				DivrollRole role = new DivrollRole(getClient());
+				role.setEntityId(entityId);
+				role.setName(name);
+				role.setAcl(acl);
 
+				getRoles().add(role);
 			}
-		} catch (UnirestException e) {
-			e.printStackTrace();
+			//
+
 		}
 	}
 }
@@ -0,0 +1,56 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Future;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+
+/**
+ * Sends the HTTP requests {@link DivrollClient} prepares. Every resource class
+ * goes through the client, so the transport is the one place the SDK touches
+ * the network. Retries, hedging, circuit breaking, rate limiting, coalescing
+ * and content decoding all happen in the client, above the transport.
+ *
+ * @see ApacheDivrollTransport
+ * @see JdkDivrollTransport
+ */
+public interface DivrollTransport extends Closeable {
+
+	/**
+	 * Sends the request and returns once the response headers arrived. The
+	 * caller reads the body and must close the response.
+	 */
+	CloseableHttpResponse execute(HttpUriRequest request) throws IOException;
+
+	/**
+	 * Sends the request without blocking. The response handed to the callback
+	 * has its body fully buffered. Cancelling the returned future aborts the
+	 * request.
+	 */
+	Future<HttpResponse> execute(HttpUriRequest request, FutureCallback<HttpResponse> callback);
+}
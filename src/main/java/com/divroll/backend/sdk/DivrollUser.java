@@ -25,6 +25,7 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -36,8 +37,8 @@ import com.divroll.backend.sdk.exception.UnauthorizedException;
 import com.divroll.backend.sdk.helper.JSON;
 import com.mashape.unirest.http.HttpResponse;
 import com.mashape.unirest.http.JsonNode;
-import com.mashape.unirest.http.Unirest;
 import com.mashape.unirest.http.exceptions.UnirestException;
+import com.mashape.unirest.request.BaseRequest;
 import com.mashape.unirest.request.GetRequest;
 import com.mashape.unirest.request.HttpRequestWithBody;
 
@@ -61,280 +62,317 @@ public class DivrollUser extends DivrollBase {
 	private String linkName;
 	private String linkFrom;
 
+	public DivrollUser() {
+	}
+
+	public DivrollUser(DivrollClient client) {
+		setClient(client);
+	}
+
 	public void create(String username, String password) {
 		try {
+			HttpResponse<JsonNode> response = getClient().asJson(createRequest(username, password));
+			processCreateResponse(response);
+		} catch (UnirestException e) {
+			e.printStackTrace();
+		}
+	}
 
-			setUsername(username);
-			setPassword(password);
+	public CompletableFuture<DivrollUser> createAsync(String username, String password) {
+		return getClient().asJsonAsync(createRequest(username, password)).thenApply(response -> {
+			processCreateResponse(response);
+			return this;
+		});
+	}
 
-			HttpRequestWithBody httpRequestWithBody = Unirest.post(Divroll.getServerUrl() + usersUrl);
-			if (Divroll.getMasterKey() != null) {
-				httpRequestWithBody.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
-			}
-			if (Divroll.getAppId() != null) {
-				httpRequestWithBody.header(HEADER_APP_ID, Divroll.getAppId());
-			}
-			if (Divroll.getApiKey() != null) {
-				httpRequestWithBody.header(HEADER_API_KEY, Divroll.getApiKey());
-			}
-			if (Divroll.getAuthToken() != null) {
-				httpRequestWithBody.header("X-Divroll-Auth-Key", Divroll.getAuthToken());
-			}
-			if (Divroll.getNameSpace() != null) {
-				httpRequestWithBody.header(HEADER_NAMESPACE, Divroll.getNameSpace());
-			}
-			JSONObject userObj = new JSONObject();
-			userObj.put("username", username);
-			userObj.put("password", password);
-			userObj.put("publicRead", (this.acl != null && this.acl.getPublicRead() != null) ? this.acl.getPublicRead()
-					: JSONObject.NULL);
-			userObj.put("publicWrite",
-					(this.acl != null && this.acl.getPublicWrite() != null) ? this.acl.getPublicWrite()
-							: JSONObject.NULL);
-			JSONObject body = new JSONObject();
+	private BaseRequest createRequest(String username, String password) {
 
-			JSONArray roles = new JSONArray();
-			for (DivrollRole role : getRoles()) {
-				JSONObject roleObj = new JSONObject();
-				roleObj.put("entityId", role.getEntityId());
-				roles.put(roleObj);
-			}
-			userObj.put("roles", roles);
+		setUsername(username);
+		setPassword(password);
 
-			body.put("user", userObj);
-			httpRequestWithBody.body(body);
-			JSONArray aclRead = new JSONArray();
-			JSONArray aclWrite = new JSONArray();
-			if (this.acl != null) {
-				for (String uuid : this.acl.getAclRead()) {
-					JSONObject entityStub = new JSONObject();
-					entityStub.put("entityId", uuid);
-					aclRead.put(entityStub);
-				}
-				for (String uuid : this.acl.getAclWrite()) {
-					JSONObject entityStub = new JSONObject();
-					entityStub.put("entityId", uuid);
-					aclWrite.put(entityStub);
-				}
+		HttpRequestWithBody httpRequestWithBody = getClient().post(getClient().getServerUrl() + usersUrl);
+		if (getClient().getMasterKey() != null) {
+			httpRequestWithBody.header(HEADER_MASTER_KEY, getClient().getMasterKey());
+		}
+		if (getClient().getAppId() != null) {
+			httpRequestWithBody.header(HEADER_APP_ID, getClient().getAppId());
+		}
+		if (getClient().getApiKey() != null) {
+			httpRequestWithBody.header(HEADER_API_KEY, getClient().getApiKey());
+		}
+		if (getClient().getAuthToken() != null) {
+			httpRequestWithBody.header("X-Divroll-Auth-Key", getClient().getAuthToken());
+		}
+		if (getClient().getNameSpace() != null) {
+			httpRequestWithBody.header(HEADER_NAMESPACE, getClient().getNameSpace());
+		}
+		JSONObject userObj = new JSONObject();
+		userObj.put("username", username);
+		userObj.put("password", password);
+		userObj.put("publicRead", (this.acl != null && this.acl.getPublicRead() != null) ? this.acl.getPublicRead()
+				: JSONObject.NULL);
+		userObj.put("publicWrite",
+				(this.acl != null && this.acl.getPublicWrite() != null) ? this.acl.getPublicWrite()
+						: JSONObject.NULL);
+		JSONObject body = new JSONObject();
+
+		JSONArray roles = new JSONArray();
+		for (DivrollRole role : getRoles()) {
+			JSONObject roleObj = new JSONObject();
+			roleObj.put("entityId", role.getEntityId());
+			roles.put(roleObj);
+		}
+		userObj.put("roles", roles);
+
+		body.put("user", userObj);
+		httpRequestWithBody.body(body);
+		JSONArray aclRead = new JSONArray();
+		JSONArray aclWrite = new JSONArray();
+		if (this.acl != null) {
+			for (String uuid : this.acl.getAclRead()) {
+				JSONObject entityStub = new JSONObject();
+				entityStub.put("entityId", uuid);
+				aclRead.put(entityStub);
+			}
+			for (String uuid : this.acl.getAclWrite()) {
+				JSONObject entityStub = new JSONObject();
+				entityStub.put("entityId", uuid);
+				aclWrite.put(entityStub);
 			}
+		}
 
-			httpRequestWithBody.header("X-Divroll-ACL-Read", aclRead.toString());
-			httpRequestWithBody.header("X-Divroll-ACL-Write", aclWrite.toString());
-			httpRequestWithBody.header("Content-Type", "application/json");
+		httpRequestWithBody.header("X-Divroll-ACL-Read", aclRead.toString());
+		httpRequestWithBody.header("X-Divroll-ACL-Write", aclWrite.toString());
+		httpRequestWithBody.header("Content-Type", "application/json");
 
-			HttpResponse<JsonNode> response = httpRequestWithBody.asJson();
+		return httpRequestWithBody;
+	}
 
-			if (response.getStatus() >= 500) {
-				throwException(response);
-			} else if (response.getStatus() == 401) {
-				throw new UnauthorizedException(response.getStatusText());
-			} else if (response.getStatus() == 400) {
-				throw new BadRequestException(response.getStatusText());
-			} else if (response.getStatus() == 201) {
-				JsonNode responseBody = response.getBody();
-				JSONObject bodyObj = responseBody.getObject();
-				JSONObject responseUser = bodyObj.getJSONObject("user");
-				String entityId = responseUser.getString("entityId");
-				String authToken = responseUser.getString("authToken");
-				setEntityId(entityId);
-				setAuthToken(authToken);
+	private void processCreateResponse(HttpResponse<JsonNode> response) {
+		if (response.getStatus() >= 500) {
+			throwException(response);
+		} else if (response.getStatus() == 401) {
+			throw new UnauthorizedException(response.getStatusText());
+		} else if (response.getStatus() == 400) {
+			throw new BadRequestException(response.getStatusText());
+		} else if (response.getStatus() == 201) {
+			JsonNode responseBody = response.getBody();
+			JSONObject bodyObj = responseBody.getObject();
+			JSONObject responseUser = bodyObj.getJSONObject("user");
+			String entityId = responseUser.getString("entityId");
+			String authToken = responseUser.getString("authToken");
+			setEntityId(entityId);
+			setAuthToken(authToken);
 
-				List<String> aclWriteList = null;
-				List<String> aclReadList = null;
+			List<String> aclWriteList = null;
+			List<String> aclReadList = null;
 
-				Boolean publicRead = null;
-				Boolean publicWrite = null;
+			Boolean publicRead = null;
+			Boolean publicWrite = null;
 
-				try {
-					publicRead = responseUser.get("publicRead") != null ? responseUser.getBoolean("publicRead") : null;
-				} catch (Exception e) {
+			try {
+				publicRead = responseUser.get("publicRead") != null ? responseUser.getBoolean("publicRead") : null;
+			} catch (Exception e) {
 
-				}
+			}
 
-				try {
-					publicWrite = responseUser.get("publicWrite") != null ? responseUser.getBoolean("publicWrite")
-							: null;
-				} catch (Exception e) {
+			try {
+				publicWrite = responseUser.get("publicWrite") != null ? responseUser.getBoolean("publicWrite")
+						: null;
+			} catch (Exception e) {
 
-				}
+			}
 
-				try {
-					aclWriteList = JSON.aclJSONArrayToList(responseUser.getJSONArray("aclWrite"));
-				} catch (Exception e) {
+			try {
+				aclWriteList = JSON.aclJSONArrayToList(responseUser.getJSONArray("aclWrite"));
+			} catch (Exception e) {
 
-				}
+			}
 
-				try {
-					aclReadList = JSON.aclJSONArrayToList(responseUser.getJSONArray("aclRead"));
-				} catch (Exception e) {
+			try {
+				aclReadList = JSON.aclJSONArrayToList(responseUser.getJSONArray("aclRead"));
+			} catch (Exception e) {
 
-				}
+			}
 
-				try {
-					JSONObject jsonObject = responseUser.getJSONObject("aclWrite");
-					aclWriteList = Arrays.asList(jsonObject.getString("entityId"));
-				} catch (Exception e) {
+			try {
+				JSONObject jsonObject = responseUser.getJSONObject("aclWrite");
+				aclWriteList = Arrays.asList(jsonObject.getString("entityId"));
+			} catch (Exception e) {
 
-				}
-				try {
-					JSONObject jsonObject = responseUser.getJSONObject("aclRead");
-					aclReadList = Arrays.asList(jsonObject.getString("entityId"));
-				} catch (Exception e) {
+			}
+			try {
+				JSONObject jsonObject = responseUser.getJSONObject("aclRead");
+				aclReadList = Arrays.asList(jsonObject.getString("entityId"));
+			} catch (Exception e) {
 
-				}
+			}
 
-				List<DivrollRole> divrollRoles = null;
-				try {
-					Object rolesObj = responseUser.get("roles");
-					if (roles instanceof JSONArray) {
-						divrollRoles = new LinkedList<DivrollRole>();
-						JSONArray jsonArray = roles;
-						for (int i = 0; i < jsonArray.length(); i++) {
-							JSONObject jsonObject = jsonArray.getJSONObject(i);
-							String roleId = jsonObject.getString("entityId");
-							DivrollRole divrollRole = new DivrollRole();
-							divrollRole.setEntityId(roleId);
-							divrollRoles.add(divrollRole);
-						}
-					} else if (rolesObj instanceof JSONObject) {
-						divrollRoles = new LinkedList<DivrollRole>();
-						JSONObject jsonObject = (JSONObject) rolesObj;
+			List<DivrollRole> divrollRoles = getRoles();
+			try {
+				Object rolesObj = responseUser.get("roles");
+				if (rolesObj instanceof JSONArray) {
+					divrollRoles = new LinkedList<DivrollRole>();
+					JSONArray jsonArray = (JSONArray) rolesObj;
+					for (int i = 0; i < jsonArray.length(); i++) {
+						JSONObject jsonObject = jsonArray.getJSONObject(i);
 						String roleId = jsonObject.getString("entityId");
-						DivrollRole divrollRole = new DivrollRole();
+						DivrollRole divrollRole = new DivrollRole(getClient());
 						divrollRole.setEntityId(roleId);
 						divrollRoles.add(divrollRole);
 					}
-				} catch (Exception e) {
-					// do nothing
+				} else if (rolesObj instanceof JSONObject) {
+					divrollRoles = new LinkedList<DivrollRole>();
+					JSONObject jsonObject = (JSONObject) rolesObj;
+					String roleId = jsonObject.getString("entityId");
+					DivrollRole divrollRole = new DivrollRole(getClient());
+					divrollRole.setEntityId(roleId);
+					divrollRoles.add(divrollRole);
 				}
-
-				DivrollACL acl = new DivrollACL(aclReadList, aclWriteList);
-				acl.setPublicWrite(publicWrite);
-				acl.setPublicRead(publicRead);
-				setAcl(acl);
-				setRoles(divrollRoles);
+			} catch (Exception e) {
+				// do nothing
 			}
-		} catch (UnirestException e) {
-			e.printStackTrace();
+
+			DivrollACL acl = new DivrollACL(aclReadList, aclWriteList);
+			acl.setPublicWrite(publicWrite);
+			acl.setPublicRead(publicRead);
+			setAcl(acl);
+			setRoles(divrollRoles);
 		}
 	}
 
 	public void retrieve() {
 		try {
-			GetRequest getRequest = Unirest.get(Divroll.getServerUrl() + usersUrl + "/" + getEntityId());
+			HttpResponse<JsonNode> response = getClient().asJson(retrieveRequest());
+			processRetrieveResponse(response);
+		} catch (UnirestException e) {
+			e.printStackTrace();
+		}
+	}
 
-			if (Divroll.getMasterKey() != null) {
-				getRequest.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
-			}
-			if (Divroll.getAppId() != null) {
-				getRequest.header(HEADER_APP_ID, Divroll.getAppId());
-			}
-			if (Divroll.getApiKey() != null) {
-				getRequest.header(HEADER_API_KEY, Divroll.getApiKey());
-			}
-			if (Divroll.getAuthToken() != null) {
-				getRequest.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
-			}
-			if (Divroll.getNameSpace() != null) {
-				getRequest.header(HEADER_NAMESPACE, Divroll.getNameSpace());
-			}
-			HttpResponse<JsonNode> response = getRequest.asJson();
+	public CompletableFuture<DivrollUser> retrieveAsync() {
+		return getClient().asJsonAsync(retrieveRequest()).thenApply(response -> {
+			processRetrieveResponse(response);
+			return this;
+		});
+	}
 
-			if (response.getStatus() >= 500) {
-				throwException(response);
-			} else if (response.getStatus() == 404) {
-				throw new NotFoundRequestException(response.getStatusText());
-			} else if (response.getStatus() == 401) {
-				throw new UnauthorizedException(response.getStatusText());
-			} else if (response.getStatus() == 400) {
-				throw new BadRequestException(response.getStatusText());
-			} else if (response.getStatus() >= 400) {
-				throwException(response);
-			} else if (response.getStatus() == 200) {
-				JsonNode body = response.getBody();
-				JSONObject bodyObj = body.getObject();
-				JSONObject userJsonObj = bodyObj.getJSONObject("user");
-				String entityId = userJsonObj.getString("entityId");
-				String username = userJsonObj.getString("username");
+	private BaseRequest retrieveRequest() {
+		GetRequest getRequest = getClient().get(getClient().getServerUrl() + usersUrl + "/" + getEntityId());
 
-				Boolean publicRead = null;
-				Boolean publicWrite = null;
+		if (getClient().getMasterKey() != null) {
+			getRequest.header(HEADER_MASTER_KEY, getClient().getMasterKey());
+		}
+		if (getClient().getAppId() != null) {
+			getRequest.header(HEADER_APP_ID, getClient().getAppId());
+		}
+		if (getClient().getApiKey() != null) {
+			getRequest.header(HEADER_API_KEY, getClient().getApiKey());
+		}
+		if (getClient().getAuthToken() != null) {
+			getRequest.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
+		}
+		if (getClient().getNameSpace() != null) {
+			getRequest.header(HEADER_NAMESPACE, getClient().getNameSpace());
+		}
+		addConditionalHeaders(getRequest, getEntityId(), getDateUpdated());
+		return getRequest;
+	}
 
-				try {
-					publicRead = userJsonObj.get("publicRead") != null ? userJsonObj.getBoolean("publicRead") : null;
-				} catch (Exception e) {
+	private void processRetrieveResponse(HttpResponse<JsonNode> response) {
+		if (response.getStatus() >= 500) {
+			throwException(response);
+		} else if (response.getStatus() == 404) {
+			throw new NotFoundRequestException(response.getStatusText());
+		} else if (response.getStatus() == 401) {
+			throw new UnauthorizedException(response.getStatusText());
+		} else if (response.getStatus() == 400) {
+			throw new BadRequestException(response.getStatusText());
+		} else if (response.getStatus() >= 400) {
+			throwException(response);
+		} else if (response.getStatus() == 200) {
+			JsonNode body = response.getBody();
+			JSONObject bodyObj = body.getObject();
+			JSONObject userJsonObj = bodyObj.getJSONObject("user");
+			String entityId = userJsonObj.getString("entityId");
+			String username = userJsonObj.getString("username");
 
-				}
+			Boolean publicRead = null;
+			Boolean publicWrite = null;
 
-				try {
-					publicWrite = userJsonObj.get("publicWrite") != null ? userJsonObj.getBoolean("publicWrite") : null;
-				} catch (Exception e) {
+			try {
+				publicRead = userJsonObj.get("publicRead") != null ? userJsonObj.getBoolean("publicRead") : null;
+			} catch (Exception e) {
 
-				}
+			}
 
-				List<String> aclWriteList = null;
-				List<String> aclReadList = null;
+			try {
+				publicWrite = userJsonObj.get("publicWrite") != null ? userJsonObj.getBoolean("publicWrite") : null;
+			} catch (Exception e) {
 
-				try {
-					aclWriteList = JSON.aclJSONArrayToList(userJsonObj.getJSONArray("aclWrite"));
-				} catch (Exception e) {
+			}
 
-				}
+			List<String> aclWriteList = null;
+			List<String> aclReadList = null;
 
-				try {
-					aclReadList = JSON.aclJSONArrayToList(userJsonObj.getJSONArray("aclRead"));
-				} catch (Exception e) {
+			try {
+				aclWriteList = JSON.aclJSONArrayToList(userJsonObj.getJSONArray("aclWrite"));
+			} catch (Exception e) {
 
-				}
+			}
 
-				try {
-					aclWriteList = Arrays.asList(userJsonObj.getString("aclWrite"));
-				} catch (Exception e) {
+			try {
+				aclReadList = JSON.aclJSONArrayToList(userJsonObj.getJSONArray("aclRead"));
+			} catch (Exception e) {
 
-				}
+			}
 
-				try {
-					aclReadList = Arrays.asList(userJsonObj.getString("aclRead"));
-				} catch (Exception e) {
+			try {
+				aclWriteList = Arrays.asList(userJsonObj.getString("aclWrite"));
+			} catch (Exception e) {
 
-				}
+			}
 
-				List<DivrollRole> divrollRoles = null;
-				try {
-					Object roles = userJsonObj.get("roles");
-					if (roles instanceof JSONArray) {
-						divrollRoles = new LinkedList<DivrollRole>();
-						JSONArray jsonArray = (JSONArray) roles;
-						for (int i = 0; i < jsonArray.length(); i++) {
-							JSONObject jsonObject = jsonArray.getJSONObject(i);
-							String roleId = jsonObject.getString("entityId");
-							DivrollRole divrollRole = new DivrollRole();
-							divrollRole.setEntityId(roleId);
-							divrollRoles.add(divrollRole);
-						}
-					} else if (roles instanceof JSONObject) {
-						divrollRoles = new LinkedList<DivrollRole>();
-						JSONObject jsonObject = (JSONObject) roles;
+			try {
+				aclReadList = Arrays.asList(userJsonObj.getString("aclRead"));
+			} catch (Exception e) {
+
+			}
+
+			List<DivrollRole> divrollRoles = null;
+			try {
+				Object roles = userJsonObj.get("roles");
+				if (roles instanceof JSONArray) {
+					divrollRoles = new LinkedList<DivrollRole>();
+					JSONArray jsonArray = (JSONArray) roles;
+					for (int i = 0; i < jsonArray.length(); i++) {
+						JSONObject jsonObject = jsonArray.getJSONObject(i);
 						String roleId = jsonObject.getString("entityId");
-						DivrollRole divrollRole = new DivrollRole();
+						DivrollRole divrollRole = new DivrollRole(getClient());
 						divrollRole.setEntityId(roleId);
 						divrollRoles.add(divrollRole);
 					}
-				} catch (Exception e) {
-					// do nothing
+				} else if (roles instanceof JSONObject) {
+					divrollRoles = new LinkedList<DivrollRole>();
+					JSONObject jsonObject = (JSONObject) roles;
+					String roleId = jsonObject.getString("entityId");
+					DivrollRole divrollRole = new DivrollRole(getClient());
+					divrollRole.setEntityId(roleId);
+					divrollRoles.add(divrollRole);
 				}
+			} catch (Exception e) {
+				// do nothing
+			}
 
-				DivrollACL acl = new DivrollACL(aclReadList, aclWriteList);
-				acl.setPublicWrite(publicWrite);
-				acl.setPublicRead(publicRead);
+			DivrollACL acl = new DivrollACL(aclReadList, aclWriteList);
+			acl.setPublicWrite(publicWrite);
+			acl.setPublicRead(publicRead);
 
-				setEntityId(entityId);
-				setUsername(username);
-				setAcl(acl);
-				setRoles(divrollRoles);
-			}
-		} catch (UnirestException e) {
-			e.printStackTrace();
+			setEntityId(entityId);
+			setUsername(username);
+			setAcl(acl);
+			setRoles(divrollRoles);
+			storeValidators(response, getEntityId());
 		}
 	}
 
@@ -344,26 +382,26 @@ public class DivrollUser extends DivrollBase {
 			throw new DivrollException("Save the entity first before getting links");
 		}
 		try {
-			String completeUrl = Divroll.getServerUrl() + usersUrl + "/" + getEntityId() + "/links/" + linkName;
+			String completeUrl = getClient().getServerUrl() + usersUrl + "/" + getEntityId() + "/links/" + linkName;
 
-			GetRequest getRequest = Unirest.get(completeUrl);
+			GetRequest getRequest = getClient().get(completeUrl);
 
-			if (Divroll.getMasterKey() != null) {
-				getRequest.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
+			if (getClient().getMasterKey() != null) {
+				getRequest.header(HEADER_MASTER_KEY, getClient().getMasterKey());
 			}
-			if (Divroll.getAppId() != null) {
-				getRequest.header(HEADER_APP_ID, Divroll.getAppId());
+			if (getClient().getAppId() != null) {
+				getRequest.header(HEADER_APP_ID, getClient().getAppId());
 			}
-			if (Divroll.getApiKey() != null) {
-				getRequest.header(HEADER_API_KEY, Divroll.getApiKey());
+			if (getClient().getApiKey() != null) {
+				getRequest.header(HEADER_API_KEY, getClient().getApiKey());
 			}
-			if (Divroll.getAuthToken() != null) {
-				getRequest.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
+			if (getClient().getAuthToken() != null) {
+				getRequest.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
 			}
-			if (Divroll.getNameSpace() != null) {
-				getRequest.header(HEADER_NAMESPACE, Divroll.getNameSpace());
+			if (getClient().getNameSpace() != null) {
+				getRequest.header(HEADER_NAMESPACE, getClient().getNameSpace());
 			}
-			HttpResponse<JsonNode> response = getRequest.asJson();
+			HttpResponse<JsonNode> response = getClient().asJson(getRequest);
 
 			if (response.getStatus() >= 500) {
 				throwException(response);
@@ -381,7 +419,7 @@ public class DivrollUser extends DivrollBase {
 				JSONArray results = entitiesJSONObject.getJSONArray("results");
 				for (int i = 0; i < results.length(); i++) {
 					JSONObject jsonObject = results.getJSONObject(i);
-					DivrollEntity divrollEntity = new DivrollEntity(jsonObject.getString("entityType"));
+					DivrollEntity divrollEntity = new DivrollEntity(getClient(), jsonObject.getString("entityType"));
 					JSONObject entityJSONObject = results.getJSONObject(i);
 					Iterator<String> it = entityJSONObject.keySet().iterator();
 					while (it.hasNext()) {
@@ -444,7 +482,7 @@ public class DivrollUser extends DivrollBase {
 	public List<DivrollEntity> retrieveLinked(List<String> linkNames) {
 		List<DivrollEntity> divrollEntities = new LinkedList<>();
 		try {
-			GetRequest getRequest = Unirest.get(Divroll.getServerUrl() + usersUrl + "/" + getEntityId());
+			GetRequest getRequest = getClient().get(getClient().getServerUrl() + usersUrl + "/" + getEntityId());
 
 			JSONArray linkNameArray = new JSONArray();
 			for (String linkName : linkNames) {
@@ -452,22 +490,22 @@ public class DivrollUser extends DivrollBase {
 			}
 			getRequest.queryString("include", linkNameArray.toString());
 
-			if (Divroll.getMasterKey() != null) {
-				getRequest.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
+			if (getClient().getMasterKey() != null) {
+				getRequest.header(HEADER_MASTER_KEY, getClient().getMasterKey());
 			}
-			if (Divroll.getAppId() != null) {
-				getRequest.header(HEADER_APP_ID, Divroll.getAppId());
+			if (getClient().getAppId() != null) {
+				getRequest.header(HEADER_APP_ID, getClient().getAppId());
 			}
-			if (Divroll.getApiKey() != null) {
-				getRequest.header(HEADER_API_KEY, Divroll.getApiKey());
+			if (getClient().getApiKey() != null) {
+				getRequest.header(HEADER_API_KEY, getClient().getApiKey());
 			}
-			if (Divroll.getAuthToken() != null) {
-				getRequest.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
+			if (getClient().getAuthToken() != null) {
+				getRequest.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
 			}
-			if (Divroll.getNameSpace() != null) {
-				getRequest.header(HEADER_NAMESPACE, Divroll.getNameSpace());
+			if (getClient().getNameSpace() != null) {
+				getRequest.header(HEADER_NAMESPACE, getClient().getNameSpace());
 			}
-			HttpResponse<JsonNode> response = getRequest.asJson();
+			HttpResponse<JsonNode> response = getClient().asJson(getRequest);
 
 			if (response.getStatus() >= 500) {
 				throwException(response);
@@ -540,7 +578,7 @@ public class DivrollUser extends DivrollBase {
 						for (int i = 0; i < jsonArray.length(); i++) {
 							JSONObject jsonObject = jsonArray.getJSONObject(i);
 							String roleId = jsonObject.getString("entityId");
-							DivrollRole divrollRole = new DivrollRole();
+							DivrollRole divrollRole = new DivrollRole(getClient());
 							divrollRole.setEntityId(roleId);
 							divrollRoles.add(divrollRole);
 						}
@@ -548,7 +586,7 @@ public class DivrollUser extends DivrollBase {
 						divrollRoles = new LinkedList<DivrollRole>();
 						JSONObject jsonObject = (JSONObject) roles;
 						String roleId = jsonObject.getString("entityId");
-						DivrollRole divrollRole = new DivrollRole();
+						DivrollRole divrollRole = new DivrollRole(getClient());
 						divrollRole.setEntityId(roleId);
 						divrollRoles.add(divrollRole);
 					}
@@ -577,181 +615,195 @@ public class DivrollUser extends DivrollBase {
 
 	public void update(String newUsername, String newPassword) {
 		try {
+			HttpResponse<JsonNode> response = getClient().asJson(updateRequest(newUsername, newPassword));
+			processUpdateResponse(response, newUsername);
+		} catch (UnirestException e) {
+			e.printStackTrace();
+		}
+	}
 
-			String completeUrl = Divroll.getServerUrl() + usersUrl + "/" + getEntityId();
+	public CompletableFuture<DivrollUser> updateAsync(String newUsername, String newPassword) {
+		return getClient().asJsonAsync(updateRequest(newUsername, newPassword)).thenApply(response -> {
+			processUpdateResponse(response, newUsername);
+			return this;
+		});
+	}
 
-			HttpRequestWithBody httpRequestWithBody = Unirest.put(completeUrl);
-			if (Divroll.getMasterKey() != null) {
-				httpRequestWithBody.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
-			}
-			if (Divroll.getAppId() != null) {
-				httpRequestWithBody.header(HEADER_APP_ID, Divroll.getAppId());
-			}
-			if (Divroll.getApiKey() != null) {
-				httpRequestWithBody.header(HEADER_API_KEY, Divroll.getApiKey());
-			}
-			if (Divroll.getAuthToken() != null) {
-				httpRequestWithBody.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
-			}
-			if (Divroll.getNameSpace() != null) {
-				httpRequestWithBody.header(HEADER_NAMESPACE, Divroll.getNameSpace());
-			}
-			JSONObject userObj = new JSONObject();
+	private BaseRequest updateRequest(String newUsername, String newPassword) {
 
-			JSONArray aclRead = new JSONArray();
-			JSONArray aclWrite = new JSONArray();
-			if (acl != null) {
-				for (String uuid : this.acl.getAclRead()) {
-					JSONObject entityStub = new JSONObject();
-					entityStub.put("entityId", uuid);
-					aclRead.put(entityStub);
-				}
-				for (String uuid : this.acl.getAclWrite()) {
-					JSONObject entityStub = new JSONObject();
-					entityStub.put("entityId", uuid);
-					aclWrite.put(entityStub);
-				}
-			}
+		String completeUrl = getClient().getServerUrl() + usersUrl + "/" + getEntityId();
 
-			userObj.put("aclRead", aclRead);
-			userObj.put("aclWrite", aclWrite);
+		HttpRequestWithBody httpRequestWithBody = getClient().put(completeUrl);
+		if (getClient().getMasterKey() != null) {
+			httpRequestWithBody.header(HEADER_MASTER_KEY, getClient().getMasterKey());
+		}
+		if (getClient().getAppId() != null) {
+			httpRequestWithBody.header(HEADER_APP_ID, getClient().getAppId());
+		}
+		if (getClient().getApiKey() != null) {
+			httpRequestWithBody.header(HEADER_API_KEY, getClient().getApiKey());
+		}
+		if (getClient().getAuthToken() != null) {
+			httpRequestWithBody.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
+		}
+		if (getClient().getNameSpace() != null) {
+			httpRequestWithBody.header(HEADER_NAMESPACE, getClient().getNameSpace());
+		}
+		JSONObject userObj = new JSONObject();
 
-			if (username != null) {
-				userObj.put("username", newUsername);
+		JSONArray aclRead = new JSONArray();
+		JSONArray aclWrite = new JSONArray();
+		if (acl != null) {
+			for (String uuid : this.acl.getAclRead()) {
+				JSONObject entityStub = new JSONObject();
+				entityStub.put("entityId", uuid);
+				aclRead.put(entityStub);
 			}
-			if (username != null) {
-				userObj.put("password", newPassword);
+			for (String uuid : this.acl.getAclWrite()) {
+				JSONObject entityStub = new JSONObject();
+				entityStub.put("entityId", uuid);
+				aclWrite.put(entityStub);
 			}
-			userObj.put("publicRead",
-					(acl != null && acl.getPublicRead() != null) ? acl.getPublicRead() : JSONObject.NULL);
-			userObj.put("publicWrite",
-					(acl != null && acl.getPublicWrite() != null) ? acl.getPublicWrite() : JSONObject.NULL);
-			JSONObject body = new JSONObject();
+		}
 
-			JSONArray roles = new JSONArray();
-			for (DivrollRole role : getRoles()) {
-				JSONObject roleObj = new JSONObject();
-				roleObj.put("entityId", role.getEntityId());
-				roles.put(roleObj);
-			}
-			userObj.put("roles", roles);
+		userObj.put("aclRead", aclRead);
+		userObj.put("aclWrite", aclWrite);
 
-			body.put("user", userObj);
+		if (username != null) {
+			userObj.put("username", newUsername);
+		}
+		if (username != null) {
+			userObj.put("password", newPassword);
+		}
+		userObj.put("publicRead",
+				(acl != null && acl.getPublicRead() != null) ? acl.getPublicRead() : JSONObject.NULL);
+		userObj.put("publicWrite",
+				(acl != null && acl.getPublicWrite() != null) ? acl.getPublicWrite() : JSONObject.NULL);
+		JSONObject body = new JSONObject();
+
+		JSONArray roles = new JSONArray();
+		for (DivrollRole role : getRoles()) {
+			JSONObject roleObj = new JSONObject();
+			roleObj.put("entityId", role.getEntityId());
+			roles.put(roleObj);
+		}
+		userObj.put("roles", roles);
 
-			httpRequestWithBody.header("X-Divroll-ACL-Read", aclRead.toString());
-			httpRequestWithBody.header("X-Divroll-ACL-Write", aclWrite.toString());
-			httpRequestWithBody.header("Content-Type", "application/json");
+		body.put("user", userObj);
 
-			HttpResponse<JsonNode> response = httpRequestWithBody.body(body).asJson();
+		httpRequestWithBody.header("X-Divroll-ACL-Read", aclRead.toString());
+		httpRequestWithBody.header("X-Divroll-ACL-Write", aclWrite.toString());
+		httpRequestWithBody.header("Content-Type", "application/json");
 
-			if (response.getStatus() >= 500) {
-				throw new DivrollException(response.getStatusText());
-			} else if (response.getStatus() == 400) {
-				throw new BadRequestException(response.getStatusText());
-			} else if (response.getStatus() == 401) {
-				throw new UnauthorizedException(response.getStatusText());
-			} else if (response.getStatus() == 404) {
-				throw new DivrollException(response.getStatusText());
-			} else if (response.getStatus() >= 400) {
-				throwException(response);
-			} else if (response.getStatus() == 200) {
+		return httpRequestWithBody.body(body);
+	}
 
-				JsonNode responseBody = response.getBody();
-				JSONObject bodyObj = responseBody.getObject();
-				JSONObject responseUser = bodyObj.getJSONObject("user");
-				String entityId = responseUser.getString("entityId");
-				// String authToken = responseUser.getString("authToken");
-				String updatedUsername = null;
+	private void processUpdateResponse(HttpResponse<JsonNode> response, String newUsername) {
+		if (response.getStatus() >= 500) {
+			throw new DivrollException(response.getStatusText());
+		} else if (response.getStatus() == 400) {
+			throw new BadRequestException(response.getStatusText());
+		} else if (response.getStatus() == 401) {
+			throw new UnauthorizedException(response.getStatusText());
+		} else if (response.getStatus() == 404) {
+			throw new DivrollException(response.getStatusText());
+		} else if (response.getStatus() >= 400) {
+			throwException(response);
+		} else if (response.getStatus() == 200) {
 
-				try {
-					updatedUsername = responseUser.getString("username");
-				} catch (Exception e) {
-					// do nothing
-				}
+			JsonNode responseBody = response.getBody();
+			JSONObject bodyObj = responseBody.getObject();
+			JSONObject responseUser = bodyObj.getJSONObject("user");
+			String entityId = responseUser.getString("entityId");
+			// String authToken = responseUser.getString("authToken");
+			String updatedUsername = null;
 
-				setEntityId(entityId);
-				// setAuthToken(authToken);
+			try {
+				updatedUsername = responseUser.getString("username");
+			} catch (Exception e) {
+				// do nothing
+			}
 
-				Boolean publicRead = null;
-				Boolean publicWrite = null;
+			setEntityId(entityId);
+			// setAuthToken(authToken);
 
-				try {
-					publicRead = responseUser.getBoolean("publicRead");
-				} catch (Exception e) {
+			Boolean publicRead = null;
+			Boolean publicWrite = null;
 
-				}
+			try {
+				publicRead = responseUser.getBoolean("publicRead");
+			} catch (Exception e) {
 
-				try {
-					publicWrite = responseUser.getBoolean("publicWrite");
-				} catch (Exception e) {
+			}
 
-				}
+			try {
+				publicWrite = responseUser.getBoolean("publicWrite");
+			} catch (Exception e) {
 
-				List<String> aclWriteList = null;
-				List<String> aclReadList = null;
+			}
 
-				try {
-					aclWriteList = JSON.aclJSONArrayToList(responseUser.getJSONArray("aclWrite"));
-				} catch (Exception e) {
+			List<String> aclWriteList = null;
+			List<String> aclReadList = null;
 
-				}
+			try {
+				aclWriteList = JSON.aclJSONArrayToList(responseUser.getJSONArray("aclWrite"));
+			} catch (Exception e) {
 
-				try {
-					aclReadList = JSON.aclJSONArrayToList(responseUser.getJSONArray("aclRead"));
-				} catch (Exception e) {
+			}
 
-				}
+			try {
+				aclReadList = JSON.aclJSONArrayToList(responseUser.getJSONArray("aclRead"));
+			} catch (Exception e) {
 
-				try {
-					JSONObject jsonObject = responseUser.getJSONObject("aclWrite");
-					aclWriteList = Arrays.asList(jsonObject.getString("entityId"));
-				} catch (Exception e) {
+			}
 
-				}
-				try {
-					JSONObject jsonObject = responseUser.getJSONObject("aclRead");
-					aclReadList = Arrays.asList(jsonObject.getString("entityId"));
-				} catch (Exception e) {
+			try {
+				JSONObject jsonObject = responseUser.getJSONObject("aclWrite");
+				aclWriteList = Arrays.asList(jsonObject.getString("entityId"));
+			} catch (Exception e) {
 
-				}
+			}
+			try {
+				JSONObject jsonObject = responseUser.getJSONObject("aclRead");
+				aclReadList = Arrays.asList(jsonObject.getString("entityId"));
+			} catch (Exception e) {
 
-				List<DivrollRole> divrollRoles = null;
-				try {
-					Object roleObjects = userObj.get("roles");
-					if (roleObjects instanceof JSONArray) {
-						divrollRoles = new LinkedList<DivrollRole>();
-						JSONArray jsonArray = roles;
-						for (int i = 0; i < jsonArray.length(); i++) {
-							JSONObject jsonObject = jsonArray.getJSONObject(i);
-							String roleId = jsonObject.getString("entityId");
-							DivrollRole divrollRole = new DivrollRole();
-							divrollRole.setEntityId(roleId);
-							divrollRoles.add(divrollRole);
-						}
-					} else if (roleObjects instanceof JSONObject) {
-						divrollRoles = new LinkedList<DivrollRole>();
-						JSONObject jsonObject = (JSONObject) roleObjects;
+			}
+
+			List<DivrollRole> divrollRoles = getRoles();
+			try {
+				Object roleObjects = responseUser.get("roles");
+				if (roleObjects instanceof JSONArray) {
+					divrollRoles = new LinkedList<DivrollRole>();
+					JSONArray jsonArray = (JSONArray) roleObjects;
+					for (int i = 0; i < jsonArray.length(); i++) {
+						JSONObject jsonObject = jsonArray.getJSONObject(i);
 						String roleId = jsonObject.getString("entityId");
-						DivrollRole divrollRole = new DivrollRole();
+						DivrollRole divrollRole = new DivrollRole(getClient());
 						divrollRole.setEntityId(roleId);
 						divrollRoles.add(divrollRole);
 					}
-				} catch (Exception e) {
-
+				} else if (roleObjects instanceof JSONObject) {
+					divrollRoles = new LinkedList<DivrollRole>();
+					JSONObject jsonObject = (JSONObject) roleObjects;
+					String roleId = jsonObject.getString("entityId");
+					DivrollRole divrollRole = new DivrollRole(getClient());
+					divrollRole.setEntityId(roleId);
+					divrollRoles.add(divrollRole);
 				}
+			} catch (Exception e) {
 
-				DivrollACL acl = new DivrollACL(aclReadList, aclWriteList);
-				acl.setPublicRead(publicRead);
-				acl.setPublicWrite(publicWrite);
-				setEntityId(entityId);
-				if (newUsername != null) {
-					setUsername(updatedUsername);
-				}
-				setAcl(acl);
-				setRoles(divrollRoles);
 			}
-		} catch (UnirestException e) {
-			e.printStackTrace();
+
+			DivrollACL acl = new DivrollACL(aclReadList, aclWriteList);
+			acl.setPublicRead(publicRead);
+			acl.setPublicWrite(publicWrite);
+			setEntityId(entityId);
+			if (newUsername != null) {
+				setUsername(updatedUsername);
+			}
+			setAcl(acl);
+			setRoles(divrollRoles);
 		}
 	}
 
@@ -759,89 +811,123 @@ public class DivrollUser extends DivrollBase {
 		update(null, null);
 	}
 
+	public CompletableFuture<DivrollUser> updateAsync() {
+		return updateAsync(null, null);
+	}
+
 	public boolean delete() {
 		try {
-			HttpRequestWithBody httpRequestWithBody = Unirest.delete(
-					Divroll.getServerUrl() + usersUrl + "/" + getEntityId());
-			if (Divroll.getMasterKey() != null) {
-				httpRequestWithBody.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
-			}
-			if (Divroll.getAppId() != null) {
-				httpRequestWithBody.header(HEADER_APP_ID, Divroll.getAppId());
-			}
-			if (Divroll.getApiKey() != null) {
-				httpRequestWithBody.header(HEADER_API_KEY, Divroll.getApiKey());
-			}
-			if (Divroll.getAuthToken() != null) {
-				httpRequestWithBody.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
-			}
-			if (Divroll.getNameSpace() != null) {
-				httpRequestWithBody.header(HEADER_NAMESPACE, Divroll.getNameSpace());
-			}
-			HttpResponse<JsonNode> response = httpRequestWithBody.asJson();
-			if (response.getStatus() >= 500) {
-				throwException(response);
-			} else if (response.getStatus() == 401) {
-				throw new UnauthorizedException(response.getStatusText());
-			} else if (response.getStatus() >= 400) {
-				throw new BadRequestException(response.getStatusText());
-			} else if (response.getStatus() == 204) {
-				setEntityId(null);
-				setAcl(null);
-				setUsername(null);
-				setRoles(null);
-				setAcl(null);
-				setPassword(null);
-				setAuthToken(null);
-				return true;
-			}
+			HttpResponse<JsonNode> response = getClient().asJson(deleteRequest());
+			return processDeleteResponse(response);
 		} catch (UnirestException e) {
 			e.printStackTrace();
 		}
 		return false;
 	}
 
+	public CompletableFuture<Boolean> deleteAsync() {
+		return getClient().asJsonAsync(deleteRequest()).thenApply(response -> processDeleteResponse(response));
+	}
+
+	private BaseRequest deleteRequest() {
+		HttpRequestWithBody httpRequestWithBody = getClient().delete(
+				getClient().getServerUrl() + usersUrl + "/" + getEntityId());
+		if (getClient().getMasterKey() != null) {
+			httpRequestWithBody.header(HEADER_MASTER_KEY, getClient().getMasterKey());
+		}
+		if (getClient().getAppId() != null) {
+			httpRequestWithBody.header(HEADER_APP_ID, getClient().getAppId());
+		}
+		if (getClient().getApiKey() != null) {
+			httpRequestWithBody.header(HEADER_API_KEY, getClient().getApiKey());
+		}
+		if (getClient().getAuthToken() != null) {
+			httpRequestWithBody.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
+		}
+		if (getClient().getNameSpace() != null) {
+			httpRequestWithBody.header(HEADER_NAMESPACE, getClient().getNameSpace());
+		}
+		return httpRequestWithBody;
+	}
+
+	private boolean processDeleteResponse(HttpResponse<JsonNode> response) {
+		if (response.getStatus() >= 500) {
+			throwException(response);
+		} else if (response.getStatus() == 401) {
+			throw new UnauthorizedException(response.getStatusText());
+		} else if (response.getStatus() >= 400) {
+			throw new BadRequestException(response.getStatusText());
+		} else if (response.getStatus() == 204) {
+			setEntityId(null);
+			setAcl(null);
+			setUsername(null);
+			setRoles(null);
+			setAcl(null);
+			setPassword(null);
+			setAuthToken(null);
+			return true;
+		}
+		return false;
+	}
+
 	public void login(String username, String password) {
 		setUsername(username);
 		setPassword(password);
 		try {
-			GetRequest getRequest = (GetRequest) Unirest.get(Divroll.getServerUrl() + loginUrl).queryString("username",
-					getUsername()).queryString("password", getPassword());
-			if (Divroll.getMasterKey() != null) {
-				getRequest.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
-			}
-			if (Divroll.getAppId() != null) {
-				getRequest.header(HEADER_APP_ID, Divroll.getAppId());
-			}
-			if (Divroll.getApiKey() != null) {
-				getRequest.header(HEADER_API_KEY, Divroll.getApiKey());
-			}
-			if (Divroll.getNameSpace() != null) {
-				getRequest.header(HEADER_NAMESPACE, Divroll.getNameSpace());
-			}
-
-			HttpResponse<JsonNode> response = getRequest.asJson();
-			if (response.getStatus() == 404) {
-
-			} else if (response.getStatus() == 401) {
-				throw new UnauthorizedException(response.getStatusText());
-			} else if (response.getStatus() == 200) {
-				JsonNode body = response.getBody();
-				JSONObject bodyObj = body.getObject();
-				JSONObject user = bodyObj.getJSONObject("user");
-				String entityId = user.getString("entityId");
-				String authToken = user.getString("authToken");
-				setEntityId(entityId);
-				setAuthToken(authToken);
-				Divroll.setAuthToken(authToken);
-			}
+			HttpResponse<JsonNode> response = getClient().asJson(loginRequest());
+			processLoginResponse(response);
 		} catch (UnirestException e) {
 			e.printStackTrace();
 		}
 	}
 
+	public CompletableFuture<DivrollUser> loginAsync(String username, String password) {
+		setUsername(username);
+		setPassword(password);
+		return getClient().asJsonAsync(loginRequest()).thenApply(response -> {
+			processLoginResponse(response);
+			return this;
+		});
+	}
+
+	private BaseRequest loginRequest() {
+		GetRequest getRequest = (GetRequest) getClient().get(getClient().getServerUrl() + loginUrl)
+				.queryString("username", getUsername()).queryString("password", getPassword());
+		if (getClient().getMasterKey() != null) {
+			getRequest.header(HEADER_MASTER_KEY, getClient().getMasterKey());
+		}
+		if (getClient().getAppId() != null) {
+			getRequest.header(HEADER_APP_ID, getClient().getAppId());
+		}
+		if (getClient().getApiKey() != null) {
+			getRequest.header(HEADER_API_KEY, getClient().getApiKey());
+		}
+		if (getClient().getNameSpace() != null) {
+			getRequest.header(HEADER_NAMESPACE, getClient().getNameSpace());
+		}
+
+		return getRequest;
+	}
+
+	private void processLoginResponse(HttpResponse<JsonNode> response) {
+		if (response.getStatus() == 404) {
+
+		} else if (response.getStatus() == 401) {
+			throw new UnauthorizedException(response.getStatusText());
+		} else if (response.getStatus() == 200) {
+			JsonNode body = response.getBody();
+			JSONObject bodyObj = body.getObject();
+			JSONObject user = bodyObj.getJSONObject("user");
+			String entityId = user.getString("entityId");
+			String authToken = user.getString("authToken");
+			setEntityId(entityId);
+			setAuthToken(authToken);
+			getClient().setAuthToken(authToken);
+		}
+	}
+
 	public void logout() {
-		Divroll.setAuthToken(null);
+		getClient().setAuthToken(null);
 	}
 
 	public String getEntityId() {
@@ -900,25 +986,26 @@ public class DivrollUser extends DivrollBase {
 			throw new DivrollException("Save the entity first before creating a link");
 		}
 		try {
-			HttpRequestWithBody httpRequestWithBody = Unirest.post(
-					Divroll.getServerUrl() + usersUrl + "/" + getEntityId() + "/links/" + linkName + "/" + entityId);
+			HttpRequestWithBody httpRequestWithBody = getClient().post(
+					getClient().getServerUrl() + usersUrl + "/" + getEntityId() + "/links/" + linkName + "/"
+							+ entityId);
 
 			httpRequestWithBody.queryString("linkType", "set");
 
-			if (Divroll.getMasterKey() != null) {
-				httpRequestWithBody.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
+			if (getClient().getMasterKey() != null) {
+				httpRequestWithBody.header(HEADER_MASTER_KEY, getClient().getMasterKey());
 			}
-			if (Divroll.getAppId() != null) {
-				httpRequestWithBody.header(HEADER_APP_ID, Divroll.getAppId());
+			if (getClient().getAppId() != null) {
+				httpRequestWithBody.header(HEADER_APP_ID, getClient().getAppId());
 			}
-			if (Divroll.getApiKey() != null) {
-				httpRequestWithBody.header(HEADER_API_KEY, Divroll.getApiKey());
+			if (getClient().getApiKey() != null) {
+				httpRequestWithBody.header(HEADER_API_KEY, getClient().getApiKey());
 			}
-			if (Divroll.getAuthToken() != null) {
-				httpRequestWithBody.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
+			if (getClient().getAuthToken() != null) {
+				httpRequestWithBody.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
 			}
-			if (Divroll.getNameSpace() != null) {
-				httpRequestWithBody.header(HEADER_NAMESPACE, Divroll.getNameSpace());
+			if (getClient().getNameSpace() != null) {
+				httpRequestWithBody.header(HEADER_NAMESPACE, getClient().getNameSpace());
 			}
 			JSONArray aclRead = new JSONArray();
 			JSONArray aclWrite = new JSONArray();
@@ -939,7 +1026,7 @@ public class DivrollUser extends DivrollBase {
 			httpRequestWithBody.header("X-Divroll-ACL-Write", aclWrite.toString());
 			httpRequestWithBody.header("Content-Type", "application/json");
 
-			HttpResponse<JsonNode> response = httpRequestWithBody.asJson();
+			HttpResponse<JsonNode> response = getClient().asJson(httpRequestWithBody);
 			if (response.getStatus() >= 500) {
 				throw new DivrollException(response.getStatusText()); // TODO
 			} else if (response.getStatus() == 404) {
@@ -962,22 +1049,23 @@ public class DivrollUser extends DivrollBase {
 			throw new DivrollException("Save the entity first before creating a link");
 		}
 		try {
-			HttpRequestWithBody httpRequestWithBody = Unirest.post(
-					Divroll.getServerUrl() + usersUrl + "/" + getEntityId() + "/links/" + linkName + "/" + entityId);
-			if (Divroll.getMasterKey() != null) {
-				httpRequestWithBody.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
+			HttpRequestWithBody httpRequestWithBody = getClient().post(
+					getClient().getServerUrl() + usersUrl + "/" + getEntityId() + "/links/" + linkName + "/"
+							+ entityId);
+			if (getClient().getMasterKey() != null) {
+				httpRequestWithBody.header(HEADER_MASTER_KEY, getClient().getMasterKey());
 			}
-			if (Divroll.getAppId() != null) {
-				httpRequestWithBody.header(HEADER_APP_ID, Divroll.getAppId());
+			if (getClient().getAppId() != null) {
+				httpRequestWithBody.header(HEADER_APP_ID, getClient().getAppId());
 			}
-			if (Divroll.getApiKey() != null) {
-				httpRequestWithBody.header(HEADER_API_KEY, Divroll.getApiKey());
+			if (getClient().getApiKey() != null) {
+				httpRequestWithBody.header(HEADER_API_KEY, getClient().getApiKey());
 			}
-			if (Divroll.getAuthToken() != null) {
-				httpRequestWithBody.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
+			if (getClient().getAuthToken() != null) {
+				httpRequestWithBody.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
 			}
-			if (Divroll.getNameSpace() != null) {
-				httpRequestWithBody.header(HEADER_NAMESPACE, Divroll.getNameSpace());
+			if (getClient().getNameSpace() != null) {
+				httpRequestWithBody.header(HEADER_NAMESPACE, getClient().getNameSpace());
 			}
 			JSONArray aclRead = new JSONArray();
 			JSONArray aclWrite = new JSONArray();
@@ -998,7 +1086,7 @@ public class DivrollUser extends DivrollBase {
 			httpRequestWithBody.header("X-Divroll-ACL-Write", aclWrite.toString());
 			httpRequestWithBody.header("Content-Type", "application/json");
 
-			HttpResponse<JsonNode> response = httpRequestWithBody.asJson();
+			HttpResponse<JsonNode> response = getClient().asJson(httpRequestWithBody);
 			if (response.getStatus() >= 500) {
 				throw new DivrollException(response.getStatusText()); // TODO
 			} else if (response.getStatus() == 404) {
@@ -1021,22 +1109,23 @@ public class DivrollUser extends DivrollBase {
 			throw new DivrollException("Save the entity first before removing a link");
 		}
 		try {
-			HttpRequestWithBody httpRequestWithBody = Unirest.delete(
-					Divroll.getServerUrl() + usersUrl + "/" + getEntityId() + "/links/" + linkName + "/" + entityId);
-			if (Divroll.getMasterKey() != null) {
-				httpRequestWithBody.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
+			HttpRequestWithBody httpRequestWithBody = getClient().delete(
+					getClient().getServerUrl() + usersUrl + "/" + getEntityId() + "/links/" + linkName + "/"
+							+ entityId);
+			if (getClient().getMasterKey() != null) {
+				httpRequestWithBody.header(HEADER_MASTER_KEY, getClient().getMasterKey());
 			}
-			if (Divroll.getAppId() != null) {
-				httpRequestWithBody.header(HEADER_APP_ID, Divroll.getAppId());
+			if (getClient().getAppId() != null) {
+				httpRequestWithBody.header(HEADER_APP_ID, getClient().getAppId());
 			}
-			if (Divroll.getApiKey() != null) {
-				httpRequestWithBody.header(HEADER_API_KEY, Divroll.getApiKey());
+			if (getClient().getApiKey() != null) {
+				httpRequestWithBody.header(HEADER_API_KEY, getClient().getApiKey());
 			}
-			if (Divroll.getAuthToken() != null) {
-				httpRequestWithBody.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
+			if (getClient().getAuthToken() != null) {
+				httpRequestWithBody.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
 			}
-			if (Divroll.getNameSpace() != null) {
-				httpRequestWithBody.header(HEADER_NAMESPACE, Divroll.getNameSpace());
+			if (getClient().getNameSpace() != null) {
+				httpRequestWithBody.header(HEADER_NAMESPACE, getClient().getNameSpace());
 			}
 			JSONArray aclRead = new JSONArray();
 			JSONArray aclWrite = new JSONArray();
@@ -1057,7 +1146,7 @@ public class DivrollUser extends DivrollBase {
 			httpRequestWithBody.header("X-Divroll-ACL-Write", aclWrite.toString());
 			httpRequestWithBody.header("Content-Type", "application/json");
 
-			HttpResponse<JsonNode> response = httpRequestWithBody.asJson();
+			HttpResponse<JsonNode> response = getClient().asJson(httpRequestWithBody);
 			if (response.getStatus() >= 500) {
 				throw new DivrollException(response.getStatusText()); // TODO
 			} else if (response.getStatus() == 404) {
@@ -1080,22 +1169,22 @@ public class DivrollUser extends DivrollBase {
 			throw new DivrollException("Save the entity first before removing links");
 		}
 		try {
-			HttpRequestWithBody httpRequestWithBody = Unirest.delete(
-					Divroll.getServerUrl() + usersUrl + "/" + getEntityId() + "/links/" + linkName);
-			if (Divroll.getMasterKey() != null) {
-				httpRequestWithBody.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
+			HttpRequestWithBody httpRequestWithBody = getClient().delete(
+					getClient().getServerUrl() + usersUrl + "/" + getEntityId() + "/links/" + linkName);
+			if (getClient().getMasterKey() != null) {
+				httpRequestWithBody.header(HEADER_MASTER_KEY, getClient().getMasterKey());
 			}
-			if (Divroll.getAppId() != null) {
-				httpRequestWithBody.header(HEADER_APP_ID, Divroll.getAppId());
+			if (getClient().getAppId() != null) {
+				httpRequestWithBody.header(HEADER_APP_ID, getClient().getAppId());
 			}
-			if (Divroll.getApiKey() != null) {
-				httpRequestWithBody.header(HEADER_API_KEY, Divroll.getApiKey());
+			if (getClient().getApiKey() != null) {
+				httpRequestWithBody.header(HEADER_API_KEY, getClient().getApiKey());
 			}
-			if (Divroll.getAuthToken() != null) {
-				httpRequestWithBody.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
+			if (getClient().getAuthToken() != null) {
+				httpRequestWithBody.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
 			}
-			if (Divroll.getNameSpace() != null) {
-				httpRequestWithBody.header(HEADER_NAMESPACE, Divroll.getNameSpace());
+			if (getClient().getNameSpace() != null) {
+				httpRequestWithBody.header(HEADER_NAMESPACE, getClient().getNameSpace());
 			}
 			JSONArray aclRead = new JSONArray();
 			JSONArray aclWrite = new JSONArray();
@@ -1116,7 +1205,7 @@ public class DivrollUser extends DivrollBase {
 			httpRequestWithBody.header("X-Divroll-ACL-Write", aclWrite.toString());
 			httpRequestWithBody.header("Content-Type", "application/json");
 
-			HttpResponse<JsonNode> response = httpRequestWithBody.asJson();
+			HttpResponse<JsonNode> response = getClient().asJson(httpRequestWithBody);
 			if (response.getStatus() >= 500) {
 				throw new DivrollException(response.getStatusText()); // TODO
 			} else if (response.getStatus() == 404) {
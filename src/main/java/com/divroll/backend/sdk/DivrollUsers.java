@@ -24,6 +24,7 @@ package com.divroll.backend.sdk;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -34,8 +35,8 @@ import com.divroll.backend.sdk.filter.QueryFilter;
 import com.divroll.backend.sdk.helper.JSON;
 import com.mashape.unirest.http.HttpResponse;
 import com.mashape.unirest.http.JsonNode;
-import com.mashape.unirest.http.Unirest;
 import com.mashape.unirest.http.exceptions.UnirestException;
+import com.mashape.unirest.request.BaseRequest;
 import com.mashape.unirest.request.GetRequest;
 
 public class DivrollUsers extends LinkableDivrollBase {
@@ -52,6 +53,13 @@ public class DivrollUsers extends LinkableDivrollBase {
 	private String sort;
 	private String authToken;
 
+	public DivrollUsers() {
+	}
+
+	public DivrollUsers(DivrollClient client) {
+		setClient(client);
+	}
+
 	public List<DivrollUser> getUsers() {
 		if (users == null) {
 			users = new LinkedList<DivrollUser>();
@@ -81,239 +89,253 @@ public class DivrollUsers extends LinkableDivrollBase {
 
 	public void query(QueryFilter filter) {
 		try {
-			String completeUrl = Divroll.getServerUrl() + usersUrl;
+			HttpResponse<JsonNode> response = getClient().asJson(queryRequest(filter));
+			processQueryResponse(response);
+		} catch (UnirestException e) {
+			e.printStackTrace();
+		}
+	}
 
-			GetRequest getRequest = Unirest.get(completeUrl);
+	public CompletableFuture<DivrollUsers> queryAsync(QueryFilter filter) {
+		return getClient().asJsonAsync(queryRequest(filter)).thenApply(response -> {
+			processQueryResponse(response);
+			return this;
+		});
+	}
 
-			if (Divroll.getMasterKey() != null) {
-				getRequest.header(HEADER_MASTER_KEY, Divroll.getMasterKey());
-			}
-			if (Divroll.getAppId() != null) {
-				getRequest.header(HEADER_APP_ID, Divroll.getAppId());
-			}
-			if (Divroll.getApiKey() != null) {
-				getRequest.header(HEADER_API_KEY, Divroll.getApiKey());
-			}
-			if (Divroll.getAuthToken() != null) {
-				getRequest.header(HEADER_AUTH_TOKEN, Divroll.getAuthToken());
-			}
-			if (Divroll.getNameSpace() != null) {
-				getRequest.header(HEADER_NAMESPACE, Divroll.getNameSpace());
-			}
+	private BaseRequest queryRequest(QueryFilter filter) {
+		String completeUrl = getClient().getServerUrl() + usersUrl;
 
-			final JSONArray rolesArray = new JSONArray();
-			if (roles != null && !roles.isEmpty()) {
-				roles.forEach(role -> {
-					rolesArray.put(role);
-				});
-			}
+		GetRequest getRequest = getClient().get(completeUrl);
 
-			if (rolesArray.length() > 0) {
-				getRequest.queryString("roles", rolesArray.toString());
-			}
+		if (getClient().getMasterKey() != null) {
+			getRequest.header(HEADER_MASTER_KEY, getClient().getMasterKey());
+		}
+		if (getClient().getAppId() != null) {
+			getRequest.header(HEADER_APP_ID, getClient().getAppId());
+		}
+		if (getClient().getApiKey() != null) {
+			getRequest.header(HEADER_API_KEY, getClient().getApiKey());
+		}
+		if (getClient().getAuthToken() != null) {
+			getRequest.header(HEADER_AUTH_TOKEN, getClient().getAuthToken());
+		}
+		if (getClient().getNameSpace() != null) {
+			getRequest.header(HEADER_NAMESPACE, getClient().getNameSpace());
+		}
 
-			if (count != null) {
-				getRequest.queryString("count", String.valueOf(count));
-			}
+		final JSONArray rolesArray = new JSONArray();
+		if (roles != null && !roles.isEmpty()) {
+			roles.forEach(role -> {
+				rolesArray.put(role);
+			});
+		}
 
-			if (filter != null) {
-				getRequest.queryString("queries", filter.toString());
-			}
+		if (rolesArray.length() > 0) {
+			getRequest.queryString("roles", rolesArray.toString());
+		}
 
-			if (skip != null) {
-				getRequest.queryString("skip", String.valueOf(getSkip()));
-			}
-			if (limit != null) {
-				getRequest.queryString("limit", String.valueOf(getLimit()));
-			}
+		if (count != null) {
+			getRequest.queryString("count", String.valueOf(count));
+		}
 
-			if (count != null) {
-				getRequest.queryString("count", String.valueOf(count));
-			}
+		if (filter != null) {
+			getRequest.queryString("queries", filter.toString());
+		}
 
-			if (sort != null) {
-				getRequest.queryString("sort", sort);
-			}
+		if (skip != null) {
+			getRequest.queryString("skip", String.valueOf(getSkip()));
+		}
+		if (limit != null) {
+			getRequest.queryString("limit", String.valueOf(getLimit()));
+		}
 
-			if (include != null && !include.isEmpty()) {
-				JSONArray linkNameArray = new JSONArray();
-				for (String linkName : include) {
-					linkNameArray.put(linkName);
-				}
-				getRequest.queryString("include", linkNameArray.toString());
+		if (count != null) {
+			getRequest.queryString("count", String.valueOf(count));
+		}
+
+		if (sort != null) {
+			getRequest.queryString("sort", sort);
+		}
+
+		if (include != null && !include.isEmpty()) {
+			JSONArray linkNameArray = new JSONArray();
+			for (String linkName : include) {
+				linkNameArray.put(linkName);
 			}
+			getRequest.queryString("include", linkNameArray.toString());
+		}
+
+		if (authToken != null && !authToken.isEmpty()) {
+			getRequest.queryString("authToken", authToken);
+		}
+
+		return getRequest;
+	}
+
+	private void processQueryResponse(HttpResponse<JsonNode> response) {
+		if (response.getStatus() >= 500) {
+			throwException(response);
+		} else if (response.getStatus() == 401) {
+			throw new UnauthorizedException(response.getStatusText());
+		} else if (response.getStatus() == 400) {
+			throw new BadRequestException(response.getStatusText());
+		} else if (response.getStatus() >= 400) {
+			throwException(response);
+		} else if (response.getStatus() == 200) {
+
+			getUsers().clear();
+
+			JsonNode body = response.getBody();
+
+			JSONObject bodyObj = body.getObject();
+			JSONObject usersJSONObj = bodyObj.getJSONObject("users");
+			JSONArray results = new JSONArray();
+
+			try {
+				results = usersJSONObj.getJSONArray("results");
+			} catch (Exception e) {
 
-			if (authToken != null && !authToken.isEmpty()) {
-				getRequest.queryString("authToken", authToken);
 			}
 
-			HttpResponse<JsonNode> response = getRequest.asJson();
+			try {
+				JSONObject jsonObject = usersJSONObj.getJSONObject("results");
+				results.put(jsonObject);
+			} catch (Exception e) {
+
+			}
 
-			if (response.getStatus() >= 500) {
-				throwException(response);
-			} else if (response.getStatus() == 401) {
-				throw new UnauthorizedException(response.getStatusText());
-			} else if (response.getStatus() == 400) {
-				throw new BadRequestException(response.getStatusText());
-			} else if (response.getStatus() >= 400) {
-				throwException(response);
-			} else if (response.getStatus() == 200) {
+			try {
+				result = usersJSONObj.getLong("count");
+			} catch (Exception e) {
 
-				getUsers().clear();
+			}
 
-				JsonNode body = response.getBody();
+			for (int i = 0; i < results.length(); i++) {
+				JSONObject userObj = results.getJSONObject(i);
+				String entityId = userObj.getString("entityId");
+				String username = userObj.getString("username");
+				Boolean publicRead = userObj.getBoolean("publicRead");
+				Boolean publicWrite = userObj.getBoolean("publicWrite");
 
-				JSONObject bodyObj = body.getObject();
-				JSONObject usersJSONObj = bodyObj.getJSONObject("users");
-				JSONArray results = new JSONArray();
+				List<String> aclWriteList = null;
+				List<String> aclReadList = null;
 
 				try {
-					results = usersJSONObj.getJSONArray("results");
+					aclWriteList = JSON.aclJSONArrayToList(userObj.getJSONArray("aclWrite"));
 				} catch (Exception e) {
 
 				}
 
 				try {
-					JSONObject jsonObject = usersJSONObj.getJSONObject("results");
-					results.put(jsonObject);
+					aclReadList = JSON.aclJSONArrayToList(userObj.getJSONArray("aclRead"));
 				} catch (Exception e) {
 
 				}
 
 				try {
-					result = usersJSONObj.getLong("count");
+					aclWriteList = Arrays.asList(userObj.getString("aclWrite"));
 				} catch (Exception e) {
 
 				}
 
-				for (int i = 0; i < results.length(); i++) {
-					JSONObject userObj = results.getJSONObject(i);
-					String entityId = userObj.getString("entityId");
-					String username = userObj.getString("username");
-					Boolean publicRead = userObj.getBoolean("publicRead");
-					Boolean publicWrite = userObj.getBoolean("publicWrite");
-
-					List<String> aclWriteList = null;
-					List<String> aclReadList = null;
-
-					try {
-						aclWriteList = JSON.aclJSONArrayToList(userObj.getJSONArray("aclWrite"));
-					} catch (Exception e) {
-
-					}
-
-					try {
-						aclReadList = JSON.aclJSONArrayToList(userObj.getJSONArray("aclRead"));
-					} catch (Exception e) {
-
-					}
-
-					try {
-						aclWriteList = Arrays.asList(userObj.getString("aclWrite"));
-					} catch (Exception e) {
-
-					}
-
-					try {
-						aclReadList = Arrays.asList(userObj.getString("aclRead"));
-					} catch (Exception e) {
+				try {
+					aclReadList = Arrays.asList(userObj.getString("aclRead"));
+				} catch (Exception e) {
 
-					}
+				}
 
-					JSONArray userRoles = null;
-					try {
-						userRoles = userObj.getJSONArray("roles");
-					} catch (Exception e) {
+				JSONArray userRoles = null;
+				try {
+					userRoles = userObj.getJSONArray("roles");
+				} catch (Exception e) {
 
-					}
+				}
 
-					List<DivrollRole> divrollRoles = null;
-					try {
-						if (userRoles != null) {
-							Object roleObjects = userObj.get("roles");
-							if (roleObjects instanceof JSONArray) {
-								divrollRoles = new LinkedList<DivrollRole>();
-								for (int j = 0; j < userRoles.length(); j++) {
-									JSONObject jsonObject = userRoles.getJSONObject(j);
-									String roleId = jsonObject.getString("entityId");
-									DivrollRole divrollRole = new DivrollRole();
-									divrollRole.setEntityId(roleId);
-									divrollRoles.add(divrollRole);
-								}
-							} else if (roleObjects instanceof JSONObject) {
-								divrollRoles = new LinkedList<DivrollRole>();
-								JSONObject jsonObject = (JSONObject) roleObjects;
+				List<DivrollRole> divrollRoles = null;
+				try {
+					if (userRoles != null) {
+						Object roleObjects = userObj.get("roles");
+						if (roleObjects instanceof JSONArray) {
+							divrollRoles = new LinkedList<DivrollRole>();
+							for (int j = 0; j < userRoles.length(); j++) {
+								JSONObject jsonObject = userRoles.getJSONObject(j);
 								String roleId = jsonObject.getString("entityId");
-								DivrollRole divrollRole = new DivrollRole();
+								DivrollRole divrollRole = new DivrollRole(getClient());
 								divrollRole.setEntityId(roleId);
 								divrollRoles.add(divrollRole);
 							}
+						} else if (roleObjects instanceof JSONObject) {
+							divrollRoles = new LinkedList<DivrollRole>();
+							JSONObject jsonObject = (JSONObject) roleObjects;
+							String roleId = jsonObject.getString("entityId");
+							DivrollRole divrollRole = new DivrollRole(getClient());
+							divrollRole.setEntityId(roleId);
+							divrollRoles.add(divrollRole);
 						}
-
-					} catch (Exception e) {
-						// do nothing
 					}
 
-					try {
-						result = userObj.getLong("count");
-					} catch (Exception e) {
+				} catch (Exception e) {
+					// do nothing
+				}
 
-					}
+				try {
+					result = userObj.getLong("count");
+				} catch (Exception e) {
 
-					DivrollACL acl = new DivrollACL(aclReadList, aclWriteList);
-					acl.setPublicWrite(publicWrite);
-					acl.setPublicRead(publicRead);
+				}
 
-					DivrollUser user = new DivrollUser();
-					user.setEntityId(entityId);
-					user.setAcl(acl);
-					user.setRoles(divrollRoles);
-					user.setUsername(username);
+				DivrollACL acl = new DivrollACL(aclReadList, aclWriteList);
+				acl.setPublicWrite(publicWrite);
+				acl.setPublicRead(publicRead);
 
-					try {
-						String dateCreated = userObj.getString("dateCreated");
-						user.setDateCreated(dateCreated);
-					} catch (Exception e) {
+				DivrollUser user = new DivrollUser(getClient());
+				user.setEntityId(entityId);
+				user.setAcl(acl);
+				user.setRoles(divrollRoles);
+				user.setUsername(username);
 
-					}
+				try {
+					String dateCreated = userObj.getString("dateCreated");
+					user.setDateCreated(dateCreated);
+				} catch (Exception e) {
 
-					try {
-						String dateUpdated = userObj.getString("dateUpdated");
-						user.setDateUpdated(dateUpdated);
-					} catch (Exception e) {
+				}
 
-					}
+				try {
+					String dateUpdated = userObj.getString("dateUpdated");
+					user.setDateUpdated(dateUpdated);
+				} catch (Exception e) {
 
-					JSONArray links = null;
-					try {
-						links = userObj.getJSONArray("links");
-					} catch (Exception e) {
+				}
 
-					}
-					if (links != null) {
-						for (int j = 0; j < links.length(); j++) {
-							JSONObject linksObj = links.getJSONObject(j);
-							DivrollLink divrollLink = processLink(linksObj);
-							user.getLinks().add(divrollLink);
-						}
-					} else {
-						JSONObject linksObj = null;
-						try {
-							linksObj = userObj.getJSONObject("links");
-						} catch (Exception e) {
+				JSONArray links = null;
+				try {
+					links = userObj.getJSONArray("links");
+				} catch (Exception e) {
 
-						}
+				}
+				if (links != null) {
+					for (int j = 0; j < links.length(); j++) {
+						JSONObject linksObj = links.getJSONObject(j);
 						DivrollLink divrollLink = processLink(linksObj);
 						user.getLinks().add(divrollLink);
 					}
+				} else {
+					JSONObject linksObj = null;
+					try {
+						linksObj = userObj.getJSONObject("links");
+					} catch (Exception e) {
 
-					getUsers().add(user);
+					}
+					DivrollLink divrollLink = processLink(linksObj);
+					user.getLinks().add(divrollLink);
 				}
-				//
 
+				getUsers().add(user);
 			}
-		} catch (UnirestException e) {
-			e.printStackTrace();
+			//
+
 		}
 	}
 
@@ -321,6 +343,10 @@ public class DivrollUsers extends LinkableDivrollBase {
 		query(null);
 	}
 
+	public CompletableFuture<DivrollUsers> queryAsync() {
+		return queryAsync(null);
+	}
+
 	public void setRoles(List<String> roles) {
 		this.roles = roles;
 	}
@@ -0,0 +1,109 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Response times and hedge budget of one {@link DivrollEndpoint}. The hedge
+ * delay is recomputed from the window every tenth of a window's worth of
+ * samples rather than on every request.
+ */
+final class HedgeTracker {
+
+	private final DivrollHedgePolicy policy;
+	private final long[] samples;
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private int count;
+	private int next;
+	private int sinceUpdate;
+	private boolean estimated;
+	private long delay;
+	private double budget;
+
+	HedgeTracker(DivrollHedgePolicy policy) {
+		this.policy = policy;
+		this.samples = new long[Math.max(1, policy.getWindowSize())];
+		this.delay = policy.getInitialDelay();
+		this.budget = policy.getBudgetCapacity();
+	}
+
+	/**
+	 * Milliseconds to wait for a response before hedging.
+	 */
+	long delay() {
+		lock.lock();
+		try {
+			return delay;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	void record(long durationNanos) {
+		lock.lock();
+		try {
+			samples[next] = durationNanos;
+			next = (next + 1) % samples.length;
+			count = Math.min(count + 1, samples.length);
+			if (count < policy.getMinSamples()) {
+				return;
+			}
+			if (estimated && ++sinceUpdate < Math.max(1, samples.length / 10)) {
+				return;
+			}
+			long[] sorted = Arrays.copyOf(samples, count);
+			Arrays.sort(sorted);
+			int index = (int) Math.min(count - 1, Math.ceil(policy.getPercentile() * count) - 1);
+			delay = Math.max(1, TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(0, index)]));
+			estimated = true;
+			sinceUpdate = 0;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	void deposit() {
+		lock.lock();
+		try {
+			budget = Math.min(policy.getBudgetCapacity(), budget + policy.getMaxHedgeRate());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	boolean tryHedge() {
+		lock.lock();
+		try {
+			if (budget < 1) {
+				return false;
+			}
+			budget--;
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,56 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk;
+
+import org.apache.http.HttpEntity;
+
+import com.mashape.unirest.http.HttpMethod;
+import com.mashape.unirest.request.HttpRequestWithBody;
+import com.mashape.unirest.request.body.Body;
+
+/**
+ * Request whose body is an arbitrary {@link HttpEntity}, so payloads can be
+ * streamed instead of being copied into a byte array first.
+ */
+class HttpRequestWithEntity extends HttpRequestWithBody implements Body {
+
+	private HttpEntity entity;
+
+	HttpRequestWithEntity(HttpMethod method, String url) {
+		super(method, url);
+	}
+
+	HttpRequestWithEntity entity(HttpEntity entity) {
+		this.entity = entity;
+		return this;
+	}
+
+	@Override
+	public Body getBody() {
+		return entity != null ? this : super.getBody();
+	}
+
+	@Override
+	public HttpEntity getEntity() {
+		return entity;
+	}
+}
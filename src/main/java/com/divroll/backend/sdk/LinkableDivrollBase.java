@@ -21,38 +21,16 @@
  */
 package com.divroll.backend.sdk;
 
-import java.util.LinkedList;
-import java.util.List;
-
-import org.json.JSONArray;
 import org.json.JSONObject;
 
-import com.divroll.backend.sdk.helper.DivrollEntityHelper;
+import com.divroll.backend.sdk.helper.DivrollEntityDecoder;
 
 public abstract class LinkableDivrollBase extends DivrollBase {
 	protected DivrollLink processLink(JSONObject linksObj) {
-		try {
-			if (linksObj != null) {
-				String linkName = linksObj.getString("linkName");
-				JSONArray entities = linksObj.getJSONArray("entities");
-				List<DivrollEntityStub> divrollEntities = new LinkedList<>();
-				if (entities != null) {
-					for (int i = 0; i < entities.length(); i++) {
-						JSONObject entity = entities.getJSONObject(i);
-						DivrollEntityStub divrollEntity = DivrollEntityHelper.convertStub(entity);
-						divrollEntities.add(divrollEntity);
-					}
-				} else {
-					JSONObject entity = linksObj.getJSONObject("entities");
-					DivrollEntityStub divrollEntity = DivrollEntityHelper.convertStub(entity);
-					divrollEntities.add(divrollEntity);
-				}
-				return new DivrollLink(linkName, divrollEntities);
-			}
-		} catch (Exception e) {
-
+		if (linksObj == null) {
+			return null;
 		}
-		return null;
+		return DivrollEntityDecoder.decodeLink(linksObj);
 	}
 
 }
@@ -0,0 +1,276 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.util.EntityUtils;
+
+import com.divroll.backend.sdk.exception.DivrollException;
+import com.mashape.unirest.http.exceptions.UnirestException;
+import com.mashape.unirest.request.BaseRequest;
+
+/**
+ * Downloads a blob as fixed-size chunks fetched with concurrent HTTP Range
+ * requests, each written to the target file at its own offset. Finished
+ * chunks are recorded in a journal next to the target, so an interrupted
+ * download resumes with the missing chunks as long as the blob's validator
+ * (ETag or Last-Modified) is unchanged.
+ */
+final class RangedBlobDownload {
+
+	static final long DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final String JOURNAL_SUFFIX = ".divroll-journal";
+
+	private final DivrollEntity entity;
+	private final String blobKey;
+	private final Path target;
+	private final Path journal;
+	private final int parallelism;
+	private final long chunkSize;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private long length;
+	private String validator;
+
+	RangedBlobDownload(DivrollEntity entity, String blobKey, Path target, int parallelism, long chunkSize) {
+		if (parallelism < 1 || chunkSize < 1) {
+			throw new DivrollException("Parallelism and chunk size must be at least 1");
+		}
+		this.entity = entity;
+		this.blobKey = blobKey;
+		this.target = target;
+		this.journal = target.resolveSibling(target.getFileName() + JOURNAL_SUFFIX);
+		this.parallelism = parallelism;
+		this.chunkSize = chunkSize;
+	}
+
+	long run() throws IOException, UnirestException {
+		if (probe()) {
+			Files.deleteIfExists(journal);
+			return length;
+		}
+		int chunks = (int) ((length + chunkSize - 1) / chunkSize);
+		Set<Integer> completed = readJournal();
+		try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			if (completed.isEmpty()) {
+				channel.truncate(0);
+				Files.write(journal, header().getBytes(StandardCharsets.UTF_8));
+			}
+			ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, chunks));
+			List<Future<Void>> futures = new ArrayList<>();
+			try {
+				for (int i = 0; i < chunks; i++) {
+					if (!completed.contains(i)) {
+						final int chunk = i;
+						futures.add(executor.submit(() -> {
+							fetch(chunk, channel);
+							return null;
+						}));
+					}
+				}
+				for (Future<Void> future : futures) {
+					await(future);
+				}
+			} finally {
+				// chunks already in flight are left to finish, interrupting them would
+				// close the shared channel
+				for (Future<Void> future : futures) {
+					future.cancel(false);
+				}
+				executor.shutdown();
+				awaitTermination(executor);
+			}
+			channel.truncate(length);
+			channel.force(true);
+		}
+		Files.deleteIfExists(journal);
+		return length;
+	}
+
+	/**
+	 * Requests the first byte to learn the blob's length and validator. Returns
+	 * true when the server ignored the range and the whole blob was already
+	 * written to the target.
+	 */
+	private boolean probe() throws UnirestException {
+		BaseRequest request = entity.blobRequest(blobKey);
+		request.getHttpRequest().header("Range", "bytes=0-0");
+		request.getHttpRequest().header("Accept-Encoding", "identity");
+		return entity.getClient().execute(request, response -> {
+			int status = response.getStatusLine().getStatusCode();
+			HttpEntity body = response.getEntity();
+			if (status == 200 && body != null) {
+				try (InputStream is = body.getContent()) {
+					length = Files.copy(is, target, StandardCopyOption.REPLACE_EXISTING);
+				}
+				return true;
+			} else if (status == 206 || status == 416) {
+				EntityUtils.consume(body);
+				length = totalLength(response.getFirstHeader("Content-Range"));
+				validator = validator(response.getFirstHeader("ETag"), response.getFirstHeader("Last-Modified"));
+				if (length == 0) {
+					Files.write(target, new byte[0]);
+					return true;
+				}
+				return false;
+			}
+			DivrollEntity.checkBlobResponse(status, response.getStatusLine().getReasonPhrase());
+			throw new DivrollException("Unexpected response status " + status);
+		});
+	}
+
+	private void fetch(int chunk, FileChannel channel) throws IOException, UnirestException {
+		long from = chunk * chunkSize;
+		long to = Math.min(length, from + chunkSize) - 1;
+		BaseRequest request = entity.blobRequest(blobKey);
+		request.getHttpRequest().header("Range", "bytes=" + from + "-" + to);
+		request.getHttpRequest().header("Accept-Encoding", "identity");
+		if (validator != null) {
+			request.getHttpRequest().header("If-Range", validator);
+		}
+		entity.getClient().execute(request, response -> {
+			int status = response.getStatusLine().getStatusCode();
+			if (status == 200) {
+				throw new DivrollException("Blob changed while it was downloaded");
+			} else if (status != 206 || response.getEntity() == null) {
+				DivrollEntity.checkBlobResponse(status, response.getStatusLine().getReasonPhrase());
+				throw new DivrollException("Unexpected response status " + status);
+			}
+			long position = from;
+			byte[] buffer = new byte[BUFFER_SIZE];
+			try (InputStream is = response.getEntity().getContent()) {
+				int read;
+				while ((read = is.read(buffer)) != -1) {
+					ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+					while (byteBuffer.hasRemaining()) {
+						position += channel.write(byteBuffer, position);
+					}
+				}
+			}
+			if (position != to + 1) {
+				throw new IOException("Range " + from + "-" + to + " ended at " + position);
+			}
+			return null;
+		});
+		channel.force(false);
+		complete(chunk);
+	}
+
+	private void complete(int chunk) throws IOException {
+		lock.lock();
+		try {
+			Files.write(journal, (chunk + "\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private Set<Integer> readJournal() throws IOException {
+		Set<Integer> completed = new HashSet<>();
+		if (validator == null || !Files.exists(journal) || !Files.exists(target)) {
+			return completed;
+		}
+		List<String> lines = Files.readAllLines(journal, StandardCharsets.UTF_8);
+		if (lines.isEmpty() || !lines.get(0).equals(header().trim())) {
+			return completed;
+		}
+		for (String line : lines.subList(1, lines.size())) {
+			if (!line.isEmpty()) {
+				completed.add(Integer.valueOf(line));
+			}
+		}
+		return completed;
+	}
+
+	private String header() {
+		return length + " " + chunkSize + " " + validator + "\n";
+	}
+
+	private void await(Future<Void> future) throws IOException, UnirestException {
+		try {
+			future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DivrollException(e.getMessage());
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof UnirestException) {
+				throw (UnirestException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new DivrollException(cause.getMessage());
+		}
+	}
+
+	private static void awaitTermination(ExecutorService executor) {
+		try {
+			while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+				// keep waiting for running chunks
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static long totalLength(Header contentRange) {
+		String value = contentRange != null ? contentRange.getValue() : null;
+		int slash = value != null ? value.lastIndexOf('/') : -1;
+		if (slash < 0 || value.endsWith("*")) {
+			throw new DivrollException("Missing blob length in Content-Range");
+		}
+		return Long.parseLong(value.substring(slash + 1).trim());
+	}
+
+	private static String validator(Header etag, Header lastModified) {
+		if (etag != null && !etag.getValue().startsWith("W/")) {
+			return etag.getValue();
+		}
+		return lastModified != null ? lastModified.getValue() : null;
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+
+import com.google.common.io.ByteStreams;
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.http.exceptions.UnirestException;
+import com.mashape.unirest.request.BaseRequest;
+
+/**
+ * Lets concurrent identical requests share a single HTTP exchange. The first
+ * caller sends the request and buffers the response; every caller, the first
+ * one included, then decodes its own {@link HttpResponse} from those bytes, so
+ * no two callers share a mutable body.
+ */
+final class SingleFlight {
+
+	interface Call {
+		HttpResponse<InputStream> execute() throws UnirestException;
+	}
+
+	private final ConcurrentMap<String, CompletableFuture<Snapshot>> inFlight;
+
+	SingleFlight() {
+		this.inFlight = new ConcurrentHashMap<String, CompletableFuture<Snapshot>>();
+	}
+
+	<T> HttpResponse<T> execute(BaseRequest request, Class<T> responseClass, Call call) throws UnirestException {
+		String key = key(request);
+		CompletableFuture<Snapshot> flight = new CompletableFuture<Snapshot>();
+		CompletableFuture<Snapshot> existing = inFlight.putIfAbsent(key, flight);
+		if (existing != null) {
+			return DivrollClient.await(existing).copy(responseClass);
+		}
+		try {
+			flight.complete(new Snapshot(call.execute()));
+		} catch (UnirestException | RuntimeException e) {
+			flight.completeExceptionally(e);
+		} finally {
+			inFlight.remove(key, flight);
+		}
+		return DivrollClient.await(flight).copy(responseClass);
+	}
+
+	<T> CompletableFuture<HttpResponse<T>> executeAsync(BaseRequest request, Class<T> responseClass,
+			Supplier<CompletableFuture<HttpResponse<InputStream>>> call) {
+		String key = key(request);
+		CompletableFuture<Snapshot> flight = new CompletableFuture<Snapshot>();
+		CompletableFuture<Snapshot> existing = inFlight.putIfAbsent(key, flight);
+		if (existing == null) {
+			existing = flight;
+			call.get().whenComplete((response, throwable) -> {
+				inFlight.remove(key, flight);
+				if (throwable != null) {
+					flight.completeExceptionally(throwable);
+					return;
+				}
+				try {
+					flight.complete(new Snapshot(response));
+				} catch (UnirestException e) {
+					flight.completeExceptionally(e);
+				}
+			});
+		}
+		// callers cancelling their own result must not cancel the shared flight
+		CompletableFuture<HttpResponse<T>> result = new CompletableFuture<HttpResponse<T>>();
+		existing.whenComplete((snapshot, throwable) -> {
+			if (throwable != null) {
+				result.completeExceptionally(throwable);
+				return;
+			}
+			try {
+				result.complete(snapshot.copy(responseClass));
+			} catch (UnirestException e) {
+				result.completeExceptionally(e);
+			}
+		});
+		return result;
+	}
+
+	int size() {
+		return inFlight.size();
+	}
+
+	private static String key(BaseRequest request) {
+		return request.getHttpRequest().getHttpMethod() + " " + request.getHttpRequest().getUrl() + " "
+				+ new TreeMap<String, List<String>>(request.getHttpRequest().getHeaders());
+	}
+
+	private static final class Snapshot {
+
+		private final int status;
+		private final String statusText;
+		private final Map<String, List<String>> headers;
+		private final byte[] body;
+
+		Snapshot(HttpResponse<InputStream> response) throws UnirestException {
+			this.status = response.getStatus();
+			this.statusText = response.getStatusText();
+			this.headers = response.getHeaders();
+			try {
+				this.body = response.getRawBody() != null ? ByteStreams.toByteArray(response.getRawBody()) : null;
+			} catch (IOException e) {
+				throw new UnirestException(e);
+			}
+		}
+
+		<T> HttpResponse<T> copy(Class<T> responseClass) throws UnirestException {
+			BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, status, statusText);
+			for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+				for (String value : header.getValue()) {
+					response.addHeader(header.getKey(), value);
+				}
+			}
+			if (body != null) {
+				ByteArrayEntity entity = new ByteArrayEntity(body);
+				if (response.getFirstHeader(HttpHeaders.CONTENT_TYPE) != null) {
+					entity.setContentType(response.getFirstHeader(HttpHeaders.CONTENT_TYPE));
+				}
+				response.setEntity(entity);
+			}
+			try {
+				return new HttpResponse<T>(response, responseClass);
+			} catch (RuntimeException e) {
+				throw new UnirestException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,231 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk.helper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.divroll.backend.sdk.DivrollACL;
+import com.divroll.backend.sdk.DivrollEntity;
+import com.divroll.backend.sdk.DivrollEntityStub;
+import com.divroll.backend.sdk.DivrollLink;
+
+/**
+ * Decodes entity JSON returned by the server in a single pass over its keys,
+ * dispatching on the runtime type of each value instead of probing with
+ * try/catch.
+ */
+public class DivrollEntityDecoder {
+
+	public static final String ENTITY_ID = "entityId";
+	public static final String ENTITY_TYPE = "entityType";
+	public static final String PUBLIC_READ = "publicRead";
+	public static final String PUBLIC_WRITE = "publicWrite";
+	public static final String ACL_READ = "aclRead";
+	public static final String ACL_WRITE = "aclWrite";
+	public static final String DATE_CREATED = "dateCreated";
+	public static final String DATE_UPDATED = "dateUpdated";
+	public static final String LINKS = "links";
+	public static final String LINK_NAME = "linkName";
+	public static final String ENTITIES = "entities";
+
+	private DivrollEntityDecoder() {
+	}
+
+	public static DivrollEntity decode(JSONObject entityJSONObject, DivrollEntity divrollEntity) {
+		return decode(entityJSONObject, divrollEntity, null);
+	}
+
+	/**
+	 * Decodes only the entity id and the given fields, or every key if
+	 * {@code fields} is null. Metadata such as ACLs and links count as fields
+	 * under their JSON key.
+	 */
+	public static DivrollEntity decode(JSONObject entityJSONObject, DivrollEntity divrollEntity,
+			Collection<String> fields) {
+		Boolean publicRead = null;
+		Boolean publicWrite = null;
+		List<String> aclRead = null;
+		List<String> aclWrite = null;
+		List<DivrollLink> links = null;
+		Iterator<String> it = entityJSONObject.keys();
+		while (it.hasNext()) {
+			String propertyKey = it.next();
+			if (!isSelected(propertyKey, fields)) {
+				continue;
+			}
+			Object value = entityJSONObject.opt(propertyKey);
+			switch (propertyKey) {
+			case ENTITY_ID:
+				if (value instanceof String) {
+					divrollEntity.setEntityId((String) value);
+				}
+				break;
+			case PUBLIC_READ:
+				publicRead = value instanceof Boolean ? (Boolean) value : null;
+				break;
+			case PUBLIC_WRITE:
+				publicWrite = value instanceof Boolean ? (Boolean) value : null;
+				break;
+			case ACL_READ:
+				aclRead = decodeAcl(value);
+				break;
+			case ACL_WRITE:
+				aclWrite = decodeAcl(value);
+				break;
+			case DATE_CREATED:
+				if (value instanceof String) {
+					divrollEntity.setDateCreated((String) value);
+				}
+				divrollEntity.put(DATE_CREATED, value);
+				break;
+			case DATE_UPDATED:
+				if (value instanceof String) {
+					divrollEntity.setDateUpdated((String) value);
+				}
+				divrollEntity.put(DATE_UPDATED, value);
+				break;
+			case LINKS:
+				links = decodeLinks(value);
+				divrollEntity.put(LINKS, value);
+				break;
+			default:
+				divrollEntity.put(propertyKey, value);
+			}
+		}
+		DivrollACL acl = new DivrollACL(aclRead, aclWrite);
+		acl.setPublicRead(publicRead);
+		acl.setPublicWrite(publicWrite);
+		divrollEntity.setAcl(acl);
+		if (links != null) {
+			divrollEntity.setLinks(links);
+		}
+		return divrollEntity;
+	}
+
+	public static boolean isSelected(String key, Collection<String> fields) {
+		return fields == null || key.equals(ENTITY_ID) || fields.contains(key);
+	}
+
+	/**
+	 * Resolves an ACL value, which the server sends as an array of entity stubs,
+	 * a single stub or a bare entity id, into the list of entity ids.
+	 */
+	public static List<String> decodeAcl(Object value) {
+		if (value instanceof JSONArray) {
+			JSONArray jsonArray = (JSONArray) value;
+			List<String> list = new ArrayList<String>(jsonArray.length());
+			for (int i = 0; i < jsonArray.length(); i++) {
+				String entityId = stubId(jsonArray.opt(i));
+				if (entityId != null) {
+					list.add(entityId);
+				}
+			}
+			return list;
+		}
+		String entityId = stubId(value);
+		if (entityId != null) {
+			List<String> list = new ArrayList<String>(1);
+			list.add(entityId);
+			return list;
+		}
+		return null;
+	}
+
+	public static DivrollLink decodeLink(JSONObject linkJSONObject) {
+		Object linkName = linkJSONObject.opt(LINK_NAME);
+		Object entities = linkJSONObject.opt(ENTITIES);
+		if (!(linkName instanceof String)) {
+			return null;
+		}
+		List<DivrollEntityStub> stubs;
+		if (entities instanceof JSONArray) {
+			JSONArray jsonArray = (JSONArray) entities;
+			stubs = new ArrayList<DivrollEntityStub>(jsonArray.length());
+			for (int i = 0; i < jsonArray.length(); i++) {
+				DivrollEntityStub stub = decodeStub(jsonArray.opt(i));
+				if (stub != null) {
+					stubs.add(stub);
+				}
+			}
+		} else {
+			stubs = new ArrayList<DivrollEntityStub>(1);
+			DivrollEntityStub stub = decodeStub(entities);
+			if (stub != null) {
+				stubs.add(stub);
+			}
+		}
+		return new DivrollLink((String) linkName, stubs);
+	}
+
+	private static List<DivrollLink> decodeLinks(Object value) {
+		List<DivrollLink> links = null;
+		if (value instanceof JSONArray) {
+			JSONArray jsonArray = (JSONArray) value;
+			links = new ArrayList<DivrollLink>(jsonArray.length());
+			for (int i = 0; i < jsonArray.length(); i++) {
+				Object element = jsonArray.opt(i);
+				DivrollLink link = element instanceof JSONObject ? decodeLink((JSONObject) element) : null;
+				if (link != null) {
+					links.add(link);
+				}
+			}
+		} else if (value instanceof JSONObject) {
+			DivrollLink link = decodeLink((JSONObject) value);
+			if (link != null) {
+				links = new ArrayList<DivrollLink>(1);
+				links.add(link);
+			}
+		}
+		return links;
+	}
+
+	private static DivrollEntityStub decodeStub(Object value) {
+		if (value instanceof JSONObject) {
+			JSONObject stub = (JSONObject) value;
+			Object entityId = stub.opt(ENTITY_ID);
+			Object entityType = stub.opt(ENTITY_TYPE);
+			if (entityId instanceof String) {
+				return new DivrollEntityStub(entityType instanceof String ? (String) entityType : null,
+						(String) entityId);
+			}
+		}
+		return null;
+	}
+
+	private static String stubId(Object value) {
+		if (value instanceof String) {
+			return (String) value;
+		} else if (value instanceof JSONObject) {
+			Object entityId = ((JSONObject) value).opt(ENTITY_ID);
+			if (entityId instanceof String) {
+				return (String) entityId;
+			}
+		}
+		return null;
+	}
+}
@@ -46,94 +46,36 @@ public class JSON {
 	public static List<Object> toArray(JSONArray jsonArray) {
 		List<Object> list = new LinkedList<Object>();
 		for (int i = 0; i < jsonArray.length(); i++) {
-
-			try {
-				if (jsonArray.get(i) == null) {
-					list.add(null);
-				}
-			} catch (Exception e) {
-
-			}
-
-			try {
-				JSONObject value = jsonArray.getJSONObject(i);
-				list.add(toMap(value));
-			} catch (Exception e) {
-
-			}
-
-			try {
-				JSONArray value = jsonArray.getJSONArray(i);
-				list.add(toArray(value));
-			} catch (Exception e) {
-
-			}
-
-			try {
-				Double value = jsonArray.getDouble(i);
-				list.add(value);
-			} catch (Exception e) {
-
-			}
-
-			try {
-				Boolean value = jsonArray.getBoolean(i);
-				list.add(value);
-			} catch (Exception e) {
-
-			}
-			try {
-				String value = jsonArray.getString(i);
-				list.add(value);
-			} catch (Exception e) {
-
-			}
+			list.add(toValue(jsonArray.opt(i)));
 		}
 		return list;
 	}
 
 	public static Map<String, Object> toMap(JSONObject jsonObject) {
-		Iterator<String> it = jsonObject.keySet().iterator();
+		Iterator<String> it = jsonObject.keys();
 		Map<String, Object> enittyMap = new LinkedHashMap<String, Object>();
 		while (it.hasNext()) {
 			String k = it.next();
-			try {
-				JSONObject jso = jsonObject.getJSONObject(k);
-				enittyMap.put(k, toMap(jso));
-			} catch (Exception e) {
-
-			}
-			try {
-				JSONArray jsa = jsonObject.getJSONArray(k);
-				enittyMap.put(k, toArray(jsa));
-			} catch (Exception e) {
-
-			}
-			try {
-				Boolean value = jsonObject.getBoolean(k);
-				enittyMap.put(k, value);
-			} catch (Exception e) {
-
-			}
-			try {
-				Long value = jsonObject.getLong(k);
-				enittyMap.put(k, value);
-			} catch (Exception e) {
-
-			}
-			try {
-				Double value = jsonObject.getDouble(k);
-				enittyMap.put(k, value);
-			} catch (Exception e) {
-
-			}
-			try {
-				String value = jsonObject.getString(k);
-				enittyMap.put(k, value);
-			} catch (Exception e) {
-
-			}
+			enittyMap.put(k, toValue(jsonObject.opt(k)));
 		}
 		return enittyMap;
 	}
+
+	/**
+	 * Converts a raw org.json value by its runtime type. Numbers are widened to
+	 * Double, which is what nested property values have always been returned
+	 * as.
+	 */
+	public static Object toValue(Object value) {
+		if (value == null || value == JSONObject.NULL) {
+			return null;
+		} else if (value instanceof JSONObject) {
+			return toMap((JSONObject) value);
+		} else if (value instanceof JSONArray) {
+			return toArray((JSONArray) value);
+		} else if (value instanceof Number) {
+			return ((Number) value).doubleValue();
+		}
+		return value;
+	}
 }
@@ -0,0 +1,150 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk.helper;
+
+import org.json.JSONException;
+import org.json.JSONTokener;
+
+/**
+ * Walks JSON text one member at a time so that callers can decode large
+ * documents without first building the whole tree. Values a handler does not
+ * descend into must be consumed with {@link JSONTokener#nextValue()}.
+ */
+public class JSONStream {
+
+	public interface MemberHandler {
+		void member(String key, JSONTokener tokener) throws JSONException;
+	}
+
+	public interface ElementHandler {
+		void element(JSONTokener tokener) throws JSONException;
+	}
+
+	private JSONStream() {
+	}
+
+	public static void readObject(JSONTokener tokener, MemberHandler handler) throws JSONException {
+		if (tokener.nextClean() != '{') {
+			throw tokener.syntaxError("A JSONObject text must begin with '{'");
+		}
+		if (tokener.nextClean() == '}') {
+			return;
+		}
+		tokener.back();
+		for (;;) {
+			char quote = tokener.nextClean();
+			if (quote != '"' && quote != '\'') {
+				throw tokener.syntaxError("Expected a quoted key");
+			}
+			String key = tokener.nextString(quote);
+			if (tokener.nextClean() != ':') {
+				throw tokener.syntaxError("Expected a ':' after a key");
+			}
+			handler.member(key, tokener);
+			switch (tokener.nextClean()) {
+			case ',':
+				break;
+			case '}':
+				return;
+			default:
+				throw tokener.syntaxError("Expected a ',' or '}'");
+			}
+		}
+	}
+
+	public static void readArray(JSONTokener tokener, ElementHandler handler) throws JSONException {
+		if (tokener.nextClean() != '[') {
+			throw tokener.syntaxError("A JSONArray text must start with '['");
+		}
+		if (tokener.nextClean() == ']') {
+			return;
+		}
+		tokener.back();
+		for (;;) {
+			handler.element(tokener);
+			switch (tokener.nextClean()) {
+			case ',':
+				break;
+			case ']':
+				return;
+			default:
+				throw tokener.syntaxError("Expected a ',' or ']'");
+			}
+		}
+	}
+
+	/**
+	 * Consumes the next value without building it.
+	 */
+	public static void skipValue(JSONTokener tokener) throws JSONException {
+		int depth = 0;
+		do {
+			char c = tokener.nextClean();
+			switch (c) {
+			case 0:
+				throw tokener.syntaxError("Unterminated value");
+			case '"':
+			case '\'':
+				skipString(tokener, c);
+				break;
+			case '{':
+			case '[':
+				depth++;
+				break;
+			case '}':
+			case ']':
+				depth--;
+				break;
+			default:
+				if (depth == 0) {
+					while (c >= ' ' && ",:]}/\\\"[{;=#".indexOf(c) < 0) {
+						c = tokener.next();
+					}
+					tokener.back();
+				}
+			}
+		} while (depth > 0);
+	}
+
+	private static void skipString(JSONTokener tokener, char quote) throws JSONException {
+		for (;;) {
+			char c = tokener.next();
+			if (c == 0 || c == '\n' || c == '\r') {
+				throw tokener.syntaxError("Unterminated string");
+			} else if (c == '\\') {
+				tokener.next();
+			} else if (c == quote) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns the first significant character of the next value without
+	 * consuming it.
+	 */
+	public static char peek(JSONTokener tokener) throws JSONException {
+		char c = tokener.nextClean();
+		tokener.back();
+		return c;
+	}
+}
@@ -0,0 +1,260 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+import org.apache.http.message.BasicHttpResponse;
+
+/**
+ * A transport on the JDK's own {@link HttpClient}, which needs no third party
+ * HTTP stack. It negotiates HTTP/2 where the server supports it, over ALPN for
+ * https and by upgrade for plain http, and then multiplexes concurrent
+ * requests over one connection per server. Blocking calls park on the
+ * client's futures rather than holding a monitor during I/O. Needs Java 11 or
+ * later; it is compiled separately from the Java 8 classes of the SDK.
+ */
+public class JdkDivrollTransport implements DivrollTransport {
+
+	private static final ProtocolVersion HTTP_2 = new ProtocolVersion("HTTP", 2, 0);
+	// headers the JDK client sets itself and rejects from callers
+	private static final Set<String> RESTRICTED_HEADERS = new HashSet<String>(
+			Arrays.asList("connection", "content-length", "expect", "host", "upgrade"));
+
+	private final DivrollClientConfig config;
+	private final ExecutorService executor;
+	private final HttpClient client;
+
+	public JdkDivrollTransport(DivrollClientConfig config) {
+		this.config = config;
+		this.executor = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "divroll-jdk-transport");
+			thread.setDaemon(true);
+			return thread;
+		});
+		HttpClient.Builder builder = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2)
+				.followRedirects(HttpClient.Redirect.NEVER).executor(executor);
+		if (config.getConnectTimeout() > 0) {
+			builder.connectTimeout(Duration.ofMillis(config.getConnectTimeout()));
+		}
+		this.client = builder.build();
+	}
+
+	@Override
+	public CloseableHttpResponse execute(HttpUriRequest request) throws IOException {
+		java.net.http.HttpResponse<InputStream> response;
+		try {
+			response = client.send(toHttpRequest(request), java.net.http.HttpResponse.BodyHandlers.ofInputStream());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while sending " + request.getURI());
+		}
+		Response streamed = new Response(response);
+		long length = response.headers().firstValueAsLong(HttpHeaders.CONTENT_LENGTH).orElse(-1);
+		if (request.getMethod().equals("HEAD")) {
+			response.body().close();
+		} else {
+			streamed.setEntity(streamed.describe(new InputStreamEntity(response.body(), length)));
+		}
+		return streamed;
+	}
+
+	/**
+	 * Sends the request on the client's non-blocking exchange. Cancelling the
+	 * returned future cancels the exchange, which on Java 16 and later aborts
+	 * the request and resets its stream or closes its connection.
+	 */
+	@Override
+	public Future<HttpResponse> execute(HttpUriRequest request, FutureCallback<HttpResponse> callback) {
+		final CompletableFuture<java.net.http.HttpResponse<byte[]>> exchange;
+		try {
+			exchange = client.sendAsync(toHttpRequest(request),
+					java.net.http.HttpResponse.BodyHandlers.ofByteArray());
+		} catch (IOException | RuntimeException e) {
+			callback.failed(e);
+			CompletableFuture<HttpResponse> failed = new CompletableFuture<HttpResponse>();
+			failed.completeExceptionally(e);
+			return failed;
+		}
+		// the callback is signalled by whichever completes the result first
+		final CompletableFuture<HttpResponse> result = new CompletableFuture<HttpResponse>() {
+			@Override
+			public boolean cancel(boolean mayInterruptIfRunning) {
+				boolean cancelled = super.cancel(mayInterruptIfRunning);
+				if (cancelled) {
+					exchange.cancel(true);
+					callback.cancelled();
+				}
+				return cancelled;
+			}
+		};
+		exchange.whenComplete((response, throwable) -> {
+			if (throwable != null) {
+				Exception e = unwrap(throwable);
+				if (result.completeExceptionally(e)) {
+					callback.failed(e);
+				}
+				return;
+			}
+			Response buffered = new Response(response);
+			if (!request.getMethod().equals("HEAD")) {
+				buffered.setEntity(buffered.describe(new ByteArrayEntity(response.body())));
+			}
+			if (result.complete(buffered)) {
+				callback.completed(buffered);
+			}
+		});
+		return result;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			// HttpClient has shutdownNow from Java 21; before that its selector
+			// thread ends once the client is no longer reachable
+			HttpClient.class.getMethod("shutdownNow").invoke(client);
+		} catch (ReflectiveOperationException e) {
+			// not available on this JDK
+		}
+		executor.shutdownNow();
+	}
+
+	private HttpRequest toHttpRequest(HttpUriRequest request) throws IOException {
+		HttpRequest.Builder builder;
+		try {
+			builder = HttpRequest.newBuilder(request.getURI());
+		} catch (IllegalArgumentException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+		if (config.getSocketTimeout() > 0) {
+			// bounds the wait for the response headers, not the body
+			builder.timeout(Duration.ofMillis(config.getSocketTimeout()));
+		}
+		for (Header header : request.getAllHeaders()) {
+			if (!RESTRICTED_HEADERS.contains(header.getName().toLowerCase(Locale.ROOT))) {
+				builder.header(header.getName(), header.getValue());
+			}
+		}
+		HttpEntity entity = request instanceof HttpEntityEnclosingRequest
+				? ((HttpEntityEnclosingRequest) request).getEntity()
+				: null;
+		if (entity == null) {
+			return builder.method(request.getMethod(), HttpRequest.BodyPublishers.noBody()).build();
+		}
+		if (entity.getContentType() != null && request.getFirstHeader(HttpHeaders.CONTENT_TYPE) == null) {
+			builder.header(HttpHeaders.CONTENT_TYPE, entity.getContentType().getValue());
+		}
+		if (entity.getContentEncoding() != null) {
+			builder.header(HttpHeaders.CONTENT_ENCODING, entity.getContentEncoding().getValue());
+		}
+		return builder.method(request.getMethod(), publisher(entity)).build();
+	}
+
+	private static HttpRequest.BodyPublisher publisher(HttpEntity entity) throws IOException {
+		InputStream content;
+		try {
+			content = entity.getContent();
+		} catch (UnsupportedOperationException e) {
+			// entities that can only write themselves out, like compressing ones
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			entity.writeTo(buffer);
+			return HttpRequest.BodyPublishers.ofByteArray(buffer.toByteArray());
+		}
+		HttpRequest.BodyPublisher stream = HttpRequest.BodyPublishers.ofInputStream(() -> content);
+		return entity.getContentLength() >= 0
+				? HttpRequest.BodyPublishers.fromPublisher(stream, entity.getContentLength())
+				: stream;
+	}
+
+	private static Exception unwrap(Throwable throwable) {
+		Throwable cause = throwable;
+		while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+				&& cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		return cause instanceof Exception ? (Exception) cause : new ExecutionException(cause);
+	}
+
+	private static final class Response extends BasicHttpResponse implements CloseableHttpResponse {
+
+		Response(java.net.http.HttpResponse<?> response) {
+			super(response.version() == HttpClient.Version.HTTP_2 ? HTTP_2 : HttpVersion.HTTP_1_1,
+					response.statusCode(), EnglishReasonPhraseCatalog.INSTANCE.getReason(response.statusCode(), null));
+			for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+				if (header.getKey().startsWith(":")) {
+					continue;
+				}
+				for (String value : header.getValue()) {
+					addHeader(header.getKey(), value);
+				}
+			}
+		}
+
+		HttpEntity describe(AbstractHttpEntity entity) {
+			entity.setContentType(getFirstHeader(HttpHeaders.CONTENT_TYPE));
+			entity.setContentEncoding(getFirstHeader(HttpHeaders.CONTENT_ENCODING));
+			return entity;
+		}
+
+		@Override
+		public void close() throws IOException {
+			HttpEntity entity = getEntity();
+			if (entity != null && entity.isStreaming()) {
+				// closing the stream early cancels the rest of the exchange, and
+				// a fully read one leaves its connection to the client's pool
+				entity.getContent().close();
+			}
+		}
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.divroll.backend.sdk.exception.UnauthorizedException;
+
+import junit.framework.TestCase;
+
+@RunWith(JUnit4.class)
+public class TestDivrollClient extends TestCase {
+
+	private static final String ENTITY_JSON = "{\"entity\":{\"entityId\":\"1\",\"name\":\"test\","
+			+ "\"publicRead\":true,\"publicWrite\":false,\"aclRead\":[],\"aclWrite\":[]}}";
+
+	@Test
+	public void testClientsUseOwnCredentials() throws IOException {
+		try (TestServer server = new TestServer()) {
+			server.json("/entities/TestEntity/1", 200, ENTITY_JSON);
+
+			DivrollClientConfig config = DivrollClientConfig.build();
+			config.setMaxConnectionsPerRoute(2);
+			config.setMaxTotalConnections(4);
+			try (DivrollClient first = new DivrollClient(server.getServerUrl(), "app1", "key1", null, config);
+					DivrollClient second = new DivrollClient(server.getServerUrl(), "app2", "key2")) {
+				DivrollEntity entity = new DivrollEntity(first, "TestEntity");
+				entity.setEntityId("1");
+				entity.retrieve();
+				Assert.assertEquals("test", entity.getProperty("name"));
+
+				DivrollEntity other = new DivrollEntity(second, "TestEntity");
+				other.setEntityId("1");
+				other.retrieve();
+
+				Assert.assertEquals(2, server.getRequestHeaders().size());
+				Assert.assertEquals("app1", server.getRequestHeaders().get(0).getFirst(DivrollBase.HEADER_APP_ID));
+				Assert.assertEquals("app2", server.getRequestHeaders().get(1).getFirst(DivrollBase.HEADER_APP_ID));
+				Assert.assertEquals(0, first.getLeasedConnections());
+			}
+		}
+	}
+
+	@Test
+	public void testAsyncRetrieveAndQuery() throws Exception {
+		try (TestServer server = new TestServer()) {
+			server.json("/entities/TestEntity/1", 200, ENTITY_JSON);
+			server.json("/entities/TestEntity", 200, "{\"entities\":{\"results\":[{\"entityId\":\"1\"},"
+					+ "{\"entityId\":\"2\"}],\"count\":2}}");
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key")) {
+				DivrollEntity entity = new DivrollEntity(client, "TestEntity");
+				entity.setEntityId("1");
+				CompletableFuture<DivrollEntity> retrieved = entity.retrieveAsync();
+
+				DivrollEntities entities = new DivrollEntities(client, "TestEntity");
+				entities.setCount(true);
+				CompletableFuture<DivrollEntities> queried = entities.queryAsync();
+
+				Assert.assertEquals("test", retrieved.get(10, TimeUnit.SECONDS).getProperty("name"));
+				Assert.assertEquals(2, queried.get(10, TimeUnit.SECONDS).getEntities().size());
+				Assert.assertEquals(Long.valueOf(2), entities.getResult());
+			}
+		}
+	}
+
+	@Test
+	public void testAsyncFailureCompletesExceptionally() throws Exception {
+		try (TestServer server = new TestServer()) {
+			server.json("/entities/TestEntity/1", 401, "{}");
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key")) {
+				DivrollEntity entity = new DivrollEntity(client, "TestEntity");
+				entity.setEntityId("1");
+				try {
+					entity.retrieveAsync().get(10, TimeUnit.SECONDS);
+					Assert.fail();
+				} catch (ExecutionException e) {
+					Assert.assertTrue(e.getCause() instanceof UnauthorizedException);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testDefaultClientFollowsInitialize() {
+		Divroll.initialize(Divroll.getServerUrl(), "appId", "apiKey", "masterKey");
+		DivrollEntity entity = new DivrollEntity("TestEntity");
+		Assert.assertSame(Divroll.getClient(), entity.getClient());
+		Assert.assertEquals("appId", entity.getClient().getAppId());
+		Assert.assertEquals("masterKey", entity.getClient().getMasterKey());
+	}
+}
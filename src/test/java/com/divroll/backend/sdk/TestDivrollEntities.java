@@ -21,8 +21,28 @@
  */
 package com.divroll.backend.sdk;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
+import org.json.JSONObject;
 import org.fluttercode.datafactory.impl.DataFactory;
 import org.junit.Assert;
 import org.junit.Rule;
@@ -30,6 +50,12 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.divroll.backend.sdk.exception.BadRequestException;
+import com.divroll.backend.sdk.exception.UnauthorizedException;
+import com.google.common.io.ByteStreams;
 
 import junit.framework.TestCase;
 
@@ -154,4 +180,501 @@ public class TestDivrollEntities extends TestCase {
 		System.out.println("count=" + entities.getResult());
 
 	}
+
+	@Test
+	public void testStreamingQuery() throws IOException {
+		StringBuilder page = new StringBuilder("{\"entities\":{\"skip\":0,\"results\":[");
+		for (int i = 0; i < 1000; i++) {
+			if (i > 0) {
+				page.append(',');
+			}
+			page.append("{\"entityId\":\"").append(i).append("\",\"nickname\":\"user").append(i)
+					.append("\",\"tags\":[\"a\",\"b\"],\"embed\":{\"nested\":true}}");
+		}
+		page.append("],\"count\":1000}}");
+
+		try (TestServer server = new TestServer()) {
+			server.json("/entities/UserProfile", 200, page.toString());
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key")) {
+				List<DivrollEntity> streamed = new LinkedList<DivrollEntity>();
+				DivrollEntities entities = new DivrollEntities(client, "UserProfile");
+				entities.query(null, streamed::add);
+				Assert.assertEquals(1000, streamed.size());
+				Assert.assertTrue(entities.getEntities().isEmpty());
+				Assert.assertEquals(Long.valueOf(1000), entities.getResult());
+				Assert.assertEquals("999", streamed.get(999).getEntityId());
+				Assert.assertEquals("user999", streamed.get(999).getProperty("nickname"));
+
+				entities.query();
+				Assert.assertEquals(1000, entities.getEntities().size());
+				Assert.assertEquals(Arrays.asList("a", "b"), entities.getEntities().get(0).getProperty("tags"));
+			}
+		}
+	}
+
+	@Test
+	public void testQueryDecodesAclAndLinks() throws IOException {
+		String page = "{\"entities\":{\"results\":["
+				+ "{\"entityId\":\"1\",\"publicRead\":true,\"publicWrite\":false,"
+				+ "\"aclRead\":[{\"entityId\":\"u1\"},{\"entityId\":\"u2\"}],\"aclWrite\":{\"entityId\":\"u3\"},"
+				+ "\"dateCreated\":\"2018-01-01\",\"nickname\":\"user1\","
+				+ "\"links\":{\"linkName\":\"friends\","
+				+ "\"entities\":[{\"entityType\":\"UserProfile\",\"entityId\":\"2\"}]}},"
+				+ "{\"entityId\":\"2\",\"aclRead\":\"u4\",\"aclWrite\":null}" + "],\"count\":2}}";
+		try (TestServer server = new TestServer()) {
+			server.json("/entities/UserProfile", 200, page);
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key")) {
+				DivrollEntities entities = new DivrollEntities(client, "UserProfile");
+				entities.query();
+				DivrollEntity first = entities.getEntities().get(0);
+				Assert.assertEquals(Boolean.TRUE, first.getAcl().getPublicRead());
+				Assert.assertEquals(Boolean.FALSE, first.getAcl().getPublicWrite());
+				Assert.assertEquals(Arrays.asList("u1", "u2"), first.getAcl().getAclRead());
+				Assert.assertEquals(Arrays.asList("u3"), first.getAcl().getAclWrite());
+				Assert.assertEquals("2018-01-01", first.getDateCreated());
+				Assert.assertEquals("user1", first.getProperty("nickname"));
+				Assert.assertEquals("friends", first.getLinks().get(0).getLinkName());
+				Assert.assertEquals("2", first.getLinks().get(0).getEntities().get(0).getEntityId());
+
+				DivrollEntity second = entities.getEntities().get(1);
+				Assert.assertNull(second.getAcl().getPublicRead());
+				Assert.assertEquals(Arrays.asList("u4"), second.getAcl().getAclRead());
+				Assert.assertTrue(second.getAcl().getAclWrite().isEmpty());
+				Assert.assertTrue(second.getLinks().isEmpty());
+			}
+		}
+	}
+
+	@Test
+	public void testStreamingQueryUnauthorized() throws IOException {
+		try (TestServer server = new TestServer()) {
+			server.json("/entities/UserProfile", 401, "{}");
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key")) {
+				DivrollEntities entities = new DivrollEntities(client, "UserProfile");
+				exception.expect(UnauthorizedException.class);
+				entities.query();
+			}
+		}
+	}
+
+	@Test
+	public void testCoalescedQuery() throws Exception {
+		AtomicInteger hits = new AtomicInteger();
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile", exchange -> {
+				hits.incrementAndGet();
+				try {
+					Thread.sleep(300);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				TestServer.send(exchange, 200, "application/json",
+						"{\"entities\":{\"results\":[{\"entityId\":\"1\"},{\"entityId\":\"2\"}],\"count\":2}}"
+								.getBytes(StandardCharsets.UTF_8));
+			});
+			DivrollClientConfig config = DivrollClientConfig.build();
+			config.setCoalescingEnabled(true);
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key", null, config)) {
+				List<DivrollEntities> queries = new ArrayList<DivrollEntities>();
+				List<Thread> threads = new ArrayList<Thread>();
+				CyclicBarrier barrier = new CyclicBarrier(8);
+				for (int i = 0; i < 8; i++) {
+					DivrollEntities entities = new DivrollEntities(client, "UserProfile");
+					queries.add(entities);
+					Thread thread = new Thread(() -> {
+						try {
+							barrier.await();
+						} catch (Exception e) {
+							throw new RuntimeException(e);
+						}
+						entities.query();
+					});
+					thread.start();
+					threads.add(thread);
+				}
+				for (Thread thread : threads) {
+					thread.join();
+				}
+				Assert.assertEquals(1, hits.get());
+				for (DivrollEntities entities : queries) {
+					Assert.assertEquals(2, entities.getEntities().size());
+					Assert.assertEquals("2", entities.getEntities().get(1).getEntityId());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testBatch() throws IOException {
+		AtomicInteger ids = new AtomicInteger();
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile", exchange -> {
+				int current = inFlight.incrementAndGet();
+				maxInFlight.accumulateAndGet(current, Math::max);
+				try {
+					Thread.sleep(5);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				inFlight.decrementAndGet();
+				String path = exchange.getRequestURI().getPath();
+				String method = exchange.getRequestMethod();
+				if (path.endsWith("/bad")) {
+					TestServer.send(exchange, 400, "application/json", null);
+				} else if (method.equals("POST")) {
+					TestServer.send(exchange, 201, "application/json",
+							("{\"entity\":{\"entityId\":\"" + ids.incrementAndGet() + "\"}}")
+									.getBytes(StandardCharsets.UTF_8));
+				} else if (method.equals("PUT")) {
+					String entityId = path.substring(path.lastIndexOf('/') + 1);
+					TestServer.send(exchange, 201, "application/json",
+							("{\"entity\":{\"entityId\":\"" + entityId + "\"}}").getBytes(StandardCharsets.UTF_8));
+				} else {
+					TestServer.send(exchange, 204, "application/json", null);
+				}
+			});
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key")) {
+				List<DivrollEntity> toCreate = new LinkedList<DivrollEntity>();
+				for (int i = 0; i < 25; i++) {
+					DivrollEntity entity = new DivrollEntity(client, "UserProfile");
+					entity.setProperty("index", i);
+					toCreate.add(entity);
+				}
+				List<DivrollBatch.Result> created = new DivrollEntities(client, "UserProfile").createAll(toCreate, 4);
+				Assert.assertEquals(25, created.size());
+				Assert.assertEquals(25, ids.get());
+				Assert.assertTrue(maxInFlight.get() <= 4);
+				for (DivrollBatch.Result result : created) {
+					Assert.assertTrue(result.isSuccess());
+					Assert.assertNotNull(result.getEntityId());
+				}
+
+				DivrollEntity bad = new DivrollEntity(client, "UserProfile");
+				bad.setEntityId("bad");
+				DivrollBatch batch = DivrollBatch.build();
+				batch.update(toCreate.get(0));
+				batch.delete(bad);
+				batch.delete(toCreate.get(1));
+				List<DivrollBatch.Result> results = batch.execute();
+				Assert.assertTrue(results.get(0).isSuccess());
+				Assert.assertFalse(results.get(1).isSuccess());
+				Assert.assertTrue(results.get(1).getError() instanceof BadRequestException);
+				Assert.assertEquals(DivrollBatch.Operation.DELETE, results.get(2).getOperation());
+				Assert.assertTrue(results.get(2).isSuccess());
+			}
+		}
+	}
+
+	@Test
+	public void testCompression() throws IOException {
+		List<String> encodings = new CopyOnWriteArrayList<String>();
+		AtomicInteger compressedPages = new AtomicInteger();
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile", exchange -> {
+				if (exchange.getRequestMethod().equals("POST")) {
+					String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+					encodings.add(String.valueOf(encoding));
+					InputStream body = exchange.getRequestBody();
+					if ("gzip".equals(encoding)) {
+						body = new GZIPInputStream(body);
+					}
+					JSONObject entity = new JSONObject(new String(ByteStreams.toByteArray(body),
+							StandardCharsets.UTF_8)).getJSONObject("entity");
+					TestServer.send(exchange, 201, "application/json", ("{\"entity\":{\"entityId\":\""
+							+ entity.getString("nickname").length() + "\"}}").getBytes(StandardCharsets.UTF_8));
+					return;
+				}
+				StringBuilder page = new StringBuilder("{\"entities\":{\"results\":[");
+				for (int i = 0; i < 50; i++) {
+					page.append(i > 0 ? "," : "").append("{\"entityId\":\"").append(i).append("\"}");
+				}
+				byte[] bytes = page.append("]}}").toString().getBytes(StandardCharsets.UTF_8);
+				String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+				if (accept != null && accept.contains("gzip")) {
+					ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+					try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+						out.write(bytes);
+					}
+					bytes = compressed.toByteArray();
+					compressedPages.incrementAndGet();
+					exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+				}
+				TestServer.send(exchange, 200, "application/json", bytes);
+			});
+			DivrollClientConfig config = DivrollClientConfig.build();
+			config.setCompressionEnabled(true);
+			config.setCompressionThreshold(512);
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key", null, config)) {
+				DivrollEntities entities = new DivrollEntities(client, "UserProfile");
+				entities.query();
+				Assert.assertEquals(50, entities.getEntities().size());
+				Iterator<DivrollEntity> iterator = entities.iterator(null);
+				Assert.assertEquals("0", iterator.next().getEntityId());
+				Assert.assertEquals(2, compressedPages.get());
+
+				char[] nickname = new char[2000];
+				Arrays.fill(nickname, 'a');
+				DivrollEntity large = new DivrollEntity(client, "UserProfile");
+				large.setProperty("nickname", new String(nickname));
+				large.create();
+				Assert.assertEquals("2000", large.getEntityId());
+				DivrollEntity small = new DivrollEntity(client, "UserProfile");
+				small.setProperty("nickname", "abc");
+				small.create();
+				Assert.assertEquals("3", small.getEntityId());
+				Assert.assertEquals(Arrays.asList("gzip", "null"), encodings);
+			}
+		}
+	}
+
+	@Test
+	public void testPagingIterator() throws IOException {
+		List<String> queries = new CopyOnWriteArrayList<String>();
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile", exchange -> {
+				String query = exchange.getRequestURI().getQuery();
+				queries.add(query);
+				int skip = Integer.parseInt(query.replaceAll(".*skip=(\\d+).*", "$1"));
+				int limit = Integer.parseInt(query.replaceAll(".*limit=(\\d+).*", "$1"));
+				StringBuilder page = new StringBuilder("{\"entities\":{\"results\":[");
+				for (int i = skip; i < Math.min(skip + limit, 250); i++) {
+					if (i > skip) {
+						page.append(',');
+					}
+					page.append("{\"entityId\":\"").append(i).append("\"}");
+				}
+				page.append("]}}");
+				TestServer.send(exchange, 200, "application/json", page.toString().getBytes(StandardCharsets.UTF_8));
+			});
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key")) {
+				DivrollEntities entities = new DivrollEntities(client, "UserProfile");
+				Iterator<DivrollEntity> iterator = entities.iterator(null);
+				int expected = 0;
+				while (iterator.hasNext()) {
+					Assert.assertEquals(String.valueOf(expected++), iterator.next().getEntityId());
+				}
+				Assert.assertEquals(250, expected);
+				Assert.assertEquals(3, queries.size());
+				Assert.assertFalse(iterator.hasNext());
+
+				queries.clear();
+				entities.setSkip(20);
+				entities.setLimit(10);
+				try (Stream<DivrollEntity> stream = entities.stream(null, 2)) {
+					List<String> ids = stream.limit(15).map(DivrollEntity::getEntityId).collect(Collectors.toList());
+					Assert.assertEquals("20", ids.get(0));
+					Assert.assertEquals("34", ids.get(14));
+				}
+				Assert.assertTrue(queries.size() <= 4);
+			}
+		}
+	}
+
+	@Test
+	public void testParallelScan() throws IOException {
+		List<String> queries = new CopyOnWriteArrayList<String>();
+		AtomicLong count = new AtomicLong(1000);
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile", exchange -> {
+				String query = exchange.getRequestURI().getQuery();
+				queries.add(query);
+				int skip = Integer.parseInt(query.replaceAll(".*skip=(\\d+).*", "$1"));
+				int limit = Integer.parseInt(query.replaceAll(".*limit=(\\d+).*", "$1"));
+				StringBuilder page = new StringBuilder("{\"entities\":{\"results\":[");
+				for (int i = skip; i < Math.min(skip + limit, 1000); i++) {
+					if (i > skip) {
+						page.append(',');
+					}
+					page.append("{\"entityId\":\"").append(i).append("\"}");
+				}
+				page.append("],\"count\":").append(count.get()).append("}}");
+				TestServer.send(exchange, 200, "application/json", page.toString().getBytes(StandardCharsets.UTF_8));
+			});
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key")) {
+				DivrollEntities entities = new DivrollEntities(client, "UserProfile");
+				entities.setLimit(30);
+				List<String> ids = entities.parallelScan(null, 4).map(DivrollEntity::getEntityId)
+						.collect(Collectors.toList());
+				Assert.assertEquals(1000, ids.size());
+				for (int i = 0; i < ids.size(); i++) {
+					Assert.assertEquals(String.valueOf(i), ids.get(i));
+				}
+				Assert.assertTrue(queries.get(0).contains("count=true"));
+				// one count query plus 34 pages, none past the counted range
+				Assert.assertEquals(35, queries.size());
+
+				queries.clear();
+				entities.setSkip(100);
+				Spliterator<DivrollEntity> suffix = entities.spliterator(null, 2);
+				Assert.assertEquals(900, suffix.estimateSize());
+				Spliterator<DivrollEntity> prefix = suffix.trySplit();
+				Assert.assertNull(suffix.trySplit());
+				Assert.assertEquals(450, prefix.estimateSize());
+				prefix.tryAdvance(entity -> Assert.assertEquals("100", entity.getEntityId()));
+				suffix.tryAdvance(entity -> Assert.assertEquals("550", entity.getEntityId()));
+
+				count.set(Long.MAX_VALUE);
+				entities.setSkip(0);
+				Spliterator<DivrollEntity> whole = entities.spliterator(null, 2);
+				Assert.assertEquals(Integer.MAX_VALUE, whole.estimateSize());
+				Spliterator<DivrollEntity> half = whole.trySplit();
+				Assert.assertNotNull(half);
+				Assert.assertEquals(0, half.estimateSize() % 30);
+				Assert.assertEquals(Integer.MAX_VALUE, half.estimateSize() + whole.estimateSize());
+			}
+		}
+	}
+
+	@Test
+	public void testProjection() throws IOException {
+		String entity = "{\"entityId\":\"1\",\"nickname\":\"user1\",\"age\":30,"
+				+ "\"bio\":\"has } and \\\" and ] inside\",\"tags\":[\"a\",{\"b\":[1,2]}],"
+				+ "\"aclRead\":[{\"entityId\":\"u1\"}],\"publicRead\":true,\"score\":-1.5e3,\"active\":false}";
+		List<String> queries = new CopyOnWriteArrayList<String>();
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile", exchange -> {
+				queries.add(exchange.getRequestURI().getQuery());
+				String body = exchange.getRequestURI().getPath().endsWith("/1") ? "{\"entity\":" + entity + "}"
+						: "{\"entities\":{\"results\":[" + entity + "," + entity + "],\"count\":2}}";
+				TestServer.send(exchange, 200, "application/json", body.getBytes(StandardCharsets.UTF_8));
+			});
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key")) {
+				DivrollEntities entities = new DivrollEntities(client, "UserProfile");
+				entities.setFields(Arrays.asList("nickname", "active"));
+				entities.query();
+				Assert.assertTrue(queries.get(0).contains("fields=[\"nickname\",\"active\"]"));
+				Assert.assertEquals(2, entities.getEntities().size());
+				Assert.assertEquals(Long.valueOf(2), entities.getResult());
+				for (DivrollEntity projected : entities.getEntities()) {
+					Assert.assertEquals("1", projected.getEntityId());
+					Assert.assertEquals(2, projected.getProperties().length());
+					Assert.assertEquals("user1", projected.getProperty("nickname"));
+					Assert.assertEquals(Boolean.FALSE, projected.getProperty("active"));
+					Assert.assertTrue(projected.getAcl().getAclRead().isEmpty());
+					Assert.assertNull(projected.getAcl().getPublicRead());
+				}
+
+				DivrollEntity decoded = entities.queryAsync().join().getEntities().get(0);
+				Assert.assertEquals(2, decoded.getProperties().length());
+
+				DivrollEntity retrieved = new DivrollEntity(client, "UserProfile");
+				retrieved.setEntityId("1");
+				retrieved.setFields(Arrays.asList("age", "aclRead"));
+				retrieved.retrieve();
+				Assert.assertTrue(queries.get(2).contains("fields=[\"age\",\"aclRead\"]"));
+				Assert.assertEquals(30, retrieved.getProperty("age"));
+				Assert.assertFalse(retrieved.getProperties().has("nickname"));
+				Assert.assertEquals(Arrays.asList("u1"), retrieved.getAcl().getAclRead());
+			}
+		}
+	}
+
+	@Test
+	public void testPublisher() throws Exception {
+		List<String> queries = new CopyOnWriteArrayList<String>();
+		CountDownLatch slowStarted = new CountDownLatch(1);
+		CountDownLatch slowRelease = new CountDownLatch(1);
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile", exchange -> {
+				String query = exchange.getRequestURI().getQuery();
+				queries.add(query);
+				int skip = Integer.parseInt(query.replaceAll(".*skip=(\\d+).*", "$1"));
+				int limit = Integer.parseInt(query.replaceAll(".*limit=(\\d+).*", "$1"));
+				StringBuilder page = new StringBuilder("{\"entities\":{\"results\":[");
+				for (int i = skip; i < Math.min(skip + limit, 12); i++) {
+					if (i > skip) {
+						page.append(',');
+					}
+					page.append("{\"entityId\":\"").append(i).append("\"}");
+				}
+				page.append("]}}");
+				TestServer.send(exchange, 200, "application/json", page.toString().getBytes(StandardCharsets.UTF_8));
+			});
+			server.handle("/entities/Slow", exchange -> {
+				slowStarted.countDown();
+				try {
+					slowRelease.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				TestServer.send(exchange, 200, "application/json",
+						"{\"entities\":{\"results\":[]}}".getBytes(StandardCharsets.UTF_8));
+			});
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key")) {
+				DivrollEntities entities = new DivrollEntities(client, "UserProfile");
+				entities.setLimit(5);
+				entities.setSort("nickname");
+				RecordingSubscriber subscriber = new RecordingSubscriber();
+				entities.publisher(null).subscribe(subscriber);
+				Assert.assertTrue(queries.isEmpty());
+
+				subscriber.subscription.request(3);
+				subscriber.awaitSignals(3);
+				Assert.assertEquals(1, queries.size());
+				subscriber.subscription.request(2);
+				subscriber.awaitSignals(5);
+				Thread.sleep(100);
+				Assert.assertEquals(1, queries.size());
+
+				subscriber.subscription.request(Long.MAX_VALUE);
+				subscriber.awaitSignals(13);
+				Assert.assertEquals("complete", subscriber.signals.get(12));
+				Assert.assertEquals("11", subscriber.signals.get(11));
+				Assert.assertEquals(3, queries.size());
+				Assert.assertTrue(queries.get(2).contains("skip=10"));
+				Assert.assertTrue(queries.get(2).contains("sort=nickname"));
+
+				RecordingSubscriber cancelled = new RecordingSubscriber();
+				new DivrollEntities(client, "Slow").publisher(null).subscribe(cancelled);
+				cancelled.subscription.request(1);
+				Assert.assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+				cancelled.subscription.cancel();
+				slowRelease.countDown();
+				Thread.sleep(100);
+				Assert.assertTrue(cancelled.signals.isEmpty());
+
+				RecordingSubscriber invalid = new RecordingSubscriber();
+				entities.publisher(null).subscribe(invalid);
+				invalid.subscription.request(0);
+				invalid.awaitSignals(1);
+				Assert.assertTrue(invalid.signals.get(0).startsWith("error"));
+			}
+		}
+	}
+
+	private static class RecordingSubscriber implements Subscriber<DivrollEntity> {
+
+		private final List<String> signals = new CopyOnWriteArrayList<String>();
+		private volatile Subscription subscription;
+
+		@Override
+		public void onSubscribe(Subscription subscription) {
+			this.subscription = subscription;
+		}
+
+		@Override
+		public void onNext(DivrollEntity entity) {
+			signals.add(entity.getEntityId());
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			signals.add("error " + throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			signals.add("complete");
+		}
+
+		void awaitSignals(int count) throws InterruptedException {
+			long deadline = System.currentTimeMillis() + 5000;
+			while (signals.size() < count && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			Assert.assertEquals(count, signals.size());
+		}
+	}
 }
@@ -21,10 +21,36 @@
  */
 package com.divroll.backend.sdk;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.junit.Assert;
@@ -34,8 +60,15 @@ import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import com.divroll.backend.sdk.exception.BulkheadFullException;
+import com.divroll.backend.sdk.exception.CircuitBreakerOpenException;
+import com.divroll.backend.sdk.exception.DivrollException;
 import com.divroll.backend.sdk.exception.NotFoundRequestException;
+import com.divroll.backend.sdk.exception.RateLimitExceededException;
 import com.divroll.backend.sdk.exception.UnauthorizedException;
+import com.google.common.base.Ticker;
+import com.google.common.io.ByteStreams;
+import com.mashape.unirest.http.exceptions.UnirestException;
 
 import junit.framework.TestCase;
 
@@ -938,4 +971,920 @@ public class TestDivrollEntity extends TestCase {
 		});
 	}
 
+
+	@Test
+	public void testRetrieveCache() throws IOException {
+		AtomicInteger gets = new AtomicInteger();
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile/1", exchange -> {
+				if (exchange.getRequestMethod().equals("GET")) {
+					gets.incrementAndGet();
+					TestServer.send(exchange, 200, "application/json",
+							"{\"entity\":{\"entityId\":\"1\",\"nickname\":\"user1\",\"embed\":{\"a\":1}}}"
+									.getBytes(StandardCharsets.UTF_8));
+				} else if (exchange.getRequestMethod().equals("PUT")) {
+					TestServer.send(exchange, 201, "application/json",
+							"{\"entity\":{\"entityId\":\"1\"}}".getBytes(StandardCharsets.UTF_8));
+				} else {
+					TestServer.send(exchange, 204, "application/json", null);
+				}
+			});
+			DivrollClientConfig config = DivrollClientConfig.build();
+			config.setEntityCacheSize(100);
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key", null, config)) {
+				DivrollEntity first = new DivrollEntity(client, "UserProfile");
+				first.setEntityId("1");
+				first.retrieve();
+				DivrollEntity second = new DivrollEntity(client, "UserProfile");
+				second.setEntityId("1");
+				second.retrieve();
+				Assert.assertEquals(1, gets.get());
+				Assert.assertEquals("user1", second.getProperty("nickname"));
+				Assert.assertEquals(1L, client.getEntityCache().stats().hitCount());
+				Assert.assertEquals(1L, client.getEntityCache().stats().missCount());
+
+				second.getProperties().getJSONObject("embed").put("b", 2);
+				DivrollEntity third = new DivrollEntity(client, "UserProfile");
+				third.setEntityId("1");
+				third.retrieve();
+				Assert.assertFalse(third.getProperties().getJSONObject("embed").has("b"));
+
+				second.update();
+				second.retrieve();
+				Assert.assertEquals(2, gets.get());
+
+				client.setAuthToken("other-user");
+				DivrollEntity otherUser = new DivrollEntity(client, "UserProfile");
+				otherUser.setEntityId("1");
+				otherUser.retrieve();
+				Assert.assertEquals(3, gets.get());
+				client.setAuthToken(null);
+
+				second.delete();
+				Assert.assertEquals(0, client.getEntityCache().size());
+			}
+		}
+	}
+
+	@Test
+	public void testConditionalRetrieve() throws IOException {
+		AtomicInteger notModified = new AtomicInteger();
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile/1", exchange -> {
+				if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+					notModified.incrementAndGet();
+					TestServer.send(exchange, 304, "application/json", null);
+				} else {
+					exchange.getResponseHeaders().set("ETag", "\"v1\"");
+					TestServer.send(exchange, 200, "application/json",
+							"{\"entity\":{\"entityId\":\"1\",\"nickname\":\"user1\"}}"
+									.getBytes(StandardCharsets.UTF_8));
+				}
+			});
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key")) {
+				DivrollEntity entity = new DivrollEntity(client, "UserProfile");
+				entity.setEntityId("1");
+				entity.retrieve();
+				Assert.assertEquals("\"v1\"", entity.getEtag());
+				entity.retrieve();
+				Assert.assertEquals(1, notModified.get());
+				Assert.assertEquals("user1", entity.getProperty("nickname"));
+
+				DivrollEntity other = new DivrollEntity(client, "UserProfile");
+				other.setEntityId("1");
+				other.retrieve();
+				Assert.assertEquals(1, notModified.get());
+				Assert.assertEquals("user1", other.getProperty("nickname"));
+			}
+		}
+	}
+
+	@Test
+	public void testRetry() throws Exception {
+		Deque<Integer> statuses = new ConcurrentLinkedDeque<Integer>(Arrays.asList(503, 500, 200, 502, 200));
+		AtomicInteger gets = new AtomicInteger();
+		AtomicInteger puts = new AtomicInteger();
+		byte[] error = "{\"org.restlet.engine.application.StatusInfo\":{\"description\":\"Unavailable\"}}"
+				.getBytes(StandardCharsets.UTF_8);
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile/1", exchange -> {
+				if (exchange.getRequestMethod().equals("PUT")) {
+					puts.incrementAndGet();
+					TestServer.send(exchange, 503, "application/json", error);
+					return;
+				}
+				gets.incrementAndGet();
+				Integer status = statuses.poll();
+				if (status == null || status == 503) {
+					exchange.getResponseHeaders().set("Retry-After", "0");
+					TestServer.send(exchange, 503, "application/json", error);
+				} else if (status == 200) {
+					TestServer.send(exchange, 200, "application/json",
+							"{\"entity\":{\"entityId\":\"1\",\"nickname\":\"user1\"}}"
+									.getBytes(StandardCharsets.UTF_8));
+				} else {
+					TestServer.send(exchange, status, "application/json", error);
+				}
+			});
+			DivrollRetryPolicy policy = DivrollRetryPolicy.build();
+			policy.setBaseDelay(1);
+			DivrollClientConfig config = DivrollClientConfig.build();
+			config.setRetryPolicy(policy);
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key", null, config)) {
+				DivrollEntity entity = new DivrollEntity(client, "UserProfile");
+				entity.setEntityId("1");
+				entity.retrieve();
+				Assert.assertEquals(3, gets.get());
+				Assert.assertEquals("user1", entity.getProperty("nickname"));
+
+				DivrollEntity other = new DivrollEntity(client, "UserProfile");
+				other.setEntityId("1");
+				Assert.assertEquals("user1", other.retrieveAsync().get().getProperty("nickname"));
+				Assert.assertEquals(5, gets.get());
+
+				try {
+					entity.update();
+					Assert.fail();
+				} catch (DivrollException e) {
+					Assert.assertEquals(1, puts.get());
+				}
+
+				policy.setBudgetRatio(0);
+				policy.setBudgetCapacity(1);
+				try {
+					entity.retrieve();
+					Assert.fail();
+				} catch (DivrollException e) {
+					Assert.assertEquals(7, gets.get());
+				}
+			}
+		}
+		DivrollRetryPolicy policy = DivrollRetryPolicy.build();
+		Assert.assertEquals(-1, policy.delay(2, "60"));
+		Assert.assertEquals(2000, policy.delay(2, "2"));
+		Assert.assertEquals(-1, policy.delay(4, null));
+		Assert.assertTrue(policy.delay(3, null) <= 2 * DivrollRetryPolicy.DEFAULT_BASE_DELAY);
+	}
+
+	@Test
+	public void testCloseDuringRetryBackoff() throws Exception {
+		CountDownLatch failed = new CountDownLatch(1);
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile/1", exchange -> {
+				exchange.getResponseHeaders().set("Retry-After", "30");
+				TestServer.send(exchange, 503, "application/json", null);
+				failed.countDown();
+			});
+			DivrollRetryPolicy policy = DivrollRetryPolicy.build();
+			policy.setMaxDelay(60000);
+			DivrollClientConfig config = DivrollClientConfig.build();
+			config.setRetryPolicy(policy);
+			DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key", null, config);
+			DivrollEntity entity = new DivrollEntity(client, "UserProfile");
+			entity.setEntityId("1");
+			CompletableFuture<DivrollEntity> retrieved = entity.retrieveAsync();
+			Assert.assertTrue(failed.await(5, TimeUnit.SECONDS));
+			Thread.sleep(100);
+			Assert.assertFalse(retrieved.isDone());
+			client.close();
+			try {
+				retrieved.get(5, TimeUnit.SECONDS);
+				Assert.fail();
+			} catch (ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof UnirestException);
+			}
+		}
+	}
+
+	@Test
+	public void testEndpointClassification() {
+		Assert.assertEquals(DivrollEndpoint.USERS, DivrollEndpoint.of("http://localhost:8080/entities/users/login"));
+		Assert.assertEquals(DivrollEndpoint.ROLES, DivrollEndpoint.of("/entities/roles?skip=0"));
+		Assert.assertEquals(DivrollEndpoint.ENTITIES, DivrollEndpoint.of("/entities/users_profile/1"));
+		Assert.assertEquals(DivrollEndpoint.ENTITIES, DivrollEndpoint.of("/entities/roles_archive"));
+		Assert.assertEquals(DivrollEndpoint.ENTITIES, DivrollEndpoint.of("/entities/UserProfile/blobs"));
+		Assert.assertEquals(DivrollEndpoint.BLOBS, DivrollEndpoint.of("/entities/UserProfile/1/blobs/picture"));
+		Assert.assertEquals(DivrollEndpoint.BLOBS, DivrollEndpoint.of("/entities/users/1/blobs/avatar"));
+		Assert.assertEquals(DivrollEndpoint.OTHER, DivrollEndpoint.of("http://localhost:8080/applications"));
+		Assert.assertEquals(DivrollEndpoint.OTHER, DivrollEndpoint.of((String) null));
+		Assert.assertTrue(DivrollEndpoint.isAuthentication("http://localhost:8080/entities/users/login?username=a"));
+		Assert.assertFalse(DivrollEndpoint.isAuthentication("/entities/users/login_history"));
+	}
+
+	@Test
+	public void testCircuitBreakerAndBulkhead() throws Exception {
+		AtomicInteger gets = new AtomicInteger();
+		AtomicReference<Integer> status = new AtomicReference<Integer>(500);
+		CountDownLatch release = new CountDownLatch(1);
+		byte[] error = "{\"org.restlet.engine.application.StatusInfo\":{\"description\":\"Error\"}}"
+				.getBytes(StandardCharsets.UTF_8);
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile/", exchange -> {
+				gets.incrementAndGet();
+				if (exchange.getRequestURI().getPath().endsWith("/2")) {
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				TestServer.send(exchange, status.get(), "application/json", status.get() == 200
+						? "{\"entity\":{\"entityId\":\"1\"}}".getBytes(StandardCharsets.UTF_8) : error);
+			});
+			DivrollCircuitBreakerPolicy policy = DivrollCircuitBreakerPolicy.build();
+			policy.setWindowSize(4);
+			policy.setMinimumCalls(4);
+			policy.setOpenDuration(200);
+			policy.setHalfOpenCalls(1);
+			DivrollClientConfig config = DivrollClientConfig.build();
+			config.setCircuitBreakerPolicy(policy);
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key", null, config)) {
+				DivrollEntity entity = new DivrollEntity(client, "UserProfile");
+				entity.setEntityId("1");
+				for (int i = 0; i < 4; i++) {
+					try {
+						entity.retrieve();
+						Assert.fail();
+					} catch (DivrollException e) {
+						Assert.assertFalse(e instanceof CircuitBreakerOpenException);
+					}
+				}
+				DivrollCircuitBreaker entities = client.getCircuitBreaker(DivrollEndpoint.ENTITIES);
+				Assert.assertEquals(DivrollCircuitBreaker.State.OPEN, entities.getState());
+				Assert.assertEquals(DivrollCircuitBreaker.State.CLOSED,
+						client.getCircuitBreaker(DivrollEndpoint.USERS).getState());
+				try {
+					entity.retrieve();
+					Assert.fail();
+				} catch (CircuitBreakerOpenException e) {
+					Assert.assertEquals(4, gets.get());
+				}
+
+				status.set(200);
+				Thread.sleep(250);
+				Assert.assertEquals(DivrollCircuitBreaker.State.HALF_OPEN, entities.getState());
+				entity.retrieve();
+				Assert.assertEquals(DivrollCircuitBreaker.State.CLOSED, entities.getState());
+			}
+
+			config = DivrollClientConfig.build();
+			config.setMaxConcurrentCalls(1);
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key", null, config)) {
+				DivrollEntity blocked = new DivrollEntity(client, "UserProfile");
+				blocked.setEntityId("2");
+				CompletableFuture<DivrollEntity> pending = blocked.retrieveAsync();
+				DivrollEntity entity = new DivrollEntity(client, "UserProfile");
+				entity.setEntityId("1");
+				try {
+					entity.retrieve();
+					Assert.fail();
+				} catch (BulkheadFullException e) {
+					Assert.assertFalse(pending.isDone());
+				} finally {
+					release.countDown();
+				}
+				pending.get();
+				entity.retrieve();
+				Assert.assertEquals("1", entity.getEntityId());
+			}
+		}
+	}
+
+	@Test
+	public void testHedgedRetrieve() throws Exception {
+		AtomicInteger gets = new AtomicInteger();
+		AtomicInteger slow = new AtomicInteger();
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile/1", exchange -> {
+				gets.incrementAndGet();
+				if (slow.getAndSet(0) == 1) {
+					try {
+						Thread.sleep(1000);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				TestServer.send(exchange, 200, "application/json",
+						"{\"entity\":{\"entityId\":\"1\",\"nickname\":\"user1\"}}".getBytes(StandardCharsets.UTF_8));
+			});
+			AtomicInteger queries = new AtomicInteger();
+			server.handle("/entities/UserProfile", exchange -> {
+				if (queries.incrementAndGet() == 1) {
+					try {
+						Thread.sleep(1000);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				TestServer.send(exchange, 200, "application/json",
+						"{\"entities\":{\"results\":[{\"entityId\":\"1\"}],\"count\":1}}"
+								.getBytes(StandardCharsets.UTF_8));
+			});
+			DivrollHedgePolicy policy = DivrollHedgePolicy.build();
+			policy.setInitialDelay(50);
+			policy.setMaxHedgeRate(0);
+			policy.setBudgetCapacity(1);
+			policy.setMinSamples(1);
+			DivrollClientConfig config = DivrollClientConfig.build();
+			config.setHedgePolicy(policy);
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key", null, config)) {
+				DivrollEntity entity = new DivrollEntity(client, "UserProfile");
+				entity.setEntityId("1");
+				slow.set(1);
+				long start = System.nanoTime();
+				entity.retrieve();
+				Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(800));
+				Assert.assertEquals("user1", entity.getProperty("nickname"));
+				Assert.assertEquals(2, gets.get());
+				// the slow primary lost to the hedge but is still sampled
+				Thread.sleep(100);
+				Assert.assertTrue(client.getHedgeTracker(DivrollEndpoint.ENTITIES).delay() >= 50);
+
+				slow.set(1);
+				start = System.nanoTime();
+				entity.retrieve();
+				Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(1000));
+				Assert.assertEquals(3, gets.get());
+			}
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key", null, config)) {
+				DivrollEntities entities = new DivrollEntities(client, "UserProfile");
+				long start = System.nanoTime();
+				entities.query();
+				Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(800));
+				Assert.assertEquals(1, entities.getEntities().size());
+				Assert.assertEquals(2, queries.get());
+			}
+		}
+		HedgeTracker tracker = new HedgeTracker(DivrollHedgePolicy.build());
+		Assert.assertEquals(DivrollHedgePolicy.DEFAULT_INITIAL_DELAY, tracker.delay());
+		for (int i = 1; i <= DivrollHedgePolicy.DEFAULT_MIN_SAMPLES; i++) {
+			tracker.record(TimeUnit.MILLISECONDS.toNanos(i));
+		}
+		Assert.assertEquals(19, tracker.delay());
+	}
+
+	@Test
+	public void testCoalescedRetrieve() throws Exception {
+		AtomicInteger gets = new AtomicInteger();
+		AtomicInteger logins = new AtomicInteger();
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/users/login", exchange -> {
+				logins.incrementAndGet();
+				try {
+					Thread.sleep(300);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				TestServer.send(exchange, 200, "application/json",
+						"{\"user\":{\"authToken\":\"t\"}}".getBytes(StandardCharsets.UTF_8));
+			});
+			server.handle("/entities/UserProfile/1", exchange -> {
+				gets.incrementAndGet();
+				try {
+					Thread.sleep(300);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				TestServer.send(exchange, 200, "application/json",
+						"{\"entity\":{\"entityId\":\"1\",\"tags\":[\"a\"]}}".getBytes(StandardCharsets.UTF_8));
+			});
+			DivrollClientConfig config = DivrollClientConfig.build();
+			config.setCoalescingEnabled(true);
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key", null, config)) {
+				List<DivrollEntity> entities = new ArrayList<DivrollEntity>();
+				List<Thread> threads = new ArrayList<Thread>();
+				CyclicBarrier barrier = new CyclicBarrier(8);
+				for (int i = 0; i < 8; i++) {
+					DivrollEntity entity = new DivrollEntity(client, "UserProfile");
+					entity.setEntityId("1");
+					entities.add(entity);
+					Thread thread = new Thread(() -> {
+						try {
+							barrier.await();
+						} catch (Exception e) {
+							throw new RuntimeException(e);
+						}
+						entity.retrieve();
+					});
+					thread.start();
+					threads.add(thread);
+				}
+				for (Thread thread : threads) {
+					thread.join();
+				}
+				Assert.assertEquals(1, gets.get());
+				((List<Object>) entities.get(0).getProperty("tags")).add("b");
+				for (DivrollEntity entity : entities.subList(1, entities.size())) {
+					Assert.assertEquals(Arrays.asList("a"), entity.getProperty("tags"));
+				}
+
+				List<CompletableFuture<DivrollEntity>> pending = new ArrayList<CompletableFuture<DivrollEntity>>();
+				for (DivrollEntity entity : entities) {
+					pending.add(entity.retrieveAsync());
+				}
+				for (CompletableFuture<DivrollEntity> entity : pending) {
+					Assert.assertEquals(Arrays.asList("a"), entity.get().getProperty("tags"));
+				}
+				Assert.assertEquals(2, gets.get());
+
+				String loginUrl = server.getServerUrl() + "/entities/users/login?username=a&password=b";
+				CompletableFuture<?> first = client.asJsonAsync(client.get(loginUrl));
+				CompletableFuture<?> second = client.asJsonAsync(client.get(loginUrl));
+				first.get();
+				second.get();
+				Assert.assertEquals(2, logins.get());
+			}
+		}
+	}
+
+	@Test
+	public void testRateLimiter() throws Exception {
+		AtomicInteger gets = new AtomicInteger();
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile/1", exchange -> {
+				gets.incrementAndGet();
+				TestServer.send(exchange, 200, "application/json",
+						"{\"entity\":{\"entityId\":\"1\"}}".getBytes(StandardCharsets.UTF_8));
+			});
+			DivrollRateLimiter rateLimiter = DivrollRateLimiter.build();
+			rateLimiter.setLimit(DivrollRateLimiter.Operation.READ, 20, 1);
+			DivrollClientConfig config = DivrollClientConfig.build();
+			config.setRateLimiter(rateLimiter);
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key", null, config)) {
+				DivrollEntity entity = new DivrollEntity(client, "UserProfile");
+				entity.setEntityId("1");
+				long start = System.nanoTime();
+				for (int i = 0; i < 5; i++) {
+					entity.retrieve();
+				}
+				Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(190));
+				CompletableFuture<DivrollEntity> paced = entity.retrieveAsync();
+				Assert.assertFalse(paced.isDone());
+				paced.get();
+				// the sixth token is due 250ms after the first, however long the calls took
+				Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(240));
+
+				rateLimiter.setMaxWait(0);
+				rateLimiter.setLimit("app", "other", DivrollRateLimiter.Operation.READ, 1, 1);
+				entity.retrieve();
+				try {
+					entity.retrieve();
+					Assert.fail();
+				} catch (RateLimitExceededException e) {
+					Assert.assertEquals(7, gets.get());
+				}
+				client.setNamespace("other");
+				entity.retrieve();
+				Assert.assertFalse(rateLimiter.tryAcquire("app", "other", DivrollRateLimiter.Operation.READ));
+				Assert.assertTrue(rateLimiter.tryAcquire("app", "other", DivrollRateLimiter.Operation.WRITE));
+				try {
+					entity.retrieveAsync().get();
+					Assert.fail();
+				} catch (ExecutionException e) {
+					Assert.assertTrue(e.getCause() instanceof RateLimitExceededException);
+				}
+				Assert.assertEquals(8, gets.get());
+			}
+		}
+	}
+
+	@Test
+	public void testLinksEnvelope() throws Exception {
+		Queue<String> bodies = new ConcurrentLinkedDeque<String>(Arrays.asList(
+				"{\"entities\":{\"results\":[{\"entityId\":\"2\",\"nickname\":\"user2\"}]}}",
+				"{\"entities\":{\"skip\":0}}", "{}"));
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile/1/links/friends", exchange -> {
+				TestServer.send(exchange, 200, "application/json", bodies.poll().getBytes(StandardCharsets.UTF_8));
+			});
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key")) {
+				DivrollEntity entity = new DivrollEntity(client, "UserProfile");
+				entity.setEntityId("1");
+				List<DivrollEntity> friends = entity.links("friends");
+				Assert.assertEquals(1, friends.size());
+				Assert.assertEquals("user2", friends.get(0).getProperty("nickname"));
+				Assert.assertTrue(entity.links("friends").isEmpty());
+				Assert.assertTrue(entity.links("friends").isEmpty());
+			}
+		}
+	}
+
+	@Test
+	public void testVirtualThreadFriendly() throws Exception {
+		AtomicInteger blocking = new AtomicInteger();
+		AtomicInteger async = new AtomicInteger();
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile", exchange -> {
+				if (exchange.getRequestURI().getPath().endsWith("/blobs/picture")) {
+					TestServer.send(exchange, 200, "application/octet-stream", new byte[] { 1, 2, 3 });
+				} else {
+					TestServer.send(exchange, 200, "application/json",
+							"{\"entity\":{\"entityId\":\"1\",\"nickname\":\"user1\"}}"
+									.getBytes(StandardCharsets.UTF_8));
+				}
+			});
+			DivrollClientConfig config = DivrollClientConfig.build();
+			config.setVirtualThreadFriendly(true);
+			config.setTransport(new ApacheDivrollTransport(config) {
+				@Override
+				public CloseableHttpResponse execute(HttpUriRequest request) throws IOException {
+					blocking.incrementAndGet();
+					return super.execute(request);
+				}
+
+				@Override
+				public Future<HttpResponse> execute(HttpUriRequest request, FutureCallback<HttpResponse> callback) {
+					async.incrementAndGet();
+					return super.execute(request, callback);
+				}
+			});
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key", null, config)) {
+				List<Thread> callers = new ArrayList<Thread>();
+				Queue<Throwable> failures = new ConcurrentLinkedDeque<Throwable>();
+				for (int i = 0; i < 16; i++) {
+					Thread caller = new Thread(() -> {
+						try {
+							DivrollEntity entity = new DivrollEntity(client, "UserProfile");
+							entity.setEntityId("1");
+							entity.retrieve();
+							Assert.assertEquals("user1", entity.getProperty("nickname"));
+						} catch (Throwable e) {
+							failures.add(e);
+						}
+					});
+					callers.add(caller);
+					caller.start();
+				}
+				for (Thread caller : callers) {
+					caller.join();
+				}
+				Assert.assertTrue(failures.toString(), failures.isEmpty());
+				Assert.assertEquals(0, blocking.get());
+				Assert.assertEquals(16, async.get());
+
+				new DivrollEntities(client, "UserProfile").query();
+				Assert.assertEquals(0, blocking.get());
+				Assert.assertEquals(17, async.get());
+
+				DivrollEntity entity = new DivrollEntity(client, "UserProfile");
+				entity.setEntityId("1");
+				try (InputStream in = entity.openBlobStream("picture")) {
+					Assert.assertArrayEquals(new byte[] { 1, 2, 3 }, ByteStreams.toByteArray(in));
+				}
+				Assert.assertEquals(1, blocking.get());
+				Path target = Files.createTempFile("divroll", ".blob");
+				try {
+					Assert.assertEquals(3, entity.downloadBlobTo("picture", target));
+					Assert.assertArrayEquals(new byte[] { 1, 2, 3 }, Files.readAllBytes(target));
+				} finally {
+					Files.delete(target);
+				}
+				Assert.assertEquals(2, blocking.get());
+				Assert.assertEquals(17, async.get());
+			}
+		}
+	}
+
+	@Test
+	public void testStreamingBlob() throws IOException {
+		byte[] blob = new byte[3 * 1024 * 1024 + 17];
+		new Random(7).nextBytes(blob);
+		AtomicReference<byte[]> stored = new AtomicReference<byte[]>();
+		AtomicReference<String> transferEncoding = new AtomicReference<String>();
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile/1/blobs/picture", exchange -> {
+				if (exchange.getRequestMethod().equals("POST")) {
+					transferEncoding.set(exchange.getRequestHeaders().getFirst("Transfer-Encoding"));
+					stored.set(ByteStreams.toByteArray(exchange.getRequestBody()));
+					TestServer.send(exchange, 201, "application/octet-stream", null);
+				} else {
+					TestServer.send(exchange, 200, "application/octet-stream", stored.get());
+				}
+			});
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key")) {
+				DivrollEntity entity = new DivrollEntity(client, "UserProfile");
+				entity.setEntityId("1");
+				entity.setBlobProperty("picture", new ByteArrayInputStream(blob), blob.length);
+				Assert.assertEquals("chunked", transferEncoding.get());
+				Assert.assertArrayEquals(blob, stored.get());
+
+				Path source = Files.createTempFile("divroll", ".bin");
+				Path target = Files.createTempFile("divroll", ".bin");
+				try {
+					Files.write(source, blob);
+					stored.set(null);
+					entity.setBlobProperty("picture", source);
+					Assert.assertArrayEquals(blob, stored.get());
+					Assert.assertNull(transferEncoding.get());
+
+					Assert.assertEquals(blob.length, entity.downloadBlobTo("picture", target));
+					Assert.assertArrayEquals(blob, Files.readAllBytes(target));
+				} finally {
+					Files.deleteIfExists(source);
+					Files.deleteIfExists(target);
+				}
+
+				try (InputStream is = entity.openBlobStream("picture")) {
+					Assert.assertArrayEquals(blob, ByteStreams.toByteArray(is));
+				}
+				try (InputStream is = entity.openBlobStream("picture")) {
+					Assert.assertEquals(blob[0] & 0xff, is.read());
+				}
+				Assert.assertEquals(0, client.getLeasedConnections());
+			}
+		}
+	}
+
+	@Test
+	public void testPathBlobUploadFailure() throws IOException {
+		try (TestServer server = new TestServer()) {
+			server.json("/entities/UserProfile/1/blobs/picture", 201, "{}");
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key")) {
+				DivrollEntity entity = new DivrollEntity(client, "UserProfile");
+				entity.setEntityId("1");
+				Path missing = Files.createTempFile("divroll", ".bin");
+				Files.delete(missing);
+				try {
+					entity.setBlobProperty("picture", missing);
+					Assert.fail("Upload of a missing file succeeded");
+				} catch (DivrollException e) {
+				}
+
+				Path zip = Files.createTempFile("divroll", ".zip");
+				Files.delete(zip);
+				try (FileSystem zipfs = FileSystems.newFileSystem(URI.create("jar:" + zip.toUri()),
+						Collections.singletonMap("create", "true"))) {
+					entity.setBlobProperty("picture", zipfs.getPath("missing.bin"));
+					Assert.fail("Upload of a missing file succeeded");
+				} catch (DivrollException e) {
+				} finally {
+					Files.deleteIfExists(zip);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testRangedBlobDownload() throws IOException {
+		byte[] blob = new byte[1000003];
+		new Random(11).nextBytes(blob);
+		List<String> ranges = new CopyOnWriteArrayList<String>();
+		AtomicInteger failures = new AtomicInteger(1);
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile/1/blobs/video", exchange -> {
+				String range = exchange.getRequestHeaders().getFirst("Range");
+				ranges.add(range);
+				String[] bounds = range.substring("bytes=".length()).split("-");
+				int from = Integer.parseInt(bounds[0]);
+				int to = Math.min(Integer.parseInt(bounds[1]), blob.length - 1);
+				if (from == 300000 && failures.getAndDecrement() > 0) {
+					TestServer.send(exchange, 500, "application/octet-stream", null);
+					return;
+				}
+				exchange.getResponseHeaders().set("ETag", "\"b1\"");
+				exchange.getResponseHeaders().set("Content-Range", "bytes " + from + "-" + to + "/" + blob.length);
+				TestServer.send(exchange, 206, "application/octet-stream", Arrays.copyOfRange(blob, from, to + 1));
+			});
+			Path target = Files.createTempFile("divroll", ".bin");
+			Path journal = target.resolveSibling(target.getFileName() + ".divroll-journal");
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key")) {
+				DivrollEntity entity = new DivrollEntity(client, "UserProfile");
+				entity.setEntityId("1");
+				try {
+					entity.downloadBlobTo("video", target, 2, 100000);
+					Assert.fail();
+				} catch (DivrollException e) {
+					Assert.assertTrue(Files.exists(journal));
+				}
+
+				ranges.clear();
+				Assert.assertEquals(blob.length, entity.downloadBlobTo("video", target, 4, 100000));
+				Assert.assertArrayEquals(blob, Files.readAllBytes(target));
+				Assert.assertFalse(Files.exists(journal));
+				Assert.assertTrue(ranges.contains("bytes=300000-399999"));
+				Assert.assertFalse(ranges.contains("bytes=0-99999"));
+			} finally {
+				Files.deleteIfExists(target);
+				Files.deleteIfExists(journal);
+			}
+		}
+	}
+
+	@Test
+	public void testPartedBlobUpload() throws IOException {
+		byte[] blob = new byte[1000003];
+		new Random(13).nextBytes(blob);
+		byte[] stored = new byte[blob.length];
+		List<String> ranges = new CopyOnWriteArrayList<String>();
+		AtomicInteger transientFailures = new AtomicInteger(1);
+		AtomicInteger hardFailures = new AtomicInteger(3);
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile/1/blobs/video", exchange -> {
+				if (exchange.getRequestMethod().equals("GET")) {
+					exchange.getResponseHeaders().add("Content-Range", "bytes 0-0/" + stored.length);
+					TestServer.send(exchange, 206, "application/octet-stream", new byte[] { stored[0] });
+					return;
+				}
+				String range = exchange.getRequestHeaders().getFirst("Content-Range");
+				byte[] part = ByteStreams.toByteArray(exchange.getRequestBody());
+				ranges.add(range);
+				int from = Integer.parseInt(range.substring("bytes ".length(), range.indexOf('-')));
+				if ((from == 200000 && transientFailures.getAndDecrement() > 0)
+						|| (from == 700000 && hardFailures.getAndDecrement() > 0)) {
+					TestServer.send(exchange, 503, "application/octet-stream", null);
+					return;
+				}
+				System.arraycopy(part, 0, stored, from, part.length);
+				TestServer.send(exchange, 201, "application/octet-stream", null);
+			});
+			Path source = Files.createTempFile("divroll", ".bin");
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key")) {
+				Files.write(source, blob);
+				DivrollEntity entity = new DivrollEntity(client, "UserProfile");
+				entity.setEntityId("1");
+				DivrollBlobUpload upload = entity.newBlobUpload("video", source);
+				upload.setPartSize(100000);
+				Assert.assertEquals(1, upload.getPartCount());
+				upload.setRangedWrites(true);
+				upload.setParallelism(3);
+				Assert.assertEquals(11, upload.getPartCount());
+				Assert.assertFalse(upload.upload());
+				Assert.assertEquals(10, upload.getCompletedParts());
+				Assert.assertEquals(2, Collections.frequency(ranges, "bytes 200000-299999/1000003"));
+
+				ranges.clear();
+				Assert.assertTrue(upload.upload());
+				Assert.assertEquals(Arrays.asList("bytes 700000-799999/1000003"), ranges);
+				Assert.assertArrayEquals(blob, stored);
+			} finally {
+				Files.deleteIfExists(source);
+			}
+		}
+	}
+
+	@Test
+	public void testPartedBlobUploadWithoutRangeSupport() throws IOException {
+		byte[] blob = new byte[250000];
+		new Random(19).nextBytes(blob);
+		AtomicReference<byte[]> stored = new AtomicReference<byte[]>(new byte[0]);
+		List<String> ranges = new CopyOnWriteArrayList<String>();
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile/1/blobs/video", exchange -> {
+				if (exchange.getRequestMethod().equals("GET")) {
+					TestServer.send(exchange, 200, "application/octet-stream", stored.get());
+					return;
+				}
+				// ignores Content-Range and replaces the blob with each part
+				ranges.add(String.valueOf(exchange.getRequestHeaders().getFirst("Content-Range")));
+				stored.set(ByteStreams.toByteArray(exchange.getRequestBody()));
+				TestServer.send(exchange, 201, "application/octet-stream", null);
+			});
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key")) {
+				DivrollEntity entity = new DivrollEntity(client, "UserProfile");
+				entity.setEntityId("1");
+				DivrollBlobUpload upload = entity.newBlobUpload("video", blob);
+				upload.setPartSize(100000);
+				upload.setRangedWrites(true);
+				Assert.assertTrue(upload.upload());
+				Assert.assertArrayEquals(blob, stored.get());
+				Assert.assertEquals(4, ranges.size());
+				Assert.assertEquals("null", ranges.get(3));
+			}
+		}
+	}
+
+	@Test
+	public void testBlobCache() throws IOException {
+		byte[] blob = new byte[64 * 1024];
+		new Random(17).nextBytes(blob);
+		AtomicInteger downloads = new AtomicInteger();
+		AtomicInteger version = new AtomicInteger(1);
+		Path directory = Files.createTempDirectory("divroll");
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile/1/blobs/", exchange -> {
+				String etag = "\"v" + version.get() + "\"";
+				if (exchange.getRequestMethod().equals("POST")) {
+					ByteStreams.toByteArray(exchange.getRequestBody());
+					version.incrementAndGet();
+					TestServer.send(exchange, 201, "application/octet-stream", null);
+				} else if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+					TestServer.send(exchange, 304, "application/octet-stream", null);
+				} else {
+					downloads.incrementAndGet();
+					exchange.getResponseHeaders().set("ETag", etag);
+					TestServer.send(exchange, 200, "application/octet-stream", blob);
+				}
+			});
+			DivrollClientConfig config = DivrollClientConfig.build();
+			config.setBlobCacheDirectory(directory);
+			config.setBlobCacheSize(100 * 1024);
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key", null, config)) {
+				DivrollEntity entity = new DivrollEntity(client, "UserProfile");
+				entity.setEntityId("1");
+				Assert.assertArrayEquals(blob, entity.getBlobProperty("icon"));
+				ByteBuffer buffer = entity.getBlobBuffer("icon");
+				Assert.assertEquals(1, downloads.get());
+				Assert.assertTrue(buffer instanceof MappedByteBuffer);
+				Assert.assertTrue(buffer.isReadOnly());
+				Assert.assertEquals(ByteBuffer.wrap(blob), buffer);
+
+				entity.getBlobProperty("template");
+				Assert.assertEquals(2, downloads.get());
+				Assert.assertEquals(64 * 1024, client.getBlobCache().size());
+				entity.getBlobProperty("icon");
+				Assert.assertEquals(3, downloads.get());
+
+				entity.setBlobProperty("icon", new byte[] { 1 });
+				Assert.assertEquals(0, client.getBlobCache().size());
+				entity.getBlobProperty("icon");
+				Assert.assertEquals(4, downloads.get());
+			}
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key", null, config)) {
+				DivrollEntity entity = new DivrollEntity(client, "UserProfile");
+				entity.setEntityId("1");
+				Assert.assertArrayEquals(blob, entity.getBlobProperty("icon"));
+				Assert.assertEquals(4, downloads.get());
+			}
+		} finally {
+			try (Stream<Path> files = Files.list(directory)) {
+				for (Path file : (Iterable<Path>) files::iterator) {
+					Files.delete(file);
+				}
+			}
+			Files.delete(directory);
+		}
+	}
+
+	@Test
+	public void testBlobCacheKeys() throws IOException {
+		Path directory = Files.createTempDirectory("divroll");
+		try (DivrollClient client = new DivrollClient("http://localhost", "app", "key");
+				DivrollClient other = new DivrollClient("http://localhost", "app", "key");
+				DivrollClient otherApp = new DivrollClient("http://localhost", "other", "key")) {
+			client.setAuthToken("token");
+			other.setAuthToken("other");
+			DivrollBlobCache cache = new DivrollBlobCache(directory, 1024);
+			cache.put(client, "UserProfile", "1", "icon", "\"v1\"", new ByteArrayInputStream(new byte[] { 1 }));
+			Assert.assertNull(cache.get(other, "UserProfile", "1", "icon"));
+			Assert.assertNull(cache.get(otherApp, "UserProfile", "1", "icon"));
+			cache.put(other, "UserProfile", "1", "icon", "\"v1\"", new ByteArrayInputStream(new byte[] { 2 }));
+			Assert.assertEquals(1, cache.get(client, "UserProfile", "1", "icon").getBuffer().get(0));
+			Assert.assertEquals(2, cache.get(other, "UserProfile", "1", "icon").getBuffer().get(0));
+			Assert.assertEquals(2, cache.size());
+
+			cache = new DivrollBlobCache(directory, 1024);
+			Assert.assertEquals(2, cache.size());
+			cache.invalidate(client, "UserProfile", "1", "icon");
+			Assert.assertEquals(0, cache.size());
+			Assert.assertNull(cache.get(other, "UserProfile", "1", "icon"));
+		} finally {
+			try (Stream<Path> files = Files.list(directory)) {
+				for (Path file : (Iterable<Path>) files::iterator) {
+					Files.delete(file);
+				}
+			}
+			Files.delete(directory);
+		}
+	}
+
+	@Test
+	public void testEntityCacheExpiry() throws IOException {
+		AtomicLong nanos = new AtomicLong();
+		DivrollEntityCache cache = new DivrollEntityCache(2, 1000, new Ticker() {
+			@Override
+			public long read() {
+				return nanos.get();
+			}
+		});
+		try (DivrollClient client = new DivrollClient("http://localhost", "app", "key");
+				DivrollClient otherApp = new DivrollClient("http://localhost", "other", "key")) {
+			cache.put(client, "UserProfile", "1", new JSONObject("{\"entityId\":\"1\"}"));
+			cache.put(client, "UserProfile", "2", new JSONObject("{\"entityId\":\"2\"}"));
+			Assert.assertNotNull(cache.get(client, "UserProfile", "1"));
+			cache.put(client, "UserProfile", "3", new JSONObject("{\"entityId\":\"3\"}"));
+			Assert.assertNull(cache.get(client, "UserProfile", "2"));
+			Assert.assertNull(cache.get(otherApp, "UserProfile", "1"));
+			client.setNamespace("other");
+			Assert.assertNull(cache.get(client, "UserProfile", "1"));
+			client.setNamespace(null);
+			nanos.addAndGet(1001L * 1000 * 1000);
+			Assert.assertNull(cache.get(client, "UserProfile", "1"));
+			Assert.assertEquals(1L, cache.stats().hitCount());
+
+			cache.put(client, "UserProfile", "1", new JSONObject("{\"entityId\":\"1\"}"));
+			client.setAuthToken("token");
+			cache.put(client, "UserProfile", "1", new JSONObject("{\"entityId\":\"1\"}"));
+			Assert.assertEquals(2, cache.size());
+			cache.invalidate(client, "UserProfile", "1");
+			Assert.assertEquals(0, cache.size());
+			// entries evicted for size leave nothing behind to invalidate
+			cache.put(client, "UserProfile", "1", new JSONObject("{\"entityId\":\"1\"}"));
+			cache.put(client, "UserProfile", "2", new JSONObject("{\"entityId\":\"2\"}"));
+			cache.put(client, "UserProfile", "3", new JSONObject("{\"entityId\":\"3\"}"));
+			cache.put(client, "UserProfile", "1", new JSONObject("{\"entityId\":\"1\"}"));
+			cache.invalidate(client, "UserProfile", "1");
+			Assert.assertNull(cache.get(client, "UserProfile", "1"));
+			Assert.assertNotNull(cache.get(client, "UserProfile", "3"));
+		}
+	}
 }
@@ -0,0 +1,94 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for the Divroll backend, used by tests that must not depend
+ * on a running server.
+ */
+public class TestServer implements Closeable {
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final List<Headers> requestHeaders = new CopyOnWriteArrayList<>();
+
+	public TestServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		executor = Executors.newCachedThreadPool();
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	public String getServerUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + "/divroll";
+	}
+
+	public void handle(String path, HttpHandler handler) {
+		server.createContext("/divroll" + path, exchange -> {
+			requestHeaders.add(exchange.getRequestHeaders());
+			handler.handle(exchange);
+		});
+	}
+
+	public void json(String path, int status, String body) {
+		handle(path, exchange -> send(exchange, status, "application/json", body.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	public List<Headers> getRequestHeaders() {
+		return requestHeaders;
+	}
+
+	public static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+		exchange.getRequestBody().close();
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		if (body == null || body.length == 0) {
+			exchange.sendResponseHeaders(status, -1);
+		} else {
+			exchange.sendResponseHeaders(status, body.length);
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(body);
+			}
+		}
+		exchange.close();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.divroll.backend.sdk.helper.JSON;
+
+/**
+ * Compares {@link JSON#toMap(JSONObject)} against the previous exception-driven
+ * conversion on nested entity property maps. Run {@link #main(String[])} from
+ * the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JSONBenchmark {
+
+	@Param({ "2", "4" })
+	public int depth;
+
+	private JSONObject properties;
+
+	@Setup
+	public void setup() {
+		properties = nested(depth);
+	}
+
+	@Benchmark
+	public Map<String, Object> instanceofDispatch() {
+		return JSON.toMap(properties);
+	}
+
+	@Benchmark
+	public Map<String, Object> exceptionDispatch() {
+		return LegacyJSON.toMap(properties);
+	}
+
+	private static JSONObject nested(int depth) {
+		JSONObject object = new JSONObject();
+		object.put("name", "Divroll");
+		object.put("enabled", true);
+		object.put("count", 42);
+		object.put("ratio", 0.75);
+		object.put("empty", JSONObject.NULL);
+		JSONArray array = new JSONArray();
+		array.put("tag");
+		array.put(7);
+		array.put(false);
+		object.put("tags", array);
+		if (depth > 0) {
+			object.put("child", nested(depth - 1));
+			array.put(nested(depth - 1));
+		}
+		return object;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(JSONBenchmark.class.getSimpleName()).build()).run();
+	}
+
+	/**
+	 * The try/catch conversion {@link JSON} used before, kept only as a
+	 * baseline.
+	 */
+	static class LegacyJSON {
+
+		static List<Object> toArray(JSONArray jsonArray) {
+			List<Object> list = new java.util.LinkedList<Object>();
+			for (int i = 0; i < jsonArray.length(); i++) {
+				try {
+					list.add(toMap(jsonArray.getJSONObject(i)));
+					continue;
+				} catch (Exception e) {
+				}
+				try {
+					list.add(toArray(jsonArray.getJSONArray(i)));
+					continue;
+				} catch (Exception e) {
+				}
+				try {
+					list.add(jsonArray.getBoolean(i));
+					continue;
+				} catch (Exception e) {
+				}
+				try {
+					list.add(jsonArray.getDouble(i));
+					continue;
+				} catch (Exception e) {
+				}
+				try {
+					list.add(jsonArray.getString(i));
+				} catch (Exception e) {
+				}
+			}
+			return list;
+		}
+
+		static Map<String, Object> toMap(JSONObject jsonObject) {
+			Map<String, Object> map = new java.util.LinkedHashMap<String, Object>();
+			for (String k : jsonObject.keySet()) {
+				try {
+					map.put(k, toMap(jsonObject.getJSONObject(k)));
+					continue;
+				} catch (Exception e) {
+				}
+				try {
+					map.put(k, toArray(jsonObject.getJSONArray(k)));
+					continue;
+				} catch (Exception e) {
+				}
+				try {
+					map.put(k, jsonObject.getBoolean(k));
+					continue;
+				} catch (Exception e) {
+				}
+				try {
+					map.put(k, jsonObject.getDouble(k));
+					continue;
+				} catch (Exception e) {
+				}
+				try {
+					map.put(k, jsonObject.getString(k));
+				} catch (Exception e) {
+				}
+			}
+			return map;
+		}
+	}
+}
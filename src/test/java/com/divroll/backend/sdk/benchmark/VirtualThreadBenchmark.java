@@ -0,0 +1,127 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk.benchmark;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.divroll.backend.sdk.DivrollClient;
+import com.divroll.backend.sdk.DivrollClientConfig;
+import com.divroll.backend.sdk.DivrollEntities;
+import com.divroll.backend.sdk.DivrollEntity;
+import com.divroll.backend.sdk.TestServer;
+
+/**
+ * Runs 10k concurrent callers of {@link DivrollEntity#retrieve()}, then of
+ * {@link DivrollEntities#query()}, against a local stub server, once with
+ * plain blocking calls and once with
+ * {@link DivrollClientConfig#setVirtualThreadFriendly(boolean)}. Callers are
+ * virtual threads on JDK 21 and later, and a bounded platform thread pool
+ * before that. Run {@link #main(String[])} from the test classpath, with
+ * {@code -Djdk.tracePinnedThreads=short} to report pinned carriers.
+ */
+public class VirtualThreadBenchmark {
+
+	private static final int CALLERS = 10000;
+	private static final byte[] ENTITY = "{\"entity\":{\"entityId\":\"1\",\"nickname\":\"user1\"}}"
+			.getBytes(StandardCharsets.UTF_8);
+	private static final byte[] PAGE = ("{\"entities\":{\"results\":["
+			+ "{\"entityId\":\"1\",\"nickname\":\"user1\"},{\"entityId\":\"2\",\"nickname\":\"user2\"}],"
+			+ "\"count\":2}}").getBytes(StandardCharsets.UTF_8);
+
+	public static void main(String[] args) throws Exception {
+		int callers = args.length > 0 ? Integer.parseInt(args[0]) : CALLERS;
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile", exchange -> {
+				boolean retrieve = exchange.getRequestURI().getPath().endsWith("/1");
+				TestServer.send(exchange, 200, "application/json", retrieve ? ENTITY : PAGE);
+			});
+			for (boolean query : new boolean[] { false, true }) {
+				for (boolean virtualThreadFriendly : new boolean[] { false, true }) {
+					run(server, callers, query, virtualThreadFriendly);
+					run(server, callers, query, virtualThreadFriendly);
+				}
+			}
+		}
+	}
+
+	private static void run(TestServer server, int callers, boolean query, boolean virtualThreadFriendly)
+			throws Exception {
+		DivrollClientConfig config = DivrollClientConfig.build();
+		config.setVirtualThreadFriendly(virtualThreadFriendly);
+		config.setMaxTotalConnections(200);
+		config.setMaxConnectionsPerRoute(200);
+		try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key", null, config)) {
+			ExecutorService executor = newCallerExecutor();
+			long start = System.nanoTime();
+			List<Future<?>> calls = new ArrayList<Future<?>>(callers);
+			for (int i = 0; i < callers; i++) {
+				calls.add(executor.submit(() -> {
+					// both calls log and swallow failures, so check what they decoded
+					if (query) {
+						DivrollEntities entities = new DivrollEntities(client, "UserProfile");
+						entities.query();
+						if (entities.getEntities().size() != 2) {
+							throw new IllegalStateException("Query returned " + entities.getEntities().size());
+						}
+					} else {
+						DivrollEntity entity = new DivrollEntity(client, "UserProfile");
+						entity.setEntityId("1");
+						entity.retrieve();
+						if (!entity.getProperties().has("nickname")) {
+							throw new IllegalStateException("Retrieve returned no properties");
+						}
+					}
+				}));
+			}
+			int failed = 0;
+			for (Future<?> call : calls) {
+				try {
+					call.get();
+				} catch (Exception e) {
+					failed++;
+				}
+			}
+			long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			executor.shutdown();
+			System.out.printf(
+					"workload=%s virtualThreadFriendly=%s callers=%d failed=%d elapsed=%dms throughput=%.0f/s%n",
+					query ? "query" : "retrieve", virtualThreadFriendly, callers, failed, elapsed,
+					callers * 1000.0 / Math.max(elapsed, 1));
+		}
+	}
+
+	private static ExecutorService newCallerExecutor() throws Exception {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (NoSuchMethodException e) {
+			return Executors.newFixedThreadPool(500);
+		}
+	}
+}
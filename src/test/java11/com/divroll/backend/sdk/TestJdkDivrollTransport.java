@@ -0,0 +1,154 @@
+/*
+ * Divroll, Platform for Hosting Static Sites
+ * Copyright 2018, Divroll, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.divroll.backend.sdk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.concurrent.FutureCallback;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.divroll.backend.sdk.exception.NotFoundRequestException;
+import com.google.common.io.ByteStreams;
+
+import junit.framework.TestCase;
+
+@RunWith(JUnit4.class)
+public class TestJdkDivrollTransport extends TestCase {
+
+	@Rule
+	public final ExpectedException exception = ExpectedException.none();
+
+	@Test
+	public void testJdkTransport() throws Exception {
+		AtomicReference<byte[]> stored = new AtomicReference<byte[]>();
+		AtomicReference<String> created = new AtomicReference<String>();
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile", exchange -> {
+				String path = exchange.getRequestURI().getPath();
+				if (path.endsWith("/blobs/picture") && exchange.getRequestMethod().equals("POST")) {
+					stored.set(ByteStreams.toByteArray(exchange.getRequestBody()));
+					TestServer.send(exchange, 201, "application/octet-stream", null);
+				} else if (path.endsWith("/blobs/picture")) {
+					TestServer.send(exchange, 200, "application/octet-stream", stored.get());
+				} else if (exchange.getRequestMethod().equals("POST")) {
+					created.set(new String(ByteStreams.toByteArray(exchange.getRequestBody()), StandardCharsets.UTF_8));
+					TestServer.send(exchange, 201, "application/json",
+							"{\"entity\":{\"entityId\":\"1\"}}".getBytes(StandardCharsets.UTF_8));
+				} else if (path.endsWith("/1")) {
+					TestServer.send(exchange, 200, "application/json",
+							"{\"entity\":{\"entityId\":\"1\",\"nickname\":\"user1\"}}"
+									.getBytes(StandardCharsets.UTF_8));
+				} else {
+					TestServer.send(exchange, 404, "application/json", null);
+				}
+			});
+			DivrollClientConfig config = DivrollClientConfig.build();
+			config.setTransport(new JdkDivrollTransport(config));
+			try (DivrollClient client = new DivrollClient(server.getServerUrl(), "app", "key", null, config)) {
+				DivrollEntity entity = new DivrollEntity(client, "UserProfile");
+				entity.setProperty("nickname", "user1");
+				entity.create();
+				Assert.assertEquals("1", entity.getEntityId());
+				Assert.assertTrue(created.get().contains("user1"));
+
+				DivrollEntity retrieved = new DivrollEntity(client, "UserProfile");
+				retrieved.setEntityId("1");
+				Assert.assertEquals("user1", retrieved.retrieveAsync().get().getProperty("nickname"));
+
+				byte[] blob = new byte[256 * 1024];
+				new Random(3).nextBytes(blob);
+				entity.setBlobProperty("picture", blob);
+				Assert.assertArrayEquals(blob, stored.get());
+				try (InputStream in = entity.openBlobStream("picture")) {
+					Assert.assertArrayEquals(blob, ByteStreams.toByteArray(in));
+				}
+
+				DivrollEntity missing = new DivrollEntity(client, "UserProfile");
+				missing.setEntityId("2");
+				exception.expect(NotFoundRequestException.class);
+				missing.retrieve();
+			}
+		}
+	}
+
+	@Test
+	public void testJdkTransportCancel() throws Exception {
+		CountDownLatch streaming = new CountDownLatch(1);
+		CountDownLatch disconnected = new CountDownLatch(1);
+		try (TestServer server = new TestServer()) {
+			server.handle("/entities/UserProfile", exchange -> {
+				exchange.sendResponseHeaders(200, 0);
+				try (OutputStream out = exchange.getResponseBody()) {
+					for (int i = 0; i < 500; i++) {
+						out.write(new byte[1024]);
+						out.flush();
+						streaming.countDown();
+						Thread.sleep(20);
+					}
+				} catch (IOException e) {
+					disconnected.countDown();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			AtomicInteger cancelled = new AtomicInteger();
+			try (JdkDivrollTransport transport = new JdkDivrollTransport(DivrollClientConfig.build())) {
+				Future<HttpResponse> future = transport.execute(
+						new HttpGet(server.getServerUrl() + "/entities/UserProfile/1"),
+						new FutureCallback<HttpResponse>() {
+							@Override
+							public void completed(HttpResponse result) {
+							}
+
+							@Override
+							public void failed(Exception ex) {
+							}
+
+							@Override
+							public void cancelled() {
+								cancelled.incrementAndGet();
+							}
+						});
+				Assert.assertTrue(streaming.await(5, TimeUnit.SECONDS));
+				Assert.assertTrue(future.cancel(false));
+				Assert.assertTrue(disconnected.await(5, TimeUnit.SECONDS));
+				Assert.assertEquals(1, cancelled.get());
+			}
+		}
+	}
+}